@@ -0,0 +1,40 @@
+package antifraud;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Boots the whole application once per trial against a private in-memory H2 database, so benchmarks exercise the
+ * real beans and repositories.
+ */
+@State(Scope.Benchmark)
+public class ApplicationState {
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(AntiFraudApplication.class)
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:jmh;DB_CLOSE_DELAY=-1",
+                        "--antifraud.binary.enabled=true", // idle unless a benchmark connects
+                        "--antifraud.binary.port=0",
+                        "--logging.level.root=warn",
+                        "--logging.level.org.springframework.jdbc=warn",
+                        "--logging.level.org.springframework.security=warn",
+                        "--logging.level.com.zaxxer.hikari.HikariConfig=warn");
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+}
@@ -0,0 +1,49 @@
+package antifraud.auth;
+
+import antifraud.ApplicationState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+@State(Scope.Benchmark)
+public class AuthenticationBenchmark {
+    private static final String USERNAME = "benchmark_merchant";
+    private static final String PASSWORD = "password";
+
+    private UserService userService;
+    private AuthenticationProvider authenticationProvider;
+    private AccessTokenService accessTokenService;
+    private String accessToken;
+
+    @Setup
+    public void setUp(ApplicationState application) {
+        userService = application.getBean(UserService.class);
+        authenticationProvider = application.getBean(AuthenticationProvider.class);
+        accessTokenService = application.getBean(AccessTokenService.class);
+        PasswordEncoder passwordEncoder = application.getBean(PasswordEncoder.class);
+        application.getBean(UserRepository.class)
+                .save(new User("Merchant", USERNAME, passwordEncoder.encode(PASSWORD), Role.MERCHANT));
+        accessToken = accessTokenService.issue(USERNAME, Role.MERCHANT).getToken();
+    }
+
+    @Benchmark
+    public UserDetails loadUserByUsername() {
+        return userService.loadUserByUsername(USERNAME);
+    }
+
+    @Benchmark
+    public Authentication authenticateBasicCached() {
+        return authenticationProvider.authenticate(UsernamePasswordAuthenticationToken.unauthenticated(USERNAME, PASSWORD));
+    }
+
+    @Benchmark
+    public Object verifyAccessToken() {
+        return accessTokenService.verify(accessToken);
+    }
+}
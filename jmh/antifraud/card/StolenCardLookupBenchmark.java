@@ -0,0 +1,47 @@
+package antifraud.card;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+public class StolenCardLookupBenchmark {
+    @Param({"1000", "1000000"})
+    private int size;
+
+    private StolenCardIndex stolenCardIndex;
+    private long stolen;
+    private long clean;
+    private String cleanNumber;
+
+    @Setup
+    public void setUp() {
+        long[] numbers = new long[size];
+        for (int i = 0; i < size; i++) {
+            numbers[i] = 4000000000000000L + i * 31L;
+        }
+        stolenCardIndex = new StolenCardIndex();
+        stolenCardIndex.replaceAll(numbers);
+        stolen = numbers[size / 2];
+        clean = 5555555555554444L;
+        cleanNumber = CardNumbers.format(clean);
+    }
+
+    @Benchmark
+    public boolean cleanCard() {
+        return stolenCardIndex.contains(clean);
+    }
+
+    @Benchmark
+    public boolean stolenCard() {
+        return stolenCardIndex.contains(stolen);
+    }
+
+    @Benchmark
+    public boolean packAndCheckCleanCard() {
+        long packed = CardNumbers.pack(cleanNumber);
+        return packed != CardNumbers.INVALID && stolenCardIndex.contains(packed);
+    }
+}
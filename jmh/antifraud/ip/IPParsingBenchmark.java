@@ -0,0 +1,72 @@
+package antifraud.ip;
+
+import antifraud.ApplicationState;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import jakarta.validation.constraints.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Set;
+
+/**
+ * The regex that used to guard {@link IPRequest} against the hand-written parsers, alone and through Bean Validation.
+ * The gc profiler shows the parsers allocate nothing, where the regex allocates a matcher per call.
+ */
+@State(Scope.Benchmark)
+public class IPParsingBenchmark {
+    private static final String REGEX = "^(([0-9]|[1-9][0-9]|1[0-9][0-9]|2[0-4][0-9]|25[0-5])(\\.(?!$)|$)){4}$";
+    private static final java.util.regex.Pattern PATTERN = java.util.regex.Pattern.compile(REGEX);
+
+    @Param({"10.0.0.1", "192.168.100.200", "256.1.1.1"})
+    private String ip;
+
+    private Validator validator;
+    private IPRequest request;
+    private LegacyIPRequest legacyRequest;
+    private final long[] address = new long[2];
+
+    @Setup
+    public void setUp(ApplicationState application) {
+        validator = application.getBean(Validator.class);
+        request = new IPRequest(ip);
+        legacyRequest = new LegacyIPRequest(ip);
+    }
+
+    @Benchmark
+    public boolean regex() {
+        return PATTERN.matcher(ip).matches();
+    }
+
+    @Benchmark
+    public long parseIPv4() {
+        return IPv4.parse(ip, 0, ip.length());
+    }
+
+    @Benchmark
+    public boolean parseAnyAddress() {
+        return IPv6.parse(ip, 0, ip.length(), address);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<LegacyIPRequest>> validateWithRegex() {
+        return validator.validate(legacyRequest);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<IPRequest>> validateWithParser() {
+        return validator.validate(request);
+    }
+
+    public static class LegacyIPRequest {
+        @Pattern(regexp = REGEX)
+        private final String ip;
+
+        LegacyIPRequest(String ip) {
+            this.ip = ip;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package antifraud.ip;
+
+import antifraud.ApplicationState;
+import antifraud.ip.dto.IPImportResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+/**
+ * Imports a list of random addresses, a tenth of them repeated, into an empty table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+public class SuspiciousIPImportBenchmark {
+    @Param({"1000000"})
+    private int size;
+
+    private IPService ipService;
+    private JdbcTemplate jdbcTemplate;
+    private byte[] list;
+
+    @Setup
+    public void setUp(ApplicationState application) {
+        ipService = application.getBean(IPService.class);
+        jdbcTemplate = application.getBean(JdbcTemplate.class);
+        SplittableRandom random = new SplittableRandom(42);
+        StringBuilder text = new StringBuilder(size * 16);
+        int[] recent = new int[1024];
+        for (int i = 0; i < size; i++) {
+            int address = random.nextInt(10) == 0 ? recent[random.nextInt(recent.length)] : random.nextInt();
+            recent[i & (recent.length - 1)] = address;
+            text.append(IPv4.format(address)).append('\n');
+        }
+        list = text.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Setup(Level.Invocation)
+    public void clear() {
+        jdbcTemplate.update("DELETE FROM ip");
+        ipService.loadSuspiciousIPIndex();
+    }
+
+    @Benchmark
+    public IPImportResponse importList() throws IOException {
+        return ipService.importSuspiciousIPs(new ByteArrayInputStream(list));
+    }
+}
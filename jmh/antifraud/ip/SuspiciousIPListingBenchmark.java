@@ -0,0 +1,68 @@
+package antifraud.ip;
+
+import antifraud.ApplicationState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Deep pages through a large table: keyset pagination seeks on the primary key, while OFFSET has to skip every
+ * preceding row. The export walks the whole table through one cursor.
+ */
+@State(Scope.Benchmark)
+public class SuspiciousIPListingBenchmark {
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"1000000"})
+    private int size;
+
+    private IPService ipService;
+    private JdbcTemplate jdbcTemplate;
+    private long firstId;
+    private int page;
+
+    @Setup
+    public void setUp(ApplicationState application) {
+        ipService = application.getBean(IPService.class);
+        jdbcTemplate = application.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("DELETE FROM ip");
+        List<Object[]> rows = new ArrayList<>(10_000);
+        for (int i = 0; i < size; i++) {
+            rows.add(new Object[]{0L, IPv6.mapIPv4(0x0A000000 + i)});
+            if (rows.size() == 10_000 || i == size - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO ip (address_high, address_low) VALUES (?, ?)", rows);
+                rows.clear();
+            }
+        }
+        firstId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM ip", Long.class);
+    }
+
+    @Benchmark
+    public List<IP> keysetDeepPage() {
+        return ipService.listSuspiciousIPs(firstId + nextDeepOffset(), PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Long> offsetDeepPage() {
+        return jdbcTemplate.queryForList("SELECT address_low FROM ip ORDER BY id LIMIT ? OFFSET ?", Long.class, PAGE_SIZE, nextDeepOffset());
+    }
+
+    private int nextDeepOffset() { // a different page every time, so H2 cannot answer from its result cache
+        page = (page + 1) % 1000;
+        return size * 9 / 10 + page * PAGE_SIZE / 10;
+    }
+
+    @Benchmark
+    public long export() throws IOException {
+        long[] checksum = new long[1];
+        ipService.exportSuspiciousIPs((id, ip) -> checksum[0] += id);
+        return checksum[0];
+    }
+}
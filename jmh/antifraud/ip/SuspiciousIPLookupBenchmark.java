@@ -0,0 +1,127 @@
+package antifraud.ip;
+
+import antifraud.ApplicationState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Compares the in-memory index with database lookups. The legacy table keeps the old {@code varchar(15)} layout
+ * without an index, so its lookups show the table scan the numeric unique column replaced. The table holds as many
+ * IPv6 as IPv4 addresses, so the IPv4 lookups show whether the IPv6 keys slow them down.
+ */
+@State(Scope.Benchmark)
+public class SuspiciousIPLookupBenchmark {
+    private static final int BATCH_SIZE = 10_000;
+    private static final long IPV6_NETWORK = 0x2001_0DB8_0000_0000L;
+
+    @Param({"10000", "1000000", "10000000"})
+    private int size;
+
+    private IPService ipService;
+    private IPRepository ipRepository;
+    private JdbcTemplate jdbcTemplate;
+    private int hitAddress;
+    private int missAddress;
+    private String hitIP;
+    private long ipv6HitLow;
+    private String ipv6HitIP;
+
+    @Setup
+    public void setUp(ApplicationState application) {
+        ipService = application.getBean(IPService.class);
+        ipRepository = application.getBean(IPRepository.class);
+        jdbcTemplate = application.getBean(JdbcTemplate.class);
+        jdbcTemplate.update("DELETE FROM ip");
+        jdbcTemplate.update("CREATE TABLE IF NOT EXISTS legacy_ip (id INT AUTO_INCREMENT PRIMARY KEY, ip varchar(15))");
+        List<Object[]> addresses = new ArrayList<>(BATCH_SIZE);
+        List<Object[]> ips = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < size; i++) {
+            int address = 0x0A000000 + i * 7;
+            addresses.add(new Object[]{0L, IPv6.mapIPv4(address)});
+            addresses.add(new Object[]{IPV6_NETWORK, i * 7L});
+            ips.add(new Object[]{IPv4.format(address)});
+            if (ips.size() == BATCH_SIZE || i == size - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO ip (address_high, address_low) VALUES (?, ?)", addresses);
+                jdbcTemplate.batchUpdate("INSERT INTO legacy_ip (ip) VALUES (?)", ips);
+                addresses.clear();
+                ips.clear();
+            }
+        }
+        ipService.loadSuspiciousIPIndex();
+        hitAddress = 0x0A000000 + size / 2 * 7;
+        hitIP = IPv4.format(hitAddress);
+        missAddress = hitAddress + 1;
+        ipv6HitLow = size / 2 * 7L;
+        ipv6HitIP = IPv6.format(IPV6_NETWORK, ipv6HitLow);
+    }
+
+    @TearDown
+    public void tearDown() {
+        jdbcTemplate.update("DROP TABLE legacy_ip");
+        jdbcTemplate.update("DELETE FROM ip");
+    }
+
+    @Benchmark
+    public boolean indexHit() {
+        return ipService.isSuspicious(hitAddress);
+    }
+
+    @Benchmark
+    public boolean indexMiss() {
+        return ipService.isSuspicious(missAddress);
+    }
+
+    @Benchmark
+    public boolean indexSubnet() {
+        return ipService.hasSuspiciousIPInSubnet(hitAddress, 24);
+    }
+
+    @Benchmark
+    public boolean ipv6IndexHit() {
+        return ipService.isSuspicious(IPV6_NETWORK, ipv6HitLow);
+    }
+
+    @Benchmark
+    public boolean ipv6IndexMiss() {
+        return ipService.isSuspicious(IPV6_NETWORK, ipv6HitLow + 1);
+    }
+
+    @Benchmark
+    public boolean ipv6IndexSubnet() {
+        return ipService.hasSuspiciousIPInSubnet(IPV6_NETWORK, ipv6HitLow, 120);
+    }
+
+    @Benchmark
+    public boolean ipv4StringHit() {
+        return ipService.isSuspicious(hitIP);
+    }
+
+    @Benchmark
+    public boolean ipv6StringHit() {
+        return ipService.isSuspicious(ipv6HitIP);
+    }
+
+    @Benchmark
+    public Optional<IP> repositoryHit() {
+        return ipRepository.findByIp(hitIP);
+    }
+
+    @Benchmark
+    public Optional<IP> repositoryMiss() {
+        return ipRepository.findByAddressHighAndAddressLow(0, IPv6.mapIPv4(missAddress));
+    }
+
+    @Benchmark
+    public List<String> legacyScanHit() {
+        return jdbcTemplate.queryForList("SELECT ip FROM legacy_ip WHERE ip = ?", String.class, hitIP);
+    }
+}
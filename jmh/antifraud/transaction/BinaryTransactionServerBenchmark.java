@@ -0,0 +1,83 @@
+package antifraud.transaction;
+
+import antifraud.ApplicationState;
+import antifraud.auth.Role;
+import antifraud.auth.User;
+import antifraud.auth.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.core.env.Environment;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Scoring throughput over the binary channel, one transaction per round trip and pipelined, next to the same
+ * transaction as an HTTP + JSON request with Basic auth on a kept-alive connection.
+ */
+@State(Scope.Benchmark)
+public class BinaryTransactionServerBenchmark {
+    private static final String USERNAME = "benchmark_merchant";
+    private static final String PASSWORD = "password";
+    private static final int PIPELINE_DEPTH = 256;
+    private static final String TRANSACTION_JSON = "{\"amount\":870,\"ip\":\"192.168.0.1\",\"number\":\"4000008449433403\",\"region\":\"EAP\"}";
+
+    private BinaryTransactionClient client;
+    private HttpClient httpClient;
+    private HttpRequest httpRequest;
+    private long correlationId;
+
+    @Setup
+    public void setUp(ApplicationState application) throws IOException {
+        PasswordEncoder passwordEncoder = application.getBean(PasswordEncoder.class);
+        application.getBean(UserRepository.class)
+                .save(new User("Merchant", USERNAME, passwordEncoder.encode(PASSWORD), Role.MERCHANT));
+        client = BinaryTransactionClient.connect("localhost", application.getBean(BinaryTransactionServer.class).getPort(), USERNAME, PASSWORD);
+        String port = application.getBean(Environment.class).getProperty("local.server.port");
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        httpRequest = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/antifraud/transaction"))
+                .header("Content-Type", "application/json")
+                .header("Authorization", "Basic " + Base64.getEncoder().encodeToString((USERNAME + ":" + PASSWORD).getBytes(StandardCharsets.UTF_8)))
+                .POST(HttpRequest.BodyPublishers.ofString(TRANSACTION_JSON))
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.close();
+    }
+
+    @Benchmark
+    public TransactionStatus binaryRoundTrip() throws IOException {
+        client.send(correlationId++, 870, "192.168.0.1", "4000008449433403", Region.EAP);
+        return client.receive().getStatus();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PIPELINE_DEPTH)
+    public TransactionStatus binaryPipelined() throws IOException {
+        for (int i = 0; i < PIPELINE_DEPTH; i++) {
+            client.send(correlationId++, 870, "192.168.0.1", "4000008449433403", Region.EAP);
+        }
+        TransactionStatus status = null;
+        for (int i = 0; i < PIPELINE_DEPTH; i++) {
+            status = client.receive().getStatus();
+        }
+        return status;
+    }
+
+    @Benchmark
+    public String httpJson() throws IOException, InterruptedException {
+        return httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofString()).body();
+    }
+}
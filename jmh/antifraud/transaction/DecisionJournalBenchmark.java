@@ -0,0 +1,61 @@
+package antifraud.transaction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of journaling one decision, from one thread and from four contending for the append lock. Run with
+ * {@code -prof gc} to see the allocation rate, which should be zero.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DecisionJournalBenchmark {
+    @Param({"NEVER", "INTERVAL"})
+    private String fsync;
+
+    private Path directory;
+    private DecisionJournal journal;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("journal-benchmark");
+        journal = new DecisionJournal(true, directory.toString(), DataSize.ofMegabytes(256),
+                DecisionJournal.FsyncPolicy.valueOf(fsync), Duration.ofSeconds(1), Duration.ofDays(1));
+        journal.start();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException, IOException {
+        journal.stop();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public long append() {
+        return journal.append(System.currentTimeMillis(), "merchant", 870, 0xC0A80001, true, 4000008449433403L, -1,
+                TransactionStatus.MANUAL_PROCESSING, 1);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long appendContended() {
+        return append();
+    }
+}
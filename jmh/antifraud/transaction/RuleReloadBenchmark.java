@@ -0,0 +1,54 @@
+package antifraud.transaction;
+
+import antifraud.ApplicationState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares validation latency percentiles with and without a thread that keeps reloading the rule set.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RuleReloadBenchmark {
+    private TransactionValidator transactionValidator;
+    private RulesConfiguration configuration;
+    private Transaction transaction;
+
+    @Setup
+    public void setUp(ApplicationState application) {
+        transactionValidator = application.getBean(TransactionValidator.class);
+        configuration = transactionValidator.getRuleSet().getConfiguration();
+        transaction = new Transaction(870, "192.168.0.1", "4000008449433403");
+    }
+
+    @Benchmark
+    @Group("steady")
+    @GroupThreads(3)
+    public TransactionStatus validateWithoutReloads() {
+        return transactionValidator.validate(transaction);
+    }
+
+    @Benchmark
+    @Group("reloading")
+    @GroupThreads(3)
+    public TransactionStatus validateDuringReloads() {
+        return transactionValidator.validate(transaction);
+    }
+
+    @Benchmark
+    @Group("reloading")
+    @GroupThreads(1)
+    public RuleSet reload() {
+        return transactionValidator.install(configuration);
+    }
+}
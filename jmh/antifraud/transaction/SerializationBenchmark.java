@@ -0,0 +1,40 @@
+package antifraud.transaction;
+
+import antifraud.ApplicationState;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+    private ObjectReader transactionReader;
+    private ObjectWriter resultWriter;
+    private byte[] transactionJson;
+    private ValidationResult result;
+
+    @Setup
+    public void setUp(ApplicationState application) {
+        ObjectMapper objectMapper = application.getBean(ObjectMapper.class);
+        transactionReader = objectMapper.readerFor(Transaction.class);
+        resultWriter = objectMapper.writerFor(ValidationResult.class);
+        transactionJson = "{\"amount\": 870, \"ip\": \"192.168.0.1\"}".getBytes(StandardCharsets.UTF_8);
+        result = new ValidationResult(TransactionStatus.MANUAL_PROCESSING);
+    }
+
+    @Benchmark
+    public Transaction readTransaction() throws IOException {
+        return transactionReader.readValue(transactionJson);
+    }
+
+    @Benchmark
+    public byte[] writeValidationResult() throws IOException {
+        return resultWriter.writeValueAsBytes(result);
+    }
+}
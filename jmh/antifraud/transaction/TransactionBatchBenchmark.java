@@ -0,0 +1,44 @@
+package antifraud.transaction;
+
+import antifraud.ApplicationState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Scores NDJSON batches of several sizes. Divide the score by {@code batchSize} for the cost per transaction, which
+ * should drop as batches grow.
+ */
+@State(Scope.Benchmark)
+public class TransactionBatchBenchmark {
+    @Param({"1", "100", "10000"})
+    public int batchSize;
+
+    private TransactionBatchProcessor processor;
+    private byte[] batch;
+    private ByteArrayOutputStream results;
+
+    @Setup
+    public void setUp(ApplicationState application) {
+        processor = application.getBean(TransactionBatchProcessor.class);
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < batchSize; i++) {
+            body.append("{\"amount\":").append(1 + i % 2000).append("}\n");
+        }
+        batch = body.toString().getBytes(StandardCharsets.UTF_8);
+        results = new ByteArrayOutputStream(batchSize * 32);
+    }
+
+    @Benchmark
+    public int processBatch() throws IOException {
+        results.reset();
+        return processor.process(new ByteArrayInputStream(batch), results, true, "benchmark");
+    }
+}
@@ -0,0 +1,53 @@
+package antifraud.transaction;
+
+import antifraud.ApplicationState;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+
+/**
+ * Scoring cost with and without the write-behind history. With {@code DROP} the request thread never waits for the
+ * database, so the difference is the cost of enqueueing; {@code BLOCK} shows what happens once the writer falls behind.
+ */
+@State(Scope.Benchmark)
+public class TransactionHistoryBenchmark {
+    @Param({"false", "true"})
+    private boolean enabled;
+
+    @Param({"DROP", "BLOCK"})
+    private String overflow;
+
+    private TransactionValidator transactionValidator;
+    private TransactionHistory transactionHistory;
+    private Transaction transaction;
+
+    @Setup
+    public void setUp(ApplicationState application) {
+        transactionValidator = application.getBean(TransactionValidator.class);
+        ReviewQueue reviewQueue = new ReviewQueue(Duration.ofSeconds(30), Duration.ofMinutes(5), 100_000, new SimpleMeterRegistry());
+        transactionHistory = new TransactionHistory(application.getBean(JdbcTemplate.class), reviewQueue, enabled, 10_000, 500,
+                Duration.ofMillis(200), TransactionHistory.OverflowPolicy.valueOf(overflow), Duration.ofMillis(10),
+                new SimpleMeterRegistry());
+        transactionHistory.start();
+        transaction = new Transaction(870, "192.168.0.1", "4000008449433403");
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        transactionHistory.stop();
+    }
+
+    @Benchmark
+    public TransactionStatus scoreAndRecord() {
+        TransactionStatus result = transactionValidator.validate(transaction);
+        transactionHistory.record("merchant", transaction, result);
+        return result;
+    }
+}
@@ -0,0 +1,43 @@
+package antifraud.transaction;
+
+import antifraud.ApplicationState;
+import antifraud.ip.IPService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+public class TransactionValidatorBenchmark {
+    private TransactionValidator transactionValidator;
+    private Transaction amountOnly;
+    private Transaction cleanIP;
+    private Transaction suspiciousIP;
+
+    @Setup
+    public void setUp(ApplicationState application) {
+        transactionValidator = application.getBean(TransactionValidator.class);
+        IPService ipService = application.getBean(IPService.class);
+        for (int i = 0; i < 1000; i++) {
+            ipService.addSuspiciousIP("10.0." + (i / 256) + "." + (i % 256));
+        }
+        amountOnly = new Transaction(870);
+        cleanIP = new Transaction(870, "192.168.0.1");
+        suspiciousIP = new Transaction(870, "10.0.1.17");
+    }
+
+    @Benchmark
+    public TransactionStatus validateAmount() {
+        return transactionValidator.validate(amountOnly);
+    }
+
+    @Benchmark
+    public TransactionStatus validateWithCleanIP() {
+        return transactionValidator.validate(cleanIP);
+    }
+
+    @Benchmark
+    public TransactionStatus validateWithSuspiciousIP() {
+        return transactionValidator.validate(suspiciousIP);
+    }
+}
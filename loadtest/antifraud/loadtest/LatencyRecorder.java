@@ -0,0 +1,114 @@
+package antifraud.loadtest;
+
+import antifraud.transaction.TransactionStatus;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Keeps every latency of a run, tagged with its operation, in one preallocated array, so recording from the HTTP
+ * client threads is a single index increment and store. Latencies are measured from the time a request was
+ * scheduled to start, not from when it was actually sent, so a stalled server cannot hide its queueing delay.
+ */
+final class LatencyRecorder {
+    private static final int OPERATION_SHIFT = 56;
+    private static final long LATENCY_MASK = (1L << OPERATION_SHIFT) - 1;
+
+    private final long[] samples;
+    private final AtomicInteger count = new AtomicInteger();
+    private final AtomicInteger overflow = new AtomicInteger();
+    private final AtomicLongArray errors = new AtomicLongArray(Workload.Operation.values().length);
+    private final AtomicLongArray decisions = new AtomicLongArray(Workload.Pattern.values().length * TransactionStatus.values().length);
+    private final AtomicInteger late = new AtomicInteger();
+
+    LatencyRecorder(int capacity) {
+        samples = new long[capacity];
+    }
+
+    void record(Workload.Operation operation, long latencyNanos) {
+        int index = count.getAndIncrement();
+        if (index < samples.length) {
+            samples[index] = (long) operation.ordinal() << OPERATION_SHIFT | Math.min(latencyNanos, LATENCY_MASK);
+        } else {
+            overflow.incrementAndGet();
+        }
+    }
+
+    void error(Workload.Operation operation) {
+        errors.incrementAndGet(operation.ordinal());
+    }
+
+    void decision(Workload.Pattern pattern, TransactionStatus status) {
+        decisions.incrementAndGet(pattern.ordinal() * TransactionStatus.values().length + status.ordinal());
+    }
+
+    void late() {
+        late.incrementAndGet();
+    }
+
+    void report(PrintStream out, LoadTestOptions options, long elapsedNanos) {
+        int recorded = Math.min(count.get(), samples.length);
+        long[] sorted = Arrays.copyOf(samples, recorded);
+        Arrays.sort(sorted); // groups by operation, then orders by latency within each group
+
+        out.printf("%-22s %9s %7s %9s %9s %9s %9s%n", "operation", "count", "errors", "p50 ms", "p99 ms", "p99.9 ms", "max ms");
+        int from = 0;
+        long[] all = new long[recorded];
+        for (Workload.Operation operation : Workload.Operation.values()) {
+            int to = from;
+            while (to < recorded && sorted[to] >>> OPERATION_SHIFT == operation.ordinal()) {
+                all[to] = sorted[to] & LATENCY_MASK;
+                to++;
+            }
+            if (to > from || errors.get(operation.ordinal()) > 0) {
+                printRow(out, operation.name(), all, from, to, errors.get(operation.ordinal()));
+            }
+            from = to;
+        }
+        Arrays.sort(all);
+        long totalErrors = 0;
+        for (int i = 0; i < errors.length(); i++) {
+            totalErrors += errors.get(i);
+        }
+        printRow(out, "ALL", all, 0, recorded, totalErrors);
+
+        double seconds = elapsedNanos / 1e9;
+        out.printf("%nachieved throughput: %.1f requests/s (target %d/s), %d requests started more than 10 ms late%n",
+                count.get() / seconds, options.rate, late.get());
+        if (overflow.get() > 0) {
+            out.printf("%d latencies were not kept because the sample buffer was full%n", overflow.get());
+        }
+
+        out.printf("%n%-14s", "pattern");
+        for (TransactionStatus status : TransactionStatus.values()) {
+            out.printf(" %18s", status.name());
+        }
+        out.println();
+        for (Workload.Pattern pattern : Workload.Pattern.values()) {
+            if (pattern == Workload.Pattern.ADMIN) {
+                continue;
+            }
+            out.printf("%-14s", pattern.name());
+            for (TransactionStatus status : TransactionStatus.values()) {
+                out.printf(" %18d", decisions.get(pattern.ordinal() * TransactionStatus.values().length + status.ordinal()));
+            }
+            out.println();
+        }
+    }
+
+    private static void printRow(PrintStream out, String name, long[] latencies, int from, int to, long errors) {
+        out.printf("%-22s %9d %7d %9.2f %9.2f %9.2f %9.2f%n", name, to - from, errors,
+                percentile(latencies, from, to, 0.50), percentile(latencies, from, to, 0.99),
+                percentile(latencies, from, to, 0.999), percentile(latencies, from, to, 1.0));
+    }
+
+    private static double percentile(long[] sorted, int from, int to, double quantile) {
+        if (to == from) {
+            return 0;
+        }
+        int index = from + (int) Math.min(to - from - 1, Math.ceil(quantile * (to - from)) - 1);
+        return sorted[Math.max(index, from)] / 1e6;
+    }
+}
@@ -0,0 +1,207 @@
+package antifraud.loadtest;
+
+import antifraud.AntiFraudApplication;
+import antifraud.transaction.ReactiveTransactionServer;
+import antifraud.transaction.TransactionStatus;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Boots the application on a private in-memory H2 database, registers merchants, a support and an administrator
+ * account, reports the workload's stolen cards and suspicious IPs, then drives the API at a fixed rate with at most
+ * {@code connections} requests in flight. Pass {@code --target=http://host:port} to drive a running instance instead.
+ * <p>
+ * With {@code --scoring=reactive} transactions go to the reactive scoring server, booted next to the servlet one or
+ * given by {@code --reactive-target}, while the other operations stay on the servlet server. Comparing the two at
+ * high concurrency means running the same workload once per server, for example
+ * {@code --rate=20000 --connections=10000 --scoring=mvc} and then {@code --scoring=reactive}, and again with
+ * {@code --connections=1000}.
+ * <p>
+ * {@code --threads=virtual} boots the application with {@code spring.threads.virtual.enabled}, so each request and its
+ * repository calls run on a virtual thread instead of Tomcat's pool of 200 platform threads. Running the same
+ * workload with {@code --threads=platform} and {@code --threads=virtual} at {@code --connections=1000} or more shows
+ * the throughput of both at high concurrency.
+ * <p>
+ * Run with {@code gradle loadTest -PloadTestArgs="--rate=1000 --duration=60"}.
+ */
+public final class LoadTest {
+    private static final long LATE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final TransactionStatus[] STATUSES = TransactionStatus.values();
+
+    private final LoadTestOptions options;
+    private final Workload workload;
+    private final HttpClient client;
+    private final URI base;
+    private final URI scoringBase;
+    private final Semaphore inFlight;
+    private final Map<String, String> authorizations = new HashMap<>();
+
+    private LoadTest(LoadTestOptions options, String base, String scoringBase) {
+        this.options = options;
+        this.workload = new Workload(options);
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.base = URI.create(base);
+        this.scoringBase = URI.create(scoringBase);
+        this.inFlight = new Semaphore(options.connections);
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        ConfigurableApplicationContext context = null;
+        String base = options.target;
+        String scoringBase = options.reactive ? options.reactiveTarget : base;
+        if (base == null) {
+            context = new SpringApplicationBuilder(AntiFraudApplication.class)
+                    .run("--server.port=0",
+                            "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                            "--antifraud.reactive.enabled=" + options.reactive,
+                            "--antifraud.reactive.port=0",
+                            "--spring.threads.virtual.enabled=" + options.virtualThreads,
+                            "--logging.level.root=warn",
+                            "--logging.level.org.springframework.jdbc=warn",
+                            "--logging.level.org.springframework.security=warn",
+                            "--logging.level.com.zaxxer.hikari.HikariConfig=warn");
+            base = "http://localhost:" + ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            scoringBase = options.reactive
+                    ? "http://localhost:" + context.getBean(ReactiveTransactionServer.class).getPort()
+                    : base;
+        }
+        try {
+            LoadTest loadTest = new LoadTest(options, base, scoringBase);
+            loadTest.setUp();
+            System.out.printf("Load test against %s, transactions against %s: %s%n", base, scoringBase, options);
+            loadTest.drive(options.warmupSeconds, null);
+            LatencyRecorder recorder = new LatencyRecorder(options.rate * options.durationSeconds + options.rate);
+            long elapsed = loadTest.drive(options.durationSeconds, recorder);
+            recorder.report(System.out, options, elapsed);
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private void setUp() throws IOException, InterruptedException {
+        register(Workload.ADMIN); // the first user becomes the administrator
+        register(Workload.SUPPORT);
+        send("PUT", "/api/auth/role", "{\"username\":\"" + Workload.SUPPORT + "\",\"role\":\"SUPPORT\"}", Workload.ADMIN, 200);
+        unlock(Workload.SUPPORT);
+        for (String merchant : workload.getMerchants()) {
+            register(merchant);
+            unlock(merchant);
+        }
+        for (String number : workload.getStolenCards()) {
+            send("POST", "/api/antifraud/stolencard", "{\"number\":\"" + number + "\"}", Workload.SUPPORT, 200);
+        }
+        for (String ip : workload.getSuspiciousIPs()) {
+            send("POST", "/api/antifraud/suspicious-ip", "{\"ip\":\"" + ip + "\"}", Workload.SUPPORT, 200, 409);
+        }
+    }
+
+    private void register(String username) throws IOException, InterruptedException {
+        String body = "{\"name\":\"" + username + "\",\"username\":\"" + username + "\",\"password\":\"" + Workload.PASSWORD + "\"}";
+        send("POST", "/api/auth/user", body, null, 201);
+    }
+
+    private void unlock(String username) throws IOException, InterruptedException {
+        send("PUT", "/api/auth/access", "{\"username\":\"" + username + "\",\"operation\":\"UNLOCK\"}", Workload.ADMIN, 200);
+    }
+
+    private void send(String method, String path, String body, String username, int... expected) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request(base, method, path, body, username), HttpResponse.BodyHandlers.ofString());
+        for (int status : expected) {
+            if (response.statusCode() == status) {
+                return;
+            }
+        }
+        throw new IllegalStateException(String.format("%s %s returned %d: %s", method, path, response.statusCode(), response.body()));
+    }
+
+    /**
+     * Sends requests on a fixed schedule for the given time and returns how long it took until the last response.
+     * A request waiting for a free connection keeps its scheduled start time, so the wait shows up in its latency.
+     */
+    private long drive(int seconds, LatencyRecorder recorder) throws InterruptedException {
+        long interval = TimeUnit.SECONDS.toNanos(1) / options.rate;
+        long total = (long) options.rate * seconds;
+        long start = System.nanoTime();
+        for (long i = 0; i < total; i++) {
+            long scheduled = start + i * interval;
+            long wait = scheduled - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Workload.Request request = workload.next();
+            inFlight.acquire();
+            if (recorder != null && System.nanoTime() - scheduled > LATE_NANOS) {
+                recorder.late();
+            }
+            URI server = request.operation == Workload.Operation.TRANSACTION ? scoringBase : base;
+            client.sendAsync(request(server, request.method, request.path, request.body, request.username), HttpResponse.BodyHandlers.ofString())
+                    .whenComplete((response, failure) -> {
+                        try {
+                            complete(request, response, failure, scheduled, recorder);
+                        } finally {
+                            inFlight.release();
+                        }
+                    });
+        }
+        inFlight.acquire(options.connections);
+        inFlight.release(options.connections);
+        return System.nanoTime() - start;
+    }
+
+    private void complete(Workload.Request request, HttpResponse<String> response, Throwable failure, long scheduled, LatencyRecorder recorder) {
+        long latency = System.nanoTime() - scheduled;
+        boolean ok = failure == null && response.statusCode() / 100 == 2;
+        if (ok && request.operation == Workload.Operation.ADD_SUSPICIOUS_IP) {
+            workload.added(request.ip);
+        }
+        if (recorder == null) {
+            return;
+        }
+        recorder.record(request.operation, latency);
+        if (!ok) {
+            recorder.error(request.operation);
+        } else if (request.operation == Workload.Operation.TRANSACTION) {
+            for (TransactionStatus status : STATUSES) {
+                if (response.body().contains(status.name())) {
+                    recorder.decision(request.pattern, status);
+                    break;
+                }
+            }
+        }
+    }
+
+    private HttpRequest request(URI server, String method, String path, String body, String username) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(server.resolve(path))
+                .timeout(Duration.ofSeconds(30))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body));
+        if (body != null) {
+            builder.header("Content-Type", "application/json");
+        }
+        if (username != null) {
+            builder.header("Authorization", authorizations.computeIfAbsent(username, name ->
+                    "Basic " + Base64.getEncoder().encodeToString((name + ":" + Workload.PASSWORD).getBytes(StandardCharsets.UTF_8))));
+        }
+        return builder.build();
+    }
+}
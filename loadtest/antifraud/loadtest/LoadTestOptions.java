@@ -0,0 +1,77 @@
+package antifraud.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line options as {@code --name=value}. Every option has a default, so the load test runs without arguments.
+ */
+final class LoadTestOptions {
+    final long seed;
+    final int rate;
+    final int durationSeconds;
+    final int warmupSeconds;
+    final int connections;
+    final int merchants;
+    final int cards;
+    final int ips;
+    final double fraudFraction;
+    final double adminFraction;
+    final String target;
+    final boolean reactive;
+    final String reactiveTarget;
+    final boolean virtualThreads;
+
+    private LoadTestOptions(Map<String, String> values) {
+        seed = Long.parseLong(values.getOrDefault("seed", "42"));
+        rate = Integer.parseInt(values.getOrDefault("rate", "500"));
+        durationSeconds = Integer.parseInt(values.getOrDefault("duration", "30"));
+        warmupSeconds = Integer.parseInt(values.getOrDefault("warmup", "10"));
+        connections = Integer.parseInt(values.getOrDefault("connections", "64"));
+        merchants = Integer.parseInt(values.getOrDefault("merchants", "8"));
+        cards = Integer.parseInt(values.getOrDefault("cards", "10000"));
+        ips = Integer.parseInt(values.getOrDefault("ips", "5000"));
+        fraudFraction = Double.parseDouble(values.getOrDefault("fraud", "0.05"));
+        adminFraction = Double.parseDouble(values.getOrDefault("admin", "0.01"));
+        target = values.get("target");
+        String scoring = values.getOrDefault("scoring", "mvc");
+        if (!scoring.equals("mvc") && !scoring.equals("reactive")) {
+            throw new IllegalArgumentException(String.format("scoring is mvc or reactive but got %s", scoring));
+        }
+        reactive = scoring.equals("reactive");
+        reactiveTarget = values.get("reactive-target");
+        String threads = values.getOrDefault("threads", "platform");
+        if (!threads.equals("platform") && !threads.equals("virtual")) {
+            throw new IllegalArgumentException(String.format("threads is platform or virtual but got %s", threads));
+        }
+        virtualThreads = threads.equals("virtual");
+        if (reactive && target != null && reactiveTarget == null) {
+            throw new IllegalArgumentException("reactive scoring against a running instance needs --reactive-target");
+        }
+        if (rate <= 0 || durationSeconds <= 0 || warmupSeconds < 0 || connections <= 0 || merchants <= 0 || cards < 100 || ips < 100) {
+            throw new IllegalArgumentException("rate, duration, connections and merchants must be positive, cards and ips at least 100");
+        }
+        if (fraudFraction < 0 || adminFraction < 0 || fraudFraction + adminFraction > 1) {
+            throw new IllegalArgumentException("fraud and admin are fractions that add up to at most 1");
+        }
+    }
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException(String.format("Expected --name=value but got %s", arg));
+            }
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return new LoadTestOptions(values);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("seed=%d rate=%d/s duration=%ds warmup=%ds connections=%d merchants=%d cards=%d ips=%d fraud=%.1f%% admin=%.1f%% scoring=%s threads=%s",
+                seed, rate, durationSeconds, warmupSeconds, connections, merchants, cards, ips, fraudFraction * 100, adminFraction * 100,
+                reactive ? "reactive" : "mvc", virtualThreads ? "virtual" : "platform");
+    }
+}
@@ -0,0 +1,219 @@
+package antifraud.loadtest;
+
+import antifraud.transaction.Region;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Deterministic stream of requests for a seed. Legitimate traffic uses each card from its own home IP and region with
+ * log-normally distributed amounts; a configurable fraction follows one of the fraud patterns, and a smaller fraction
+ * exercises the support and administrator endpoints.
+ */
+final class Workload {
+    static final String PASSWORD = "loadtest-password";
+    static final String ADMIN = "loadtest-admin";
+    static final String SUPPORT = "loadtest-support";
+
+    private static final double MEDIAN_AMOUNT = 60;
+    private static final double AMOUNT_SIGMA = 1.0;
+    private static final int CARD_TESTING_CARDS = 16;
+    private static final Region[] REGIONS = Region.values();
+
+    enum Operation {
+        TRANSACTION,
+        ADD_SUSPICIOUS_IP,
+        DELETE_SUSPICIOUS_IP,
+        LIST_STOLEN_CARDS,
+        GET_RULES
+    }
+
+    enum Pattern {
+        LEGITIMATE,
+        STOLEN_CARD,
+        SUSPICIOUS_IP,
+        LARGE_AMOUNT,
+        CARD_TESTING, // one card used from many IPs and regions within minutes
+        ADMIN
+    }
+
+    static final class Request {
+        final Operation operation;
+        final Pattern pattern;
+        final String method;
+        final String path;
+        final String body;
+        final String username;
+        final String ip; // the address an admin request adds, if any
+
+        private Request(Operation operation, Pattern pattern, String method, String path, String body, String username) {
+            this(operation, pattern, method, path, body, username, null);
+        }
+
+        private Request(Operation operation, Pattern pattern, String method, String path, String body, String username, String ip) {
+            this.operation = operation;
+            this.pattern = pattern;
+            this.method = method;
+            this.path = path;
+            this.body = body;
+            this.username = username;
+            this.ip = ip;
+        }
+    }
+
+    private final SplittableRandom random;
+    private final LoadTestOptions options;
+    private final String[] merchants;
+    private final String[] cards;
+    private final String[] ips;
+    private final int stolenCards;
+    private final int suspiciousIPs;
+    private final ConcurrentLinkedQueue<String> addedIPs = new ConcurrentLinkedQueue<>();
+    private int nextAddedIP;
+
+    Workload(LoadTestOptions options) {
+        this.options = options;
+        this.random = new SplittableRandom(options.seed);
+        this.merchants = new String[options.merchants];
+        for (int i = 0; i < merchants.length; i++) {
+            merchants[i] = "loadtest-merchant-" + i;
+        }
+        this.cards = new String[options.cards];
+        for (int i = 0; i < cards.length; i++) {
+            cards[i] = randomCardNumber();
+        }
+        this.ips = new String[options.ips];
+        for (int i = 0; i < ips.length; i++) {
+            ips[i] = "10." + random.nextInt(256) + "." + random.nextInt(256) + "." + (1 + random.nextInt(254));
+        }
+        this.stolenCards = Math.max(1, cards.length / 100);
+        this.suspiciousIPs = Math.max(1, ips.length / 100);
+    }
+
+    String[] getMerchants() {
+        return merchants;
+    }
+
+    /**
+     * Cards at the start of the pool are reported stolen before the run, the rest are never used by fraud patterns.
+     */
+    String[] getStolenCards() {
+        return Arrays.copyOf(cards, stolenCards);
+    }
+
+    String[] getSuspiciousIPs() {
+        return Arrays.copyOf(ips, suspiciousIPs);
+    }
+
+    /**
+     * Makes an address added during the run available for a later delete, once the add has succeeded.
+     */
+    void added(String ip) {
+        addedIPs.add(ip);
+    }
+
+    Request next() {
+        double draw = random.nextDouble();
+        if (draw < options.adminFraction) {
+            return nextAdminRequest();
+        }
+        String merchant = merchants[random.nextInt(merchants.length)];
+        if (draw < options.adminFraction + options.fraudFraction) {
+            return nextFraud(merchant);
+        }
+        int card = stolenCards + CARD_TESTING_CARDS + random.nextInt(cards.length - stolenCards - CARD_TESTING_CARDS);
+        return transaction(Pattern.LEGITIMATE, merchant, amount(), homeIP(card), cards[card], homeRegion(card));
+    }
+
+    private Request nextFraud(String merchant) {
+        switch (random.nextInt(4)) {
+            case 0:
+                int stolen = random.nextInt(stolenCards);
+                return transaction(Pattern.STOLEN_CARD, merchant, amount(), homeIP(stolen), cards[stolen], homeRegion(stolen));
+            case 1:
+                int card = stolenCards + CARD_TESTING_CARDS + random.nextInt(cards.length - stolenCards - CARD_TESTING_CARDS);
+                return transaction(Pattern.SUSPICIOUS_IP, merchant, amount(), ips[random.nextInt(suspiciousIPs)], cards[card], homeRegion(card));
+            case 2:
+                int large = stolenCards + CARD_TESTING_CARDS + random.nextInt(cards.length - stolenCards - CARD_TESTING_CARDS);
+                return transaction(Pattern.LARGE_AMOUNT, merchant, 1501 + random.nextInt(20_000), homeIP(large), cards[large], homeRegion(large));
+            default:
+                int tested = stolenCards + random.nextInt(CARD_TESTING_CARDS);
+                String ip = ips[suspiciousIPs + random.nextInt(ips.length - suspiciousIPs)];
+                return transaction(Pattern.CARD_TESTING, merchant, 1 + random.nextInt(20), ip, cards[tested], REGIONS[random.nextInt(REGIONS.length)]);
+        }
+    }
+
+    private Request nextAdminRequest() {
+        switch (random.nextInt(4)) {
+            case 0:
+                String ip = "100." + (64 + (nextAddedIP >>> 16 & 63)) + "." + (nextAddedIP >>> 8 & 255) + "." + (nextAddedIP & 255);
+                nextAddedIP++;
+                return new Request(Operation.ADD_SUSPICIOUS_IP, Pattern.ADMIN, "POST", "/api/antifraud/suspicious-ip",
+                        "{\"ip\":\"" + ip + "\"}", SUPPORT, ip);
+            case 1:
+                String added = addedIPs.poll();
+                if (added == null) { // nothing to delete yet, read instead
+                    return listStolenCards();
+                }
+                return new Request(Operation.DELETE_SUSPICIOUS_IP, Pattern.ADMIN, "DELETE", "/api/antifraud/suspicious-ip/" + added, null, SUPPORT);
+            case 2:
+                return listStolenCards();
+            default:
+                return new Request(Operation.GET_RULES, Pattern.ADMIN, "GET", "/api/antifraud/rules", null, ADMIN);
+        }
+    }
+
+    private Request listStolenCards() {
+        return new Request(Operation.LIST_STOLEN_CARDS, Pattern.ADMIN, "GET", "/api/antifraud/stolencard", null, SUPPORT);
+    }
+
+    private Request transaction(Pattern pattern, String merchant, long amount, String ip, String number, Region region) {
+        String body = "{\"amount\":" + amount + ",\"ip\":\"" + ip + "\",\"number\":\"" + number + "\",\"region\":\"" + region + "\"}";
+        return new Request(Operation.TRANSACTION, pattern, "POST", "/api/antifraud/transaction", body, merchant);
+    }
+
+    private long amount() {
+        double gaussian = nextGaussian();
+        return Math.max(1, Math.round(MEDIAN_AMOUNT * Math.exp(AMOUNT_SIGMA * gaussian)));
+    }
+
+    private double nextGaussian() { // Box-Muller, SplittableRandom has no nextGaussian before JDK 17
+        double u = 1 - random.nextDouble();
+        double v = random.nextDouble();
+        return Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * v);
+    }
+
+    private String homeIP(int card) {
+        return ips[suspiciousIPs + card % (ips.length - suspiciousIPs)];
+    }
+
+    private Region homeRegion(int card) {
+        return REGIONS[card % REGIONS.length];
+    }
+
+    private String randomCardNumber() {
+        int[] digits = new int[16];
+        digits[0] = 4;
+        for (int i = 1; i < 15; i++) {
+            digits[i] = random.nextInt(10);
+        }
+        int sum = 0;
+        for (int i = 14; i >= 0; i--) { // Luhn, doubling every second digit from the right of the check digit
+            int digit = digits[i];
+            if ((14 - i) % 2 == 0) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+        }
+        digits[15] = (10 - sum % 10) % 10;
+        StringBuilder number = new StringBuilder(16);
+        for (int digit : digits) {
+            number.append(digit);
+        }
+        return number.toString();
+    }
+}
@@ -0,0 +1,82 @@
+package antifraud.replay;
+
+import antifraud.AntiFraudApplication;
+import antifraud.transaction.DecisionReplay;
+import antifraud.transaction.ReplayReport;
+import antifraud.transaction.ReplaySample;
+import antifraud.transaction.RulesConfiguration;
+import antifraud.transaction.TransactionStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scores the journaled decisions again against a candidate rules file and prints how many would change, as a matrix
+ * of recorded against replayed status, with a few example transactions for every change. The application is booted
+ * for its blacklists and learned limits, with the history, the journal and the extra servers off, so run it while the
+ * service is stopped or point {@code --datasource} at a copy of its database.
+ * <p>
+ * Run with {@code gradle replay -PreplayArgs="--rules=candidate.json --journal=journal"}.
+ */
+public final class Replay {
+    private static final TransactionStatus[] STATUSES = TransactionStatus.values();
+
+    private Replay() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        ReplayOptions options = ReplayOptions.parse(args);
+        List<String> applicationArgs = new ArrayList<>(List.of("--server.port=0",
+                "--antifraud.history.enabled=false",
+                "--antifraud.journal.enabled=false", // the replay must not add to the journal it reads
+                "--antifraud.reactive.enabled=false",
+                "--antifraud.binary.enabled=false",
+                "--logging.level.root=warn"));
+        if (options.datasource != null) {
+            applicationArgs.add("--spring.datasource.url=" + options.datasource);
+        }
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(AntiFraudApplication.class)
+                .run(applicationArgs.toArray(new String[0]))) {
+            RulesConfiguration candidate = context.getBean(ObjectMapper.class).readValue(options.rules.toFile(), RulesConfiguration.class);
+            System.out.printf("Replaying %s%n", options);
+            long start = System.nanoTime();
+            ReplayReport report = context.getBean(DecisionReplay.class).replay(options.journal, candidate, options.parallelism, options.samples);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            print(report, seconds);
+        }
+    }
+
+    private static void print(ReplayReport report, double seconds) {
+        System.out.printf("%d decisions in %.1f s (%.0f/s), %d changed%n", report.getTotal(), seconds, report.getTotal() / seconds,
+                report.getChanged());
+        System.out.printf("%n%-20s", "recorded \\ replayed");
+        for (TransactionStatus replayed : STATUSES) {
+            System.out.printf("%20s", replayed);
+        }
+        System.out.println();
+        for (TransactionStatus recorded : STATUSES) {
+            System.out.printf("%-20s", recorded);
+            for (TransactionStatus replayed : STATUSES) {
+                System.out.printf("%20d", report.getCount(recorded, replayed));
+            }
+            System.out.println();
+        }
+        for (TransactionStatus recorded : STATUSES) {
+            for (TransactionStatus replayed : STATUSES) {
+                if (recorded == replayed || report.getSamples(recorded, replayed).isEmpty()) {
+                    continue;
+                }
+                System.out.printf("%n%s -> %s%n", recorded, replayed);
+                for (ReplaySample sample : report.getSamples(recorded, replayed)) {
+                    System.out.printf("  offset=%d at=%s merchant=%s amount=%d ip=%s number=%s region=%s%n", sample.getOffset(),
+                            Instant.ofEpochMilli(sample.getTimestamp()), sample.getMerchant(), sample.getAmount(), sample.getIp(),
+                            sample.getNumber(), sample.getRegion());
+                }
+            }
+        }
+    }
+}
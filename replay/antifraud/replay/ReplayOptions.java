@@ -0,0 +1,48 @@
+package antifraud.replay;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Command line options as {@code --name=value}. Only {@code --rules} is required.
+ */
+final class ReplayOptions {
+    final Path rules;
+    final Path journal;
+    final int parallelism;
+    final int samples;
+    final String datasource;
+
+    private ReplayOptions(Map<String, String> values) {
+        String rulesPath = values.get("rules");
+        if (rulesPath == null) {
+            throw new IllegalArgumentException("--rules=<candidate rules JSON> is required");
+        }
+        rules = Path.of(rulesPath);
+        journal = Path.of(values.getOrDefault("journal", "journal"));
+        parallelism = Integer.parseInt(values.getOrDefault("parallelism", String.valueOf(Runtime.getRuntime().availableProcessors())));
+        samples = Integer.parseInt(values.getOrDefault("samples", "5"));
+        datasource = values.get("datasource");
+        if (parallelism <= 0 || samples < 0) {
+            throw new IllegalArgumentException("parallelism must be positive and samples at least 0");
+        }
+    }
+
+    static ReplayOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException(String.format("Expected --name=value but got %s", arg));
+            }
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return new ReplayOptions(values);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("rules=%s journal=%s parallelism=%d samples=%d", rules, journal, parallelism, samples);
+    }
+}
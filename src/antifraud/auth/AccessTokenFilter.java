@@ -0,0 +1,62 @@
+package antifraud.auth;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.web.AuthenticationEntryPoint;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Optional;
+
+public class AccessTokenFilter extends OncePerRequestFilter {
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final String TOKEN_ENDPOINT = "/api/auth/token";
+
+    private final AccessTokenService accessTokenService;
+    private final AuthenticationEntryPoint authenticationEntryPoint;
+
+    public AccessTokenFilter(AccessTokenService accessTokenService, AuthenticationEntryPoint authenticationEntryPoint) {
+        this.accessTokenService = accessTokenService;
+        this.authenticationEntryPoint = authenticationEntryPoint;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return TOKEN_ENDPOINT.equals(request.getServletPath()); // tokens are only issued for Basic credentials
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        Optional<AccessTokenService.AccessToken> token = accessTokenService.verify(header.substring(BEARER_PREFIX.length()).trim());
+        if (token.isEmpty()) {
+            SecurityContextHolder.clearContext();
+            authenticationEntryPoint.commence(request, response, new BadCredentialsException("Invalid or expired access token"));
+            return;
+        }
+
+        UserDetails user = org.springframework.security.core.userdetails.User
+                .withUsername(token.get().getUsername())
+                .password("")
+                .roles(token.get().getRole().name())
+                .build();
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities()));
+        SecurityContextHolder.setContext(context);
+        filterChain.doFilter(request, response);
+    }
+}
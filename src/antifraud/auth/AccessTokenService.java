@@ -0,0 +1,191 @@
+package antifraud.auth;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Issues and verifies self-contained access tokens of the form {@code payload.signature}, where the payload carries
+ * issue time, expiry, role and username and the signature is an HMAC-SHA256 over it. Verification needs neither the
+ * database nor BCrypt. Tokens of a user issued before {@link #revoke(String)} are rejected, and revocation listeners
+ * are told, so that sessions which outlive a token check, such as binary channel connections, can end too.
+ */
+@Service
+public class AccessTokenService {
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String ROLE_PREFIX = "ROLE_";
+    private static final Role[] ROLES = Role.values();
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final ConcurrentHashMap<String, Long> revokedBefore = new ConcurrentHashMap<>();
+    private final List<Consumer<String>> revocationListeners = new CopyOnWriteArrayList<>();
+    private final long ttlMillis;
+    private final MacPool macs;
+
+    public AccessTokenService(@Value("${antifraud.auth.token.ttl:PT15M}") Duration ttl,
+                              @Value("${antifraud.auth.token.secret:}") String secret) {
+        this.ttlMillis = ttl.toMillis();
+        byte[] key = secret.isEmpty() ? randomKey() : Base64.getDecoder().decode(secret);
+        SecretKeySpec secretKey = new SecretKeySpec(key, ALGORITHM);
+        this.macs = new MacPool(ALGORITHM, secretKey);
+    }
+
+    public AccessToken issue(UserDetails user) {
+        Role role = user.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .filter(authority -> authority.startsWith(ROLE_PREFIX))
+                .map(authority -> Role.valueOf(authority.substring(ROLE_PREFIX.length())))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(String.format("User %s has no role", user.getUsername())));
+        return issue(user.getUsername(), role);
+    }
+
+    public AccessToken issue(String username, Role role) {
+        long issuedAt = System.currentTimeMillis();
+        long expiresAt = issuedAt + ttlMillis;
+        byte[] name = username.getBytes(StandardCharsets.UTF_8);
+        byte[] payload = ByteBuffer.allocate(2 * Long.BYTES + 1 + name.length)
+                .putLong(issuedAt)
+                .putLong(expiresAt)
+                .put((byte) role.ordinal())
+                .put(name)
+                .array();
+        String token = ENCODER.encodeToString(payload) + '.' + ENCODER.encodeToString(sign(payload));
+        return new AccessToken(token, username, role, issuedAt, expiresAt);
+    }
+
+    public Optional<AccessToken> verify(String token) {
+        int separator = token.indexOf('.');
+        if (separator <= 0) {
+            return Optional.empty();
+        }
+        try {
+            byte[] payload = DECODER.decode(token.substring(0, separator));
+            byte[] signature = DECODER.decode(token.substring(separator + 1));
+            if (!MessageDigest.isEqual(signature, sign(payload))) {
+                return Optional.empty();
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(payload);
+            long issuedAt = buffer.getLong();
+            long expiresAt = buffer.getLong();
+            int role = buffer.get();
+            String username = StandardCharsets.UTF_8.decode(buffer).toString();
+            if (expiresAt <= System.currentTimeMillis() || role < 0 || role >= ROLES.length || isRevoked(username, issuedAt)) {
+                return Optional.empty();
+            }
+            return Optional.of(new AccessToken(token, username, ROLES[role], issuedAt, expiresAt));
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Rejects every token of the user issued until now. Inside a transaction the user is revoked again after it
+     * completes, as a token issued meanwhile was issued from the state before the commit.
+     */
+    public void revoke(String username) {
+        revokeNow(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    revokeNow(username);
+                }
+            });
+        }
+    }
+
+    /**
+     * Calls the listener with the username on every revocation, on the revoking thread, so it must not block.
+     */
+    public void addRevocationListener(Consumer<String> listener) {
+        revocationListeners.add(listener);
+    }
+
+    private void revokeNow(String username) {
+        long now = System.currentTimeMillis();
+        revokedBefore.put(username, now);
+        revokedBefore.values().removeIf(revokedAt -> revokedAt < now - ttlMillis); // every token issued before has expired
+        for (Consumer<String> listener : revocationListeners) {
+            listener.accept(username);
+        }
+    }
+
+    /**
+     * Returns whether the user was revoked at or after {@code issuedAt}, in epoch milliseconds, within the token TTL.
+     */
+    public boolean isRevoked(String username, long issuedAt) {
+        Long revokedAt = revokedBefore.get(username);
+        return revokedAt != null && issuedAt <= revokedAt;
+    }
+
+    private byte[] sign(byte[] payload) {
+        Mac mac = macs.acquire();
+        try {
+            return mac.doFinal(payload);
+        } finally {
+            macs.release(mac);
+        }
+    }
+
+    private static byte[] randomKey() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        return key;
+    }
+
+    public static class AccessToken {
+        private final String token;
+        private final String username;
+        private final Role role;
+        private final long issuedAt;
+        private final long expiresAt;
+
+        private AccessToken(String token, String username, Role role, long issuedAt, long expiresAt) {
+            this.token = token;
+            this.username = username;
+            this.role = role;
+            this.issuedAt = issuedAt;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public Role getRole() {
+            return role;
+        }
+
+        public long getIssuedAt() {
+            return issuedAt;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+    }
+}
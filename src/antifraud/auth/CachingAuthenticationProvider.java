@@ -0,0 +1,69 @@
+package antifraud.auth;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.concurrent.TimeUnit;
+
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+    private final AuthenticationProvider delegate;
+    private final CredentialCache credentialCache;
+    private final Timer cacheHitTimer;
+    private final Timer cacheMissTimer;
+
+    public CachingAuthenticationProvider(AuthenticationProvider delegate, CredentialCache credentialCache, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.credentialCache = credentialCache;
+        this.cacheHitTimer = authenticationTimer(meterRegistry, "hit");
+        this.cacheMissTimer = authenticationTimer(meterRegistry, "miss");
+    }
+
+    private static Timer authenticationTimer(MeterRegistry meterRegistry, String cache) {
+        return Timer.builder("antifraud.auth.authentication")
+                .description("Time to authenticate a username and password, including the user lookup and password check on a miss")
+                .tag("cache", cache)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        long start = System.nanoTime();
+        String username = authentication.getName();
+        Object credentials = authentication.getCredentials();
+        if (username == null || !(credentials instanceof String)) {
+            try {
+                return delegate.authenticate(authentication);
+            } finally {
+                cacheMissTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+        String password = (String) credentials;
+
+        UserDetails cached = credentialCache.get(username, password);
+        if (cached != null) {
+            cacheHitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return UsernamePasswordAuthenticationToken.authenticated(cached, null, cached.getAuthorities());
+        }
+
+        long generation = credentialCache.generation();
+        try {
+            Authentication result = delegate.authenticate(authentication);
+            if (result != null && result.getPrincipal() instanceof UserDetails) {
+                credentialCache.put(username, password, (UserDetails) result.getPrincipal(), generation);
+            }
+            return result;
+        } finally {
+            cacheMissTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+}
@@ -0,0 +1,123 @@
+package antifraud.auth;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, time-expiring cache of successfully verified credentials. Passwords are never stored: each entry keeps
+ * an HMAC-SHA256 of username and password under a key generated at startup, next to the loaded {@link UserDetails}.
+ */
+@Component
+public class CredentialCache {
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final long ttlNanos;
+    private final int maxSize;
+    private final MacPool macs;
+
+    public CredentialCache(@Value("${antifraud.auth.credential-cache.ttl:PT5M}") Duration ttl,
+                           @Value("${antifraud.auth.credential-cache.max-size:10000}") int maxSize) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxSize = maxSize;
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        SecretKeySpec secretKey = new SecretKeySpec(key, ALGORITHM);
+        this.macs = new MacPool(ALGORITHM, secretKey);
+    }
+
+    public UserDetails get(String username, String password) {
+        Entry entry = entries.get(username);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.expiresAt >= 0) {
+            entries.remove(username, entry);
+            return null;
+        }
+        return MessageDigest.isEqual(entry.fingerprint, fingerprint(username, password)) ? entry.userDetails : null;
+    }
+
+    public long generation() {
+        return invalidations.get();
+    }
+
+    /**
+     * Caches the credentials unless an invalidation happened after {@code generation} was read, which means the
+     * user details may have been loaded before a lock, role change or deletion was committed.
+     */
+    public void put(String username, String password, UserDetails userDetails, long generation) {
+        if (ttlNanos <= 0 || (entries.size() >= maxSize && !evictExpired())) {
+            return;
+        }
+        Entry entry = new Entry(fingerprint(username, password), userDetails, System.nanoTime() + ttlNanos);
+        entries.put(username, entry);
+        if (invalidations.get() != generation) {
+            entries.remove(username, entry);
+        }
+    }
+
+    public void invalidate(String username) {
+        evict(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(username);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        entries.clear();
+    }
+
+    private void evict(String username) {
+        invalidations.incrementAndGet();
+        entries.remove(username);
+    }
+
+    private boolean evictExpired() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> now - entry.expiresAt >= 0);
+        return entries.size() < maxSize;
+    }
+
+    private byte[] fingerprint(String username, String password) {
+        Mac mac = macs.acquire();
+        try {
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        } finally {
+            macs.release(mac);
+        }
+    }
+
+    private static class Entry {
+        private final byte[] fingerprint;
+        private final UserDetails userDetails;
+        private final long expiresAt;
+
+        private Entry(byte[] fingerprint, UserDetails userDetails, long expiresAt) {
+            this.fingerprint = fingerprint;
+            this.userDetails = userDetails;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
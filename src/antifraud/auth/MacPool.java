@@ -0,0 +1,44 @@
+package antifraud.auth;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Initialized {@link Mac} instances for one key, shared between threads. A thread-local instance would be created
+ * again for every request once requests run on virtual threads, and creating one looks up the provider and derives
+ * the key pads. Instances are reset by {@code doFinal}, so a released instance is ready for the next caller.
+ */
+class MacPool {
+    private final String algorithm;
+    private final SecretKeySpec key;
+    private final ArrayBlockingQueue<Mac> idle;
+
+    MacPool(String algorithm, SecretKeySpec key) {
+        this.algorithm = algorithm;
+        this.key = key;
+        this.idle = new ArrayBlockingQueue<>(Runtime.getRuntime().availableProcessors() * 2); // hashing never blocks
+    }
+
+    Mac acquire() {
+        Mac mac = idle.poll();
+        if (mac != null) {
+            return mac;
+        }
+        try {
+            mac = Mac.getInstance(algorithm);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns an instance after {@code doFinal}. Instances beyond the pool's capacity are dropped.
+     */
+    void release(Mac mac) {
+        idle.offer(mac);
+    }
+}
@@ -0,0 +1,52 @@
+package antifraud.auth;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.web.server.ServerAuthenticationEntryPoint;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+/**
+ * The reactive counterpart of {@link AccessTokenFilter}. Verifying a token is a hash over a few bytes, so it runs on
+ * the event loop.
+ */
+public class ReactiveAccessTokenFilter implements WebFilter {
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final AccessTokenService accessTokenService;
+    private final ServerAuthenticationEntryPoint authenticationEntryPoint;
+
+    public ReactiveAccessTokenFilter(AccessTokenService accessTokenService, ServerAuthenticationEntryPoint authenticationEntryPoint) {
+        this.accessTokenService = accessTokenService;
+        this.authenticationEntryPoint = authenticationEntryPoint;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String header = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            return chain.filter(exchange);
+        }
+
+        Optional<AccessTokenService.AccessToken> token = accessTokenService.verify(header.substring(BEARER_PREFIX.length()).trim());
+        if (token.isEmpty()) {
+            return authenticationEntryPoint.commence(exchange, new BadCredentialsException("Invalid or expired access token"));
+        }
+
+        UserDetails user = org.springframework.security.core.userdetails.User
+                .withUsername(token.get().getUsername())
+                .password("")
+                .roles(token.get().getRole().name())
+                .build();
+        return chain.filter(exchange)
+                .contextWrite(ReactiveSecurityContextHolder.withAuthentication(
+                        UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities())));
+    }
+}
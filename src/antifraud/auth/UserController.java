@@ -3,24 +3,40 @@ package antifraud.auth;
 import antifraud.auth.dto.*;
 import antifraud.auth.exceptions.RoleAlreadyAssignedException;
 import antifraud.auth.exceptions.UsernameAlreadyUsedException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
-import javax.validation.Valid;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/auth/")
 public class UserController {
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
 
     private final UserService userService;
+    private final AccessTokenService accessTokenService;
+    private final ObjectMapper objectMapper;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, AccessTokenService accessTokenService, ObjectMapper objectMapper) {
         this.userService = userService;
+        this.accessTokenService = accessTokenService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping("user")
@@ -34,16 +50,62 @@ public class UserController {
         }
     }
 
+    @PostMapping("token")
+    public TokenResponse issueToken(@AuthenticationPrincipal UserDetails user) {
+        AccessTokenService.AccessToken token = accessTokenService.issue(user);
+        return new TokenResponse(token.getToken(), token.getExpiresAt());
+    }
+
+    /**
+     * Lists users in id order, one page at a time. A full page links to the next one through an opaque cursor.
+     */
     @GetMapping("list")
-    public List<UserDTO> listUsers() {
-        List<User> users = userService.listUsers();
-        return mapUsersToUserDTOs(users);
+    public ResponseEntity<List<UserDTO>> listUsers(@RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        long after;
+        try {
+            after = cursor == null ? 0 : decodeCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        List<UserDTO> page = userService.listUsers(after, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.size() == limit) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("cursor", encodeCursor(page.get(page.size() - 1).getId()))
+                    .replaceQueryParam("limit", limit)
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(page);
+    }
+
+    /**
+     * Streams every user as one JSON array, writing each row as it is read.
+     */
+    @GetMapping("list/export")
+    public void exportUsers(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.writeStartArray();
+            userService.exportUsers(generator::writeObject);
+            generator.writeEndArray();
+        }
     }
 
-    private static List<UserDTO> mapUsersToUserDTOs(List<User> users) {
-        return users.stream()
-                .map(UserDTO::mapUserToUserDTO)
-                .collect(Collectors.toList());
+    static String encodeCursor(long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Long.toString(id).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    static long decodeCursor(String cursor) {
+        long id = Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+        if (id < 0) {
+            throw new IllegalArgumentException();
+        }
+        return id;
     }
 
     @DeleteMapping("user/{username}")
@@ -0,0 +1,10 @@
+package antifraud.auth;
+
+import antifraud.auth.dto.UserDTO;
+
+import java.io.IOException;
+
+@FunctionalInterface
+public interface UserDTOHandler {
+    void handle(UserDTO user) throws IOException;
+}
@@ -1,7 +1,10 @@
 package antifraud.auth;
 
+import antifraud.auth.dto.UserDTO;
 import antifraud.auth.exceptions.RoleAlreadyAssignedException;
 import antifraud.auth.exceptions.UsernameAlreadyUsedException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -9,17 +12,31 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
 import java.util.List;
 
 @Service
 public class UserService implements UserDetailsService {
     private static final String USERNAME_NOT_FOUND = "Username not found";
+    private static final int EXPORT_FETCH_SIZE = 1000;
+    private static final RowMapper<UserDTO> USER_DTO_ROW_MAPPER = (resultSet, row) ->
+            new UserDTO(resultSet.getLong(1), resultSet.getString(2), resultSet.getString(3), resultSet.getString(4));
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CredentialCache credentialCache;
+    private final AccessTokenService accessTokenService;
+    private final JdbcTemplate jdbcTemplate;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, CredentialCache credentialCache,
+                       AccessTokenService accessTokenService, JdbcTemplate jdbcTemplate) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.credentialCache = credentialCache;
+        this.accessTokenService = accessTokenService;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     @Override
@@ -35,6 +52,7 @@ public class UserService implements UserDetailsService {
                 .withUsername(user.getUsername())
                 .password(user.getPassword())
                 .roles(user.getRole().name())
+                .accountLocked(user.isLocked())
                 .build();
     }
 
@@ -50,8 +68,34 @@ public class UserService implements UserDetailsService {
         return userRepository.save(new User(name, username, passwordEncoder.encode(password), role, locked));
     }
 
-    public List<User> listUsers() {
-        return (List<User>) userRepository.findAll();
+    /**
+     * Returns up to {@code limit} users with an id greater than {@code after}, in id order. Only the columns of
+     * {@link UserDTO} are read, never the password hashes.
+     */
+    public List<UserDTO> listUsers(long after, int limit) {
+        return jdbcTemplate.query("SELECT id, name, username, role FROM users WHERE id > ? ORDER BY id LIMIT ?",
+                USER_DTO_ROW_MAPPER, after, limit);
+    }
+
+    /**
+     * Passes every user to the handler in id order while reading from a database cursor.
+     */
+    public void exportUsers(UserDTOHandler handler) throws IOException {
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement("SELECT id, name, username, role FROM users ORDER BY id");
+                statement.setFetchSize(EXPORT_FETCH_SIZE);
+                return statement;
+            }, resultSet -> {
+                try {
+                    handler.handle(USER_DTO_ROW_MAPPER.mapRow(resultSet, resultSet.getRow()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
 
     @Transactional
@@ -60,6 +104,7 @@ public class UserService implements UserDetailsService {
                 .orElseThrow(() -> new UsernameNotFoundException(USERNAME_NOT_FOUND));
 
         userRepository.delete(user);
+        revokeAuthentication(username);
     }
 
     @Transactional
@@ -69,7 +114,9 @@ public class UserService implements UserDetailsService {
                 .orElseThrow(() -> new UsernameNotFoundException(USERNAME_NOT_FOUND));
         validateRoleChange(role, user);
         user.setRole(role);
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        revokeAuthentication(username);
+        return saved;
     }
 
     private static void validateRoleChange(Role role, User user) {
@@ -87,6 +134,12 @@ public class UserService implements UserDetailsService {
         validateLockChange(lock, user);
         user.setLocked(lock);
         userRepository.save(user);
+        revokeAuthentication(username);
+    }
+
+    private void revokeAuthentication(String username) {
+        credentialCache.invalidate(username);
+        accessTokenService.revoke(username);
     }
 
     private static void validateLockChange(boolean lock, User user) {
@@ -1,6 +1,6 @@
 package antifraud.auth.dto;
 
-import javax.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotEmpty;
 
 public class RoleChangeRequest {
     @NotEmpty
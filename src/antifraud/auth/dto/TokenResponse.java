@@ -0,0 +1,19 @@
+package antifraud.auth.dto;
+
+public class TokenResponse {
+    private final String token;
+    private final long expiresAt;
+
+    public TokenResponse(String token, long expiresAt) {
+        this.token = token;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+}
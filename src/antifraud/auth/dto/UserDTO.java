@@ -1,9 +1,9 @@
 package antifraud.auth.dto;
 
 import antifraud.auth.User;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
 
-import javax.validation.constraints.NotEmpty;
-import javax.validation.constraints.NotNull;
 import java.util.Objects;
 
 public class UserDTO {
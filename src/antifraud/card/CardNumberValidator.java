@@ -0,0 +1,11 @@
+package antifraud.card;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+public class CardNumberValidator implements ConstraintValidator<CardNumber, CharSequence> {
+    @Override
+    public boolean isValid(CharSequence value, ConstraintValidatorContext context) {
+        return value == null || CardNumbers.isValid(value);
+    }
+}
@@ -0,0 +1,55 @@
+package antifraud.card;
+
+/**
+ * Card numbers are 13 to 19 digits without a leading zero, packed into a long read as unsigned
+ * (19 digits can exceed {@link Long#MAX_VALUE} but always fit in 64 bits).
+ */
+public final class CardNumbers {
+    public static final long INVALID = -1L; // 18446744073709551615 has 20 digits, so it is never a card number
+
+    private static final int MIN_DIGITS = 13;
+    private static final int MAX_DIGITS = 19;
+
+    private CardNumbers() {
+    }
+
+    /**
+     * Returns the packed card number, or {@link #INVALID} when the number is malformed or fails the Luhn check.
+     */
+    public static long pack(CharSequence number) {
+        if (number == null) {
+            return INVALID;
+        }
+        int length = number.length();
+        if (length < MIN_DIGITS || length > MAX_DIGITS || number.charAt(0) == '0') {
+            return INVALID;
+        }
+        long packed = 0;
+        int sum = 0;
+        boolean doubled = (length & 1) == 0;
+        for (int i = 0; i < length; i++) {
+            int digit = number.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return INVALID;
+            }
+            packed = packed * 10 + digit;
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return sum % 10 == 0 ? packed : INVALID;
+    }
+
+    public static boolean isValid(CharSequence number) {
+        return pack(number) != INVALID;
+    }
+
+    public static String format(long packed) {
+        return Long.toUnsignedString(packed);
+    }
+}
@@ -0,0 +1,44 @@
+package antifraud.card;
+
+import org.springframework.data.annotation.Id;
+
+import java.util.Objects;
+
+public class StolenCard {
+    @Id
+    private long id;
+    private long number;
+
+    public StolenCard(long number) {
+        this.number = number;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public long getNumber() {
+        return number;
+    }
+
+    public void setNumber(long number) {
+        this.number = number;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        StolenCard that = (StolenCard) o;
+        return id == that.id && number == that.number;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, number);
+    }
+}
@@ -0,0 +1,51 @@
+package antifraud.card;
+
+import antifraud.card.dto.StolenCardDeletionResponse;
+import antifraud.card.dto.StolenCardResponse;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@RestController
+@RequestMapping("/api/antifraud/stolencard")
+public class StolenCardController {
+
+    private final StolenCardService stolenCardService;
+
+    public StolenCardController(StolenCardService stolenCardService) {
+        this.stolenCardService = stolenCardService;
+    }
+
+    @GetMapping
+    public List<StolenCardResponse> getStolenCards() {
+        return stolenCardService.listStolenCards().stream()
+                .map(StolenCardResponse::mapStolenCardToStolenCardResponse)
+                .collect(Collectors.toList());
+    }
+
+    @PostMapping
+    public ResponseEntity<StolenCardResponse> addStolenCard(@RequestBody @Valid StolenCardRequest request) {
+        try {
+            StolenCard stolenCard = stolenCardService.addStolenCard(request.getNumber());
+            return ResponseEntity.ok(StolenCardResponse.mapStolenCardToStolenCardResponse(stolenCard));
+        } catch (StolenCardAlreadyInDatabase e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
+    }
+
+    @DeleteMapping("/{number}")
+    public ResponseEntity<StolenCardDeletionResponse> deleteStolenCard(@PathVariable String number) {
+        try {
+            stolenCardService.deleteStolenCard(number);
+            return ResponseEntity.ok(new StolenCardDeletionResponse(number));
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (StolenCardNotInDatabase e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package antifraud.card;
+
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Bloom filter plus exact open-addressing set of packed card numbers, sized with headroom for later additions.
+ * A lookup for a clean card usually stops at the filter; the exact set is only probed on a positive.
+ * <p>
+ * Single additions set their filter bits and table slot in place, and removals leave a tombstone and their filter
+ * bits set, which only costs an extra probe when a lookup collides with them. Both publish with release stores read
+ * by acquire loads, so lookups never lock. The snapshot is rebuilt with fresh headroom, and swapped as a whole, only
+ * when additions since the last build use up its headroom, or on {@link #replaceAll(long[])}.
+ */
+@Component
+class StolenCardIndex {
+    private static final double FALSE_POSITIVE_RATE = 0.001;
+    private static final int MIN_FILTER_BITS = 1024;
+    private static final int MIN_CAPACITY = 64;
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private volatile Snapshot snapshot = Snapshot.build(new long[0], 0);
+
+    boolean contains(long number) {
+        Snapshot current = snapshot;
+        return number != Snapshot.REMOVED && current.mightContain(number) && current.containsExactly(number);
+    }
+
+    int size() {
+        return snapshot.size;
+    }
+
+    synchronized void add(long number) {
+        Snapshot current = snapshot;
+        if (number == Snapshot.REMOVED || current.containsExactly(number)) {
+            return;
+        }
+        if (!current.insert(number)) {
+            long[] numbers = current.toArray(current.size + 1);
+            numbers[current.size] = number;
+            snapshot = Snapshot.build(numbers, numbers.length);
+        }
+    }
+
+    synchronized void remove(long number) {
+        if (number != Snapshot.REMOVED) {
+            snapshot.delete(number);
+        }
+    }
+
+    synchronized void replaceAll(long[] numbers) {
+        snapshot = Snapshot.build(numbers, numbers.length);
+    }
+
+    private static final class Snapshot {
+        private static final long EMPTY = 0L; // never a valid card number
+        private static final long REMOVED = CardNumbers.INVALID; // tombstone, never a valid card number either
+
+        private final long[] filter;
+        private final int filterBits;
+        private final int hashes;
+        private final long[] table;
+        private final int mask;
+        private final int capacity; // insertions the filter takes at its false positive rate, keeping the table half empty
+        private volatile int size;
+        private int used; // insertions so far, tombstones included; guarded by the index
+
+        private Snapshot(long[] filter, int filterBits, int hashes, long[] table, int capacity) {
+            this.filter = filter;
+            this.filterBits = filterBits;
+            this.hashes = hashes;
+            this.table = table;
+            this.mask = table.length - 1;
+            this.capacity = capacity;
+        }
+
+        static Snapshot build(long[] numbers, int count) {
+            int capacity = Math.max(count * 2, MIN_CAPACITY);
+            int filterBits = (int) Math.max(MIN_FILTER_BITS,
+                    Math.ceil(-capacity * Math.log(FALSE_POSITIVE_RATE) / (Math.log(2) * Math.log(2))));
+            int hashes = Math.max(1, (int) Math.round((double) filterBits / capacity * Math.log(2)));
+            long[] filter = new long[(filterBits + 63) >>> 6];
+            long[] table = new long[Integer.highestOneBit(capacity * 2 - 1) << 1];
+            Snapshot snapshot = new Snapshot(filter, filterBits, hashes, table, capacity);
+            for (int i = 0; i < count; i++) {
+                if (numbers[i] != REMOVED && !snapshot.containsExactly(numbers[i])) {
+                    snapshot.insert(numbers[i]);
+                }
+            }
+            return snapshot;
+        }
+
+        /**
+         * Stores a number known to be absent, or returns {@code false} when the headroom is used up. Tombstones are
+         * not reused, so the filter never holds the bits of more than {@code capacity} numbers.
+         */
+        boolean insert(long number) {
+            if (used == capacity) {
+                return false;
+            }
+            used++;
+            long hash = mix(number);
+            int slot = (int) hash & mask;
+            while (table[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int k = 0; k < hashes; k++) {
+                int bit = ((h1 + k * h2) & Integer.MAX_VALUE) % filterBits;
+                SLOTS.setRelease(filter, bit >>> 6, filter[bit >>> 6] | 1L << bit);
+            }
+            SLOTS.setRelease(table, slot, number); // after the filter bits, so a lookup finding it passes the filter
+            size++;
+            return true;
+        }
+
+        void delete(long number) {
+            int slot = (int) mix(number) & mask;
+            while (table[slot] != EMPTY) {
+                if (table[slot] == number) {
+                    SLOTS.setRelease(table, slot, REMOVED); // a tombstone keeps later numbers of the probe reachable
+                    size--;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        boolean mightContain(long number) {
+            long hash = mix(number);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int k = 0; k < hashes; k++) {
+                int bit = ((h1 + k * h2) & Integer.MAX_VALUE) % filterBits;
+                if (((long) SLOTS.getAcquire(filter, bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean containsExactly(long number) {
+            int slot = (int) mix(number) & mask;
+            for (long stored; (stored = (long) SLOTS.getAcquire(table, slot)) != EMPTY; slot = (slot + 1) & mask) {
+                if (stored == number) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        long[] toArray(int length) {
+            long[] numbers = new long[length];
+            int size = 0;
+            for (long number : table) {
+                if (number != EMPTY && number != REMOVED) {
+                    numbers[size++] = number;
+                }
+            }
+            return numbers;
+        }
+
+        private static long mix(long number) { // SplitMix64 finalizer
+            long z = number * 0x9E3779B97F4A7C15L;
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
@@ -0,0 +1,4 @@
+package antifraud.card;
+
+public class StolenCardNotInDatabase extends RuntimeException {
+}
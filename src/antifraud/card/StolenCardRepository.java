@@ -0,0 +1,12 @@
+package antifraud.card;
+
+import org.springframework.data.repository.CrudRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface StolenCardRepository extends CrudRepository<StolenCard, Long> {
+    Optional<StolenCard> findByNumber(long number);
+
+    List<StolenCard> findAllByOrderByIdAsc();
+}
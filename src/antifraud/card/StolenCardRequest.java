@@ -0,0 +1,24 @@
+package antifraud.card;
+
+import jakarta.validation.constraints.NotEmpty;
+
+public class StolenCardRequest {
+    @NotEmpty
+    @CardNumber
+    private String number;
+
+    public StolenCardRequest(String number) {
+        this.number = number;
+    }
+
+    public StolenCardRequest() {
+    }
+
+    public String getNumber() {
+        return number;
+    }
+
+    public void setNumber(String number) {
+        this.number = number;
+    }
+}
@@ -0,0 +1,70 @@
+package antifraud.card;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+
+@Service
+public class StolenCardService {
+    private final StolenCardRepository stolenCardRepository;
+    private final StolenCardIndex stolenCardIndex;
+
+    public StolenCardService(StolenCardRepository stolenCardRepository, StolenCardIndex stolenCardIndex) {
+        this.stolenCardRepository = stolenCardRepository;
+        this.stolenCardIndex = stolenCardIndex;
+    }
+
+    @PostConstruct
+    void loadStolenCardIndex() {
+        long[] numbers = new long[(int) stolenCardRepository.count()];
+        int size = 0;
+        for (StolenCard stolenCard : stolenCardRepository.findAll()) {
+            if (size == numbers.length) {
+                numbers = Arrays.copyOf(numbers, size * 2 + 1);
+            }
+            numbers[size++] = stolenCard.getNumber();
+        }
+        stolenCardIndex.replaceAll(Arrays.copyOf(numbers, size));
+    }
+
+    public StolenCard addStolenCard(String number) {
+        long packed = packOrThrow(number);
+        if (stolenCardRepository.findByNumber(packed).isPresent()) {
+            throw new StolenCardAlreadyInDatabase();
+        }
+        StolenCard saved = stolenCardRepository.save(new StolenCard(packed));
+        stolenCardIndex.add(packed);
+        return saved;
+    }
+
+    public void deleteStolenCard(String number) {
+        long packed = packOrThrow(number);
+        StolenCard saved = stolenCardRepository.findByNumber(packed)
+                .orElseThrow(StolenCardNotInDatabase::new);
+        stolenCardRepository.delete(saved);
+        stolenCardIndex.remove(packed);
+    }
+
+    public List<StolenCard> listStolenCards() {
+        return stolenCardRepository.findAllByOrderByIdAsc();
+    }
+
+    public boolean isStolen(long packedNumber) {
+        return stolenCardIndex.contains(packedNumber);
+    }
+
+    public boolean isStolen(String number) {
+        long packed = CardNumbers.pack(number);
+        return packed != CardNumbers.INVALID && isStolen(packed);
+    }
+
+    private static long packOrThrow(String number) {
+        long packed = CardNumbers.pack(number);
+        if (packed == CardNumbers.INVALID) {
+            throw new IllegalArgumentException(String.format("Invalid card number %s", number));
+        }
+        return packed;
+    }
+}
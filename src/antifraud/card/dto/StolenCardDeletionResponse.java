@@ -0,0 +1,13 @@
+package antifraud.card.dto;
+
+public class StolenCardDeletionResponse {
+    private final String status;
+
+    public StolenCardDeletionResponse(String number) {
+        this.status = String.format("Card %s successfully removed!", number);
+    }
+
+    public String getStatus() {
+        return status;
+    }
+}
@@ -0,0 +1,26 @@
+package antifraud.card.dto;
+
+import antifraud.card.CardNumbers;
+import antifraud.card.StolenCard;
+
+public class StolenCardResponse {
+    private final long id;
+    private final String number;
+
+    public StolenCardResponse(long id, String number) {
+        this.id = id;
+        this.number = number;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getNumber() {
+        return number;
+    }
+
+    public static StolenCardResponse mapStolenCardToStolenCardResponse(StolenCard stolenCard) {
+        return new StolenCardResponse(stolenCard.getId(), CardNumbers.format(stolenCard.getNumber()));
+    }
+}
@@ -1,51 +1,137 @@
 package antifraud.config;
 
+import antifraud.auth.AccessTokenFilter;
+import antifraud.auth.AccessTokenService;
+import antifraud.auth.CachingAuthenticationProvider;
+import antifraud.auth.CredentialCache;
+import antifraud.auth.ReactiveAccessTokenFilter;
 import antifraud.auth.Role;
+import antifraud.auth.UserService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.ReactiveAuthenticationManagerAdapter;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.annotation.web.configurers.HeadersConfigurer.FrameOptionsConfig;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.SecurityFilterChain;
-
-import javax.servlet.http.HttpServletResponse;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.ServerAuthenticationEntryPoint;
+import org.springframework.security.web.server.authentication.HttpBasicServerAuthenticationEntryPoint;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.security.web.server.savedrequest.NoOpServerRequestCache;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
 
 @Configuration
 public class WebSecurityConfiguration {
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
-        http.httpBasic()
-                .authenticationEntryPoint(restAuthenticationEntryPoint()) // Handles auth error
-                .and()
-                .csrf().disable().headers().frameOptions().disable() // for Postman, the H2 console
-                .and()
-                .authorizeRequests() // manage access
-                .antMatchers("/h2-console/**").permitAll()
-                .antMatchers("/actuator/shutdown").permitAll() // needs to run test
-                .antMatchers(HttpMethod.POST, "/api/auth/user").permitAll()
-                .antMatchers(HttpMethod.DELETE, "/api/auth/user/**").hasRole(Role.ADMINISTRATOR.name())
-                .antMatchers(HttpMethod.PUT, "/api/auth/access", "/api/auth/role").hasRole(Role.ADMINISTRATOR.name())
-                .antMatchers(HttpMethod.GET, "/api/auth/list").hasAnyRole(Role.ADMINISTRATOR.name(), Role.SUPPORT.name())
-                .antMatchers(HttpMethod.POST, "/api/antifraud/transaction").hasRole(Role.MERCHANT.name())
-                .antMatchers(HttpMethod.POST, "/api/antifraud/suspicious-ip", "api/antifraud/stolencard").hasRole(Role.SUPPORT.name())
-                .antMatchers(HttpMethod.GET, "/api/antifraud/suspicious-ip", "api/antifraud/stolencard").hasRole(Role.SUPPORT.name())
-                .antMatchers(HttpMethod.DELETE, "/api/antifraud/suspicious-ip/**", "api/antifraud/stolencard/**").hasRole(Role.SUPPORT.name())
-                .anyRequest().denyAll()
-                .and()
-                .sessionManagement()
-                .sessionCreationPolicy(SessionCreationPolicy.STATELESS); // no session
+    public SecurityFilterChain filterChain(HttpSecurity http, AccessTokenService accessTokenService) throws Exception {
+        http.addFilterBefore(new AccessTokenFilter(accessTokenService, restAuthenticationEntryPoint()), BasicAuthenticationFilter.class) // Bearer tokens from /api/auth/token
+                .httpBasic(basic -> basic.authenticationEntryPoint(restAuthenticationEntryPoint())) // Handles auth error
+                .csrf(AbstractHttpConfigurer::disable) // for Postman
+                .headers(headers -> headers.frameOptions(FrameOptionsConfig::disable)) // for the H2 console
+                .authorizeHttpRequests(requests -> requests // manage access
+                        .dispatcherTypeMatchers(DispatcherType.ERROR).permitAll() // lets sendError() responses through to /error
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll() // the request was authorized before it went async
+                        .requestMatchers(antMatchers(null, "/h2-console/**")).permitAll()
+                        .requestMatchers(antMatchers(null, "/actuator/shutdown")).permitAll() // needs to run test
+                        .requestMatchers(antMatchers(HttpMethod.GET, "/actuator/metrics/**", "/actuator/prometheus")).hasRole(Role.ADMINISTRATOR.name())
+                        .requestMatchers(antMatchers(HttpMethod.POST, "/api/auth/user")).permitAll()
+                        .requestMatchers(antMatchers(HttpMethod.POST, "/api/auth/token")).authenticated()
+                        .requestMatchers(antMatchers(HttpMethod.DELETE, "/api/auth/user/**")).hasRole(Role.ADMINISTRATOR.name())
+                        .requestMatchers(antMatchers(HttpMethod.PUT, "/api/auth/access", "/api/auth/role")).hasRole(Role.ADMINISTRATOR.name())
+                        .requestMatchers(antMatchers(HttpMethod.GET, "/api/antifraud/rules")).hasRole(Role.ADMINISTRATOR.name())
+                        .requestMatchers(antMatchers(HttpMethod.POST, "/api/antifraud/rules/reload")).hasRole(Role.ADMINISTRATOR.name())
+                        .requestMatchers(antMatchers(HttpMethod.GET, "/api/auth/list", "/api/auth/list/export")).hasAnyRole(Role.ADMINISTRATOR.name(), Role.SUPPORT.name())
+                        .requestMatchers(antMatchers(HttpMethod.POST, "/api/antifraud/transaction", "/api/antifraud/transactions/batch")).hasRole(Role.MERCHANT.name())
+                        .requestMatchers(antMatchers(HttpMethod.PUT, "/api/antifraud/transaction")).hasRole(Role.SUPPORT.name())
+                        .requestMatchers(antMatchers(HttpMethod.POST, "/api/antifraud/review/next")).hasRole(Role.SUPPORT.name())
+                        .requestMatchers(antMatchers(HttpMethod.POST, "/api/antifraud/suspicious-ip", "/api/antifraud/suspicious-ip/import", "/api/antifraud/stolencard")).hasRole(Role.SUPPORT.name())
+                        .requestMatchers(antMatchers(HttpMethod.GET, "/api/antifraud/suspicious-ip", "/api/antifraud/suspicious-ip/export", "/api/antifraud/stolencard")).hasRole(Role.SUPPORT.name())
+                        .requestMatchers(antMatchers(HttpMethod.DELETE, "/api/antifraud/suspicious-ip/**", "/api/antifraud/stolencard/**")).hasRole(Role.SUPPORT.name())
+                        .anyRequest().denyAll())
+                .sessionManagement(sessions -> sessions.sessionCreationPolicy(SessionCreationPolicy.STATELESS)); // no session
 
         return http.build();
     }
 
+    /**
+     * Ant-style matchers, as {@code requestMatchers(String...)} cannot choose between MVC and servlet paths while the
+     * H2 console servlet is registered. A null method matches every method.
+     */
+    private static RequestMatcher[] antMatchers(HttpMethod method, String... patterns) {
+        RequestMatcher[] matchers = new RequestMatcher[patterns.length];
+        for (int i = 0; i < patterns.length; i++) {
+            matchers[i] = new AntPathRequestMatcher(patterns[i], method == null ? null : method.name());
+        }
+        return matchers;
+    }
+
     private AuthenticationEntryPoint restAuthenticationEntryPoint() {
         return (request, response, authException) -> response.sendError(HttpServletResponse.SC_UNAUTHORIZED, authException.getMessage());
     }
 
+    /**
+     * Security for the opt-in reactive scoring server, with the same credentials and rules as the servlet chain for
+     * the one route it serves. Password checks and user lookups block, so they run on the bounded scheduler.
+     */
+    @Bean
+    public SecurityWebFilterChain reactiveFilterChain(AuthenticationProvider authenticationProvider, AccessTokenService accessTokenService,
+                                                      Scheduler reactiveBlockingScheduler) {
+        ReactiveAuthenticationManagerAdapter authenticationManager = new ReactiveAuthenticationManagerAdapter(new ProviderManager(authenticationProvider));
+        authenticationManager.setScheduler(reactiveBlockingScheduler);
+        ServerAuthenticationEntryPoint entryPoint = new HttpBasicServerAuthenticationEntryPoint();
+        return ServerHttpSecurity.http()
+                .addFilterAt(new ReactiveAccessTokenFilter(accessTokenService, entryPoint), SecurityWebFiltersOrder.HTTP_BASIC) // Bearer tokens
+                .httpBasic(basic -> basic
+                        .authenticationManager(authenticationManager)
+                        .authenticationEntryPoint(entryPoint))
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance()) // no session
+                .requestCache(cache -> cache.requestCache(NoOpServerRequestCache.getInstance()))
+                .exceptionHandling(exceptions -> exceptions.authenticationEntryPoint(entryPoint))
+                .authorizeExchange(exchanges -> exchanges
+                        .pathMatchers(HttpMethod.POST, "/api/antifraud/transaction").hasRole(Role.MERCHANT.name())
+                        .anyExchange().denyAll())
+                .build();
+    }
+
+    /**
+     * Runs blocking work for the reactive scoring server, so it never holds an event-loop thread.
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler reactiveBlockingScheduler(@Value("${antifraud.reactive.blocking-threads:32}") int threads,
+                                               @Value("${antifraud.reactive.blocking-queue:10000}") int queueCapacity) {
+        return Schedulers.newBoundedElastic(threads, queueCapacity, "reactive-blocking");
+    }
+
+
+    @Bean
+    public AuthenticationProvider authenticationProvider(UserService userService, PasswordEncoder passwordEncoder,
+                                                         CredentialCache credentialCache, MeterRegistry meterRegistry) {
+        DaoAuthenticationProvider daoAuthenticationProvider = new DaoAuthenticationProvider();
+        daoAuthenticationProvider.setUserDetailsService(userService);
+        daoAuthenticationProvider.setPasswordEncoder(passwordEncoder);
+        return new CachingAuthenticationProvider(daoAuthenticationProvider, credentialCache, meterRegistry); // skips BCrypt for recently verified credentials
+    }
 
     @Bean
     public PasswordEncoder passwordEncoder() {
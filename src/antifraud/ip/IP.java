@@ -1,16 +1,32 @@
 package antifraud.ip;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.PersistenceCreator;
+import org.springframework.data.annotation.Transient;
 
 import java.util.Objects;
 
+/**
+ * A suspicious IP address, stored as the high and low 64 bits of its IPv6 form so the unique index stays compact.
+ * IPv4 addresses are stored IPv4-mapped, so {@code 1.2.3.4} and {@code ::ffff:1.2.3.4} are the same row.
+ */
 public class IP {
     @Id
     private long id;
-    private String ip;
+    private long addressHigh;
+    private long addressLow;
+
+    @PersistenceCreator
+    public IP(long addressHigh, long addressLow) {
+        this.addressHigh = addressHigh;
+        this.addressLow = addressLow;
+    }
 
     public IP(String ip) {
-        this.ip = ip;
+        long[] address = new long[2];
+        IPv6.parse(ip, address);
+        this.addressHigh = address[0];
+        this.addressLow = address[1];
     }
 
     public long getId() {
@@ -21,12 +37,34 @@ public class IP {
         this.id = id;
     }
 
+    public long getAddressHigh() {
+        return addressHigh;
+    }
+
+    public void setAddressHigh(long addressHigh) {
+        this.addressHigh = addressHigh;
+    }
+
+    public long getAddressLow() {
+        return addressLow;
+    }
+
+    public void setAddressLow(long addressLow) {
+        this.addressLow = addressLow;
+    }
+
+    @Transient
     public String getIp() {
-        return ip;
+        return format(addressHigh, addressLow);
     }
 
-    public void setIp(String ip) {
-        this.ip = ip;
+    /**
+     * Formats IPv4-mapped addresses in dotted-quad notation and every other address in canonical IPv6 notation.
+     */
+    public static String format(long addressHigh, long addressLow) {
+        return IPv6.isIPv4Mapped(addressHigh, addressLow)
+                ? IPv4.format((int) addressLow)
+                : IPv6.format(addressHigh, addressLow);
     }
 
     @Override
@@ -34,11 +72,11 @@ public class IP {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         IP ip1 = (IP) o;
-        return id == ip1.id && ip.equals(ip1.ip);
+        return id == ip1.id && addressHigh == ip1.addressHigh && addressLow == ip1.addressLow;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, ip);
+        return Objects.hash(id, addressHigh, addressLow);
     }
 }
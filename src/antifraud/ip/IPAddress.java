@@ -0,0 +1,23 @@
+package antifraud.ip;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.*;
+
+@Target({ElementType.FIELD, ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+@Constraint(validatedBy = IPAddressValidator.class)
+@Documented
+public @interface IPAddress {
+    String message() default "must be a valid IP address";
+
+    /**
+     * Whether IPv6 addresses are accepted next to dotted IPv4.
+     */
+    boolean ipv6() default true;
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
@@ -0,0 +1,23 @@
+package antifraud.ip;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+public class IPAddressValidator implements ConstraintValidator<IPAddress, CharSequence> {
+    private boolean ipv6;
+
+    @Override
+    public void initialize(IPAddress constraint) {
+        ipv6 = constraint.ipv6();
+    }
+
+    @Override
+    public boolean isValid(CharSequence value, ConstraintValidatorContext context) {
+        if (value == null) {
+            return true;
+        }
+        return ipv6
+                ? IPv6.parse(value, 0, value.length(), null)
+                : IPv4.parse(value, 0, value.length()) != IPv4.INVALID;
+    }
+}
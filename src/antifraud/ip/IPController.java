@@ -1,25 +1,77 @@
 package antifraud.ip;
 
+import antifraud.ip.dto.IPDeletionResponse;
+import antifraud.ip.dto.IPImportResponse;
 import antifraud.ip.dto.IPResponse;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
-import javax.validation.Valid;
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/antifraud/suspicious-ip")
 public class IPController {
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int MAX_PAGE_SIZE = 1000;
 
     private IPService ipService;
+    private ObjectMapper objectMapper;
 
-    public IPController(IPService ipService) {
+    public IPController(IPService ipService, ObjectMapper objectMapper) {
         this.ipService = ipService;
+        this.objectMapper = objectMapper;
     }
 
+    /**
+     * Lists suspicious IPs with an id greater than {@code after}, in id order. A full page links to the next one.
+     */
     @GetMapping
-    public void getSuspiciousIPs() {
+    public ResponseEntity<List<IPResponse>> getSuspiciousIPs(@RequestParam(defaultValue = "0") long after,
+                                                             @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit) {
+        if (after < 0 || limit < 1 || limit > MAX_PAGE_SIZE) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+        List<IPResponse> page = ipService.listSuspiciousIPs(after, limit).stream()
+                .map(IPResponse::mapIPToIPResponse)
+                .collect(Collectors.toList());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.size() == limit) {
+            String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam("after", page.get(page.size() - 1).getId())
+                    .replaceQueryParam("limit", limit)
+                    .toUriString();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(page);
+    }
 
+    /**
+     * Streams every suspicious IP as one JSON array, straight from a database cursor.
+     */
+    @GetMapping("export")
+    public void exportSuspiciousIPs(HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            generator.writeStartArray();
+            ipService.exportSuspiciousIPs((id, ip) -> {
+                generator.writeStartObject();
+                generator.writeNumberField("id", id);
+                generator.writeStringField("ip", ip);
+                generator.writeEndObject();
+            });
+            generator.writeEndArray();
+        }
     }
 
     @PostMapping
@@ -32,8 +84,23 @@ public class IPController {
         }
     }
 
-    @DeleteMapping("/{ip}")
-    public void deleteSuspiciousIP(@PathVariable String ip) {
+    /**
+     * Imports a plain text or CSV list of IPv4 and IPv6 addresses, one per line, read straight from the request body.
+     */
+    @PostMapping(value = "import", consumes = {MediaType.TEXT_PLAIN_VALUE, "text/csv"})
+    public ResponseEntity<IPImportResponse> importSuspiciousIPs(HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(ipService.importSuspiciousIPs(request.getInputStream()));
+    }
 
+    @DeleteMapping("/{ip}")
+    public ResponseEntity<IPDeletionResponse> deleteSuspiciousIP(@PathVariable String ip) {
+        try {
+            ipService.deleteSuspiciousIP(ip);
+            return ResponseEntity.ok(new IPDeletionResponse(ip));
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (IPNotInDatabase e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
     }
 }
@@ -0,0 +1,147 @@
+package antifraud.ip;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.IntConsumer;
+
+/**
+ * Reads IPv4 and IPv6 addresses from plain text or CSV, one per line, straight from a byte buffer. Only the first
+ * field of a line is used, optionally in double quotes. Blank lines and {@code #} comments are skipped, and so is a
+ * first line that starts with a letter, taken as a CSV header. IPv4-mapped IPv6 addresses are reported as IPv4.
+ */
+final class IPListParser {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final long[] ipv6 = new long[2];
+    private final AsciiSequence text = new AsciiSequence();
+    private int invalid;
+    private boolean firstLine = true;
+
+    int getInvalid() {
+        return invalid;
+    }
+
+    void parse(InputStream input, IntConsumer addresses, IPv6Consumer ipv6Addresses) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int length = 0;
+        boolean skippingLongLine = false;
+        int read;
+        while ((read = input.read(buffer, length, buffer.length - length)) != -1) {
+            length += read;
+            int start = 0;
+            for (int i = 0; i < length; i++) {
+                if (buffer[i] == '\n') {
+                    if (skippingLongLine) {
+                        skippingLongLine = false;
+                    } else {
+                        line(buffer, start, i, addresses, ipv6Addresses);
+                    }
+                    start = i + 1;
+                }
+            }
+            if (start == 0 && length == buffer.length) { // a line longer than the buffer is no address
+                if (!skippingLongLine) {
+                    invalid++;
+                    firstLine = false;
+                }
+                skippingLongLine = true;
+                length = 0;
+            } else {
+                System.arraycopy(buffer, start, buffer, 0, length - start);
+                length -= start;
+            }
+        }
+        if (length > 0 && !skippingLongLine) {
+            line(buffer, 0, length, addresses, ipv6Addresses);
+        }
+    }
+
+    private void line(byte[] bytes, int from, int to, IntConsumer addresses, IPv6Consumer ipv6Addresses) {
+        while (from < to && isSpace(bytes[from])) {
+            from++;
+        }
+        int end = from;
+        while (end < to && bytes[end] != ',' && bytes[end] != ';' && !isSpace(bytes[end])) {
+            end++;
+        }
+        boolean header = firstLine;
+        firstLine = false;
+        if (end == from || bytes[from] == '#') {
+            firstLine = header && end == from; // a header may follow leading blank lines
+            return;
+        }
+        if (end - from >= 2 && bytes[from] == '"' && bytes[end - 1] == '"') {
+            from++;
+            end--;
+        }
+        if (isIPv6(bytes, from, end)) {
+            text.bytes = bytes;
+            if (IPv6.parse(text, from, end, ipv6)) {
+                if (IPv6.isIPv4Mapped(ipv6[0], ipv6[1])) {
+                    addresses.accept((int) ipv6[1]);
+                } else {
+                    ipv6Addresses.accept(ipv6[0], ipv6[1]);
+                }
+                return;
+            }
+        } else {
+            long address = IPv4.parse(bytes, from, end);
+            if (address != IPv4.INVALID) {
+                addresses.accept((int) address);
+                return;
+            }
+        }
+        if (!(header && isLetter(bytes[from]))) {
+            invalid++;
+        }
+    }
+
+    private static boolean isIPv6(byte[] bytes, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == ':') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    private static boolean isLetter(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z');
+    }
+
+    interface IPv6Consumer {
+        void accept(long high, long low);
+    }
+
+    /**
+     * The buffer seen as characters, so IPv6 addresses are parsed in place.
+     */
+    private static final class AsciiSequence implements CharSequence {
+        private byte[] bytes;
+
+        @Override
+        public int length() {
+            return bytes.length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes[index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
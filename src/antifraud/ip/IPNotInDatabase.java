@@ -0,0 +1,4 @@
+package antifraud.ip;
+
+public class IPNotInDatabase extends RuntimeException {
+}
@@ -5,5 +5,10 @@ import org.springframework.data.repository.CrudRepository;
 import java.util.Optional;
 
 public interface IPRepository extends CrudRepository<IP, Long> {
-    Optional<IP> findByIp(String ip);
+    Optional<IP> findByAddressHighAndAddressLow(long addressHigh, long addressLow);
+
+    default Optional<IP> findByIp(String ip) {
+        IP address = new IP(ip);
+        return findByAddressHighAndAddressLow(address.getAddressHigh(), address.getAddressLow());
+    }
 }
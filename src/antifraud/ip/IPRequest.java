@@ -1,11 +1,10 @@
 package antifraud.ip;
 
-import javax.validation.constraints.NotEmpty;
-import javax.validation.constraints.Pattern;
+import jakarta.validation.constraints.NotEmpty;
 
 public class IPRequest {
     @NotEmpty
-    @Pattern(regexp = "^(([0-9]|[1-9][0-9]|1[0-9][0-9]|2[0-4][0-9]|25[0-5])(\\.(?!$)|$)){4}$")
+    @IPAddress
     private String ip;
 
     public IPRequest(String ip) {
@@ -1,19 +1,352 @@
 package antifraud.ip;
 
+import antifraud.ip.dto.IPImportResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class IPService {
+    // lookups take tens of nanoseconds, so timing every one would cost several times the lookup itself
+    private static final int LOOKUP_SAMPLE_MASK = 63;
+    private static final int EXPORT_FETCH_SIZE = 1000;
+    private static final int IMPORT_BATCH_SIZE = 1000;
+    private static final int IMPORT_TRANSACTION_SIZE = 100_000;
+    // one multi-row insert is parsed and executed once, where a JDBC batch still runs every row as its own statement
+    private static final String IMPORT_BATCH_INSERT = insertStatement(IMPORT_BATCH_SIZE);
+    private static final RowMapper<IP> IP_ROW_MAPPER = (resultSet, row) -> {
+        IP ip = new IP(resultSet.getLong(2), resultSet.getLong(3));
+        ip.setId(resultSet.getLong(1));
+        return ip;
+    };
+
     private IPRepository ipRepository;
+    private SuspiciousIPIndex suspiciousIPIndex;
+    private IPTableMigration ipTableMigration;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private Timer lookupTimer;
 
-    public IPService(IPRepository ipRepository) {
+    public IPService(IPRepository ipRepository, SuspiciousIPIndex suspiciousIPIndex, IPTableMigration ipTableMigration,
+                     JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, MeterRegistry meterRegistry) {
         this.ipRepository = ipRepository;
+        this.suspiciousIPIndex = suspiciousIPIndex;
+        this.ipTableMigration = ipTableMigration;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.lookupTimer = Timer.builder("antifraud.ip.lookup")
+                .description("Time to check an address or subnet against the suspicious IPs, sampled 1 in 64")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void loadSuspiciousIPIndex() {
+        ipTableMigration.migrate();
+        int[][] addresses = {new int[(int) ipRepository.count()]};
+        int[] size = {0};
+        long[][] ipv6Addresses = {new long[0]};
+        int[] ipv6Size = {0};
+        jdbcTemplate.query("SELECT address_high, address_low FROM ip", resultSet -> {
+            long high = resultSet.getLong(1);
+            long low = resultSet.getLong(2);
+            if (IPv6.isIPv4Mapped(high, low)) {
+                if (size[0] == addresses[0].length) {
+                    addresses[0] = Arrays.copyOf(addresses[0], size[0] * 2 + 1);
+                }
+                addresses[0][size[0]++] = (int) low;
+            } else {
+                if (2 * ipv6Size[0] == ipv6Addresses[0].length) {
+                    ipv6Addresses[0] = Arrays.copyOf(ipv6Addresses[0], ipv6Size[0] * 4 + 2);
+                }
+                ipv6Addresses[0][2 * ipv6Size[0]] = high;
+                ipv6Addresses[0][2 * ipv6Size[0]++ + 1] = low;
+            }
+        });
+        suspiciousIPIndex.replaceAll(Arrays.copyOf(addresses[0], size[0]));
+        suspiciousIPIndex.replaceAll(Arrays.copyOf(ipv6Addresses[0], 2 * ipv6Size[0]));
     }
 
+    /**
+     * Inserts the address in one statement and lets the unique index reject a duplicate, so two concurrent adds of
+     * the same address cannot both succeed. IPv6 addresses may be written in any notation; an IPv4-mapped one is the
+     * same address as its IPv4 form.
+     */
     public IP addSuspiciousIP(String ip) {
-        if (ipRepository.findByIp(ip).isPresent()) {
+        IP saved = new IP(ip);
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        try {
+            jdbcTemplate.update(connection -> {
+                PreparedStatement statement = connection.prepareStatement(
+                        "INSERT INTO ip (address_high, address_low) VALUES (?, ?)", new String[]{"id"});
+                statement.setLong(1, saved.getAddressHigh());
+                statement.setLong(2, saved.getAddressLow());
+                return statement;
+            }, keyHolder);
+        } catch (DuplicateKeyException e) {
             throw new IPAlreadyInDatabase();
         }
-        return ipRepository.save(new IP(ip));
+        saved.setId(keyHolder.getKey().longValue());
+        suspiciousIPIndex.add(saved.getAddressHigh(), saved.getAddressLow());
+        return saved;
+    }
+
+    /**
+     * Adds every valid address in a plain text or CSV list that is not yet suspicious. IPv4 addresses are kept as ints
+     * and IPv6 addresses as pairs of longs, each deduplicated against the file and the in-memory index, then inserted
+     * in file order, IPv4 first, with multi-row inserts committing every {@value #IMPORT_TRANSACTION_SIZE} rows.
+     * A failed transaction keeps the rows committed before it. Addresses added concurrently count as duplicates.
+     */
+    public IPImportResponse importSuspiciousIPs(InputStream input) throws IOException {
+        int[][] parsed = {new int[1024]};
+        int[] count = {0};
+        long[][] parsedIPv6 = {new long[0]};
+        int[] countIPv6 = {0};
+        IPListParser parser = new IPListParser();
+        parser.parse(input, address -> {
+            if (count[0] == parsed[0].length) {
+                parsed[0] = Arrays.copyOf(parsed[0], count[0] * 2);
+            }
+            parsed[0][count[0]++] = address;
+        }, (high, low) -> {
+            if (2 * countIPv6[0] == parsedIPv6[0].length) {
+                parsedIPv6[0] = Arrays.copyOf(parsedIPv6[0], countIPv6[0] * 4 + 2);
+            }
+            parsedIPv6[0][2 * countIPv6[0]] = high;
+            parsedIPv6[0][2 * countIPv6[0]++ + 1] = low;
+        });
+        int added = deduplicateAndInsert(parsed[0], count[0]);
+        int addedIPv6 = deduplicateAndInsert(parsedIPv6[0], countIPv6[0]);
+        int size = count[0] + countIPv6[0];
+        return new IPImportResponse(added + addedIPv6, size - added - addedIPv6, parser.getInvalid());
+    }
+
+    private int deduplicateAndInsert(int[] addresses, int size) {
+        int[] distinct = new int[size];
+        for (int i = 0; i < size; i++) {
+            distinct[i] = addresses[i] ^ Integer.MIN_VALUE;
+        }
+        Arrays.sort(distinct);
+        int distinctSize = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinctSize == 0 || distinct[distinctSize - 1] != distinct[i]) {
+                distinct[distinctSize++] = distinct[i];
+            }
+        }
+        BitSet seen = new BitSet(distinctSize);
+        int pending = 0;
+        for (int i = 0; i < size; i++) {
+            int position = Arrays.binarySearch(distinct, 0, distinctSize, addresses[i] ^ Integer.MIN_VALUE);
+            if (!seen.get(position) && !suspiciousIPIndex.contains(addresses[i])) {
+                addresses[pending++] = addresses[i];
+            }
+            seen.set(position);
+        }
+
+        int inserted = 0;
+        for (int from = 0; from < pending; from += IMPORT_TRANSACTION_SIZE) {
+            int[] chunk = Arrays.copyOfRange(addresses, from, Math.min(from + IMPORT_TRANSACTION_SIZE, pending));
+            inserted += transactionTemplate.execute(status -> insertSuspiciousIPs(chunk));
+            suspiciousIPIndex.addAll(chunk);
+        }
+        return inserted;
+    }
+
+    private int deduplicateAndInsert(long[] addresses, int size) {
+        long[] distinct = Arrays.copyOf(addresses, 2 * size);
+        IPv6.sort(distinct, size);
+        int distinctSize = 0;
+        for (int i = 0; i < size; i++) {
+            if (distinctSize == 0 || distinct[2 * distinctSize - 2] != distinct[2 * i] || distinct[2 * distinctSize - 1] != distinct[2 * i + 1]) {
+                distinct[2 * distinctSize] = distinct[2 * i];
+                distinct[2 * distinctSize++ + 1] = distinct[2 * i + 1];
+            }
+        }
+        BitSet seen = new BitSet(distinctSize);
+        int pending = 0;
+        for (int i = 0; i < size; i++) {
+            long high = addresses[2 * i];
+            long low = addresses[2 * i + 1];
+            int position = IPv6.binarySearch(distinct, distinctSize, high, low);
+            if (!seen.get(position) && !suspiciousIPIndex.contains(high, low)) {
+                addresses[2 * pending] = high;
+                addresses[2 * pending++ + 1] = low;
+            }
+            seen.set(position);
+        }
+
+        int inserted = 0;
+        for (int from = 0; from < pending; from += IMPORT_TRANSACTION_SIZE) {
+            long[] chunk = Arrays.copyOfRange(addresses, 2 * from, 2 * Math.min(from + IMPORT_TRANSACTION_SIZE, pending));
+            inserted += transactionTemplate.execute(status -> insertSuspiciousIPs(chunk));
+            suspiciousIPIndex.addAll(chunk);
+        }
+        return inserted;
+    }
+
+    /**
+     * Inserts the addresses with multi-row inserts and returns how many rows were added. An address can be added
+     * between the index check and the insert, so a statement the unique index rejects is retried row by row,
+     * skipping the rows that already exist, rather than failing the import after earlier chunks committed.
+     */
+    private int insertSuspiciousIPs(int[] addresses) {
+        int inserted = 0;
+        for (int from = 0; from < addresses.length; from += IMPORT_BATCH_SIZE) {
+            int offset = from;
+            int rows = Math.min(IMPORT_BATCH_SIZE, addresses.length - from);
+            try {
+                inserted += jdbcTemplate.update(rows == IMPORT_BATCH_SIZE ? IMPORT_BATCH_INSERT : insertStatement(rows), statement -> {
+                    for (int i = 0; i < rows; i++) {
+                        statement.setLong(2 * i + 1, 0);
+                        statement.setLong(2 * i + 2, IPv6.mapIPv4(addresses[offset + i]));
+                    }
+                });
+            } catch (DuplicateKeyException e) {
+                for (int i = 0; i < rows; i++) {
+                    inserted += insertIfAbsent(0, IPv6.mapIPv4(addresses[offset + i]));
+                }
+            }
+        }
+        return inserted;
+    }
+
+    private int insertSuspiciousIPs(long[] addresses) {
+        int inserted = 0;
+        for (int from = 0; from < addresses.length / 2; from += IMPORT_BATCH_SIZE) {
+            int offset = 2 * from;
+            int rows = Math.min(IMPORT_BATCH_SIZE, addresses.length / 2 - from);
+            try {
+                inserted += jdbcTemplate.update(rows == IMPORT_BATCH_SIZE ? IMPORT_BATCH_INSERT : insertStatement(rows), statement -> {
+                    for (int i = 0; i < 2 * rows; i++) {
+                        statement.setLong(i + 1, addresses[offset + i]);
+                    }
+                });
+            } catch (DuplicateKeyException e) {
+                for (int i = 0; i < rows; i++) {
+                    inserted += insertIfAbsent(addresses[offset + 2 * i], addresses[offset + 2 * i + 1]);
+                }
+            }
+        }
+        return inserted;
+    }
+
+    private int insertIfAbsent(long high, long low) {
+        try {
+            return jdbcTemplate.update("INSERT INTO ip (address_high, address_low) VALUES (?, ?)", high, low);
+        } catch (DuplicateKeyException e) {
+            return 0;
+        }
+    }
+
+    private static String insertStatement(int rows) {
+        StringBuilder sql = new StringBuilder("INSERT INTO ip (address_high, address_low) VALUES (?,?)");
+        for (int i = 1; i < rows; i++) {
+            sql.append(",(?,?)");
+        }
+        return sql.toString();
+    }
+
+    /**
+     * Returns up to {@code limit} suspicious IPs with an id greater than {@code after}, in id order. The query seeks on
+     * the primary key, so a page deep into the table costs the same as the first one.
+     */
+    public List<IP> listSuspiciousIPs(long after, int limit) {
+        return jdbcTemplate.query("SELECT id, address_high, address_low FROM ip WHERE id > ? ORDER BY id LIMIT ?", IP_ROW_MAPPER, after, limit);
+    }
+
+    /**
+     * Passes every suspicious IP to the handler in id order while reading from a database cursor, so memory use does
+     * not grow with the table.
+     */
+    public void exportSuspiciousIPs(SuspiciousIPHandler handler) throws IOException {
+        try {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement("SELECT id, address_high, address_low FROM ip ORDER BY id");
+                statement.setFetchSize(EXPORT_FETCH_SIZE);
+                return statement;
+            }, resultSet -> {
+                try {
+                    handler.handle(resultSet.getLong(1), IP.format(resultSet.getLong(2), resultSet.getLong(3)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    public void deleteSuspiciousIP(String ip) {
+        IP address = new IP(ip);
+        if (jdbcTemplate.update("DELETE FROM ip WHERE address_high = ? AND address_low = ?",
+                address.getAddressHigh(), address.getAddressLow()) == 0) {
+            throw new IPNotInDatabase();
+        }
+        suspiciousIPIndex.remove(address.getAddressHigh(), address.getAddressLow());
+    }
+
+    public boolean isSuspicious(int address) {
+        if ((ThreadLocalRandom.current().nextInt() & LOOKUP_SAMPLE_MASK) != 0) {
+            return suspiciousIPIndex.contains(address);
+        }
+        long start = System.nanoTime();
+        boolean suspicious = suspiciousIPIndex.contains(address);
+        lookupTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return suspicious;
+    }
+
+    public boolean isSuspicious(long high, long low) {
+        if ((ThreadLocalRandom.current().nextInt() & LOOKUP_SAMPLE_MASK) != 0) {
+            return suspiciousIPIndex.contains(high, low);
+        }
+        long start = System.nanoTime();
+        boolean suspicious = suspiciousIPIndex.contains(high, low);
+        lookupTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return suspicious;
+    }
+
+    public boolean isSuspicious(String ip) {
+        if (ip.indexOf(':') < 0) {
+            return isSuspicious(IPv4.parse(ip));
+        }
+        long[] address = new long[2]; // never escapes, so once inlined escape analysis keeps it in registers
+        IPv6.parse(ip, address);
+        return isSuspicious(address[0], address[1]);
+    }
+
+    public boolean hasSuspiciousIPInSubnet(int network, int prefixLength) {
+        if ((ThreadLocalRandom.current().nextInt() & LOOKUP_SAMPLE_MASK) != 0) {
+            return suspiciousIPIndex.containsAnyInPrefix(network, prefixLength);
+        }
+        long start = System.nanoTime();
+        boolean suspicious = suspiciousIPIndex.containsAnyInPrefix(network, prefixLength);
+        lookupTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return suspicious;
+    }
+
+    public boolean hasSuspiciousIPInSubnet(long high, long low, int prefixLength) {
+        if ((ThreadLocalRandom.current().nextInt() & LOOKUP_SAMPLE_MASK) != 0) {
+            return suspiciousIPIndex.containsAnyInPrefix(high, low, prefixLength);
+        }
+        long start = System.nanoTime();
+        boolean suspicious = suspiciousIPIndex.containsAnyInPrefix(high, low, prefixLength);
+        lookupTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return suspicious;
     }
 }
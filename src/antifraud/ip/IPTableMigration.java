@@ -0,0 +1,101 @@
+package antifraud.ip;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Brings an {@code ip} table created by an earlier version to the current layout, where schema.sql cannot: its
+ * {@code CREATE TABLE IF NOT EXISTS} leaves an existing table as it was. Databases from before addresses were numeric
+ * keep them as dotted strings in an {@code ip} column. Each step checks the columns first, so a current table is left
+ * alone and a migration interrupted halfway resumes on the next start. Databases from before IPv6 support keep the
+ * unsigned IPv4 value in an {@code address} column.
+ */
+@Component
+class IPTableMigration {
+    private static final Logger LOGGER = LoggerFactory.getLogger(IPTableMigration.class);
+    private static final String COLUMN_NULLABLE = "SELECT IS_NULLABLE FROM INFORMATION_SCHEMA.COLUMNS "
+            + "WHERE TABLE_SCHEMA = SCHEMA() AND TABLE_NAME = 'IP' AND COLUMN_NAME = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IPTableMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    void migrate() {
+        if (hasColumn("IP")) {
+            addAddressColumns();
+            migrateStrings();
+        }
+        if (hasColumn("ADDRESS")) {
+            addAddressColumns();
+            migrateIPv4Addresses();
+        }
+        if (isNullable("ADDRESS_HIGH")) { // made NOT NULL last, so a table left halfway is finished here
+            requireUniqueAddresses();
+        }
+    }
+
+    private void addAddressColumns() {
+        jdbcTemplate.execute("ALTER TABLE ip ADD COLUMN IF NOT EXISTS address_high BIGINT");
+        jdbcTemplate.execute("ALTER TABLE ip ADD COLUMN IF NOT EXISTS address_low BIGINT");
+    }
+
+    private void migrateStrings() {
+        List<Object[]> converted = new ArrayList<>();
+        List<Object[]> invalid = new ArrayList<>();
+        jdbcTemplate.query("SELECT id, ip FROM ip WHERE address_low IS NULL", row -> {
+            long id = row.getLong(1);
+            String ip = row.getString(2);
+            try {
+                converted.add(new Object[]{0L, IPv6.mapIPv4(IPv4.parse(ip)), id});
+            } catch (IllegalArgumentException e) {
+                LOGGER.warn("Dropping suspicious IP {} with id {}, which is not an IPv4 address", ip, id);
+                invalid.add(new Object[]{id});
+            }
+        });
+        jdbcTemplate.batchUpdate("UPDATE ip SET address_high = ?, address_low = ? WHERE id = ?", converted);
+        jdbcTemplate.batchUpdate("DELETE FROM ip WHERE id = ?", invalid);
+        jdbcTemplate.execute("ALTER TABLE ip DROP COLUMN ip");
+        LOGGER.info("Converted {} suspicious IPs to numeric addresses", converted.size());
+    }
+
+    /**
+     * Maps each unsigned IPv4 value to its IPv4-mapped address, a zero high word and {@link IPv6#IPV4_MAPPED} next to
+     * the 32 bits in the low word. The old column's unique constraint goes with it.
+     */
+    private void migrateIPv4Addresses() {
+        int converted = jdbcTemplate.update("UPDATE ip SET address_high = 0, address_low = address + ? "
+                + "WHERE address_low IS NULL", IPv6.IPV4_MAPPED);
+        jdbcTemplate.execute("ALTER TABLE ip DROP COLUMN address");
+        LOGGER.info("Converted {} suspicious IPv4 addresses to IPv6 words", converted);
+    }
+
+    /**
+     * Drops all but the first row of each address, which the old check-then-insert could duplicate, and adds the
+     * constraint a new table is created with.
+     */
+    private void requireUniqueAddresses() {
+        int duplicates = jdbcTemplate.update("DELETE FROM ip WHERE id NOT IN "
+                + "(SELECT MIN(id) FROM ip GROUP BY address_high, address_low)");
+        if (duplicates > 0) {
+            LOGGER.warn("Dropped {} duplicate suspicious IPs", duplicates);
+        }
+        jdbcTemplate.execute("ALTER TABLE ip ADD CONSTRAINT IF NOT EXISTS ip_address UNIQUE (address_high, address_low)");
+        jdbcTemplate.execute("ALTER TABLE ip ALTER COLUMN address_low SET NOT NULL");
+        jdbcTemplate.execute("ALTER TABLE ip ALTER COLUMN address_high SET NOT NULL");
+    }
+
+    private boolean hasColumn(String column) {
+        return !jdbcTemplate.queryForList(COLUMN_NULLABLE, String.class, column).isEmpty();
+    }
+
+    private boolean isNullable(String column) {
+        return jdbcTemplate.queryForList(COLUMN_NULLABLE, String.class, column).contains("YES");
+    }
+}
@@ -0,0 +1,124 @@
+package antifraud.ip;
+
+public final class IPv4 {
+    public static final long INVALID = -1L;
+
+    private IPv4() {
+    }
+
+    public static int parse(String ip) {
+        if (ip == null) {
+            throw new IllegalArgumentException("IP address is null");
+        }
+        int length = ip.length();
+        int address = 0;
+        int octet = 0;
+        int digits = 0;
+        int dots = 0;
+        for (int i = 0; i < length; i++) {
+            char c = ip.charAt(i);
+            if (c == '.') {
+                if (digits == 0 || ++dots > 3) {
+                    throw invalid(ip);
+                }
+                address = (address << 8) | octet;
+                octet = 0;
+                digits = 0;
+            } else if (c >= '0' && c <= '9') {
+                if (digits > 0 && octet == 0) {
+                    throw invalid(ip); // leading zero
+                }
+                octet = octet * 10 + (c - '0');
+                if (++digits > 3 || octet > 255) {
+                    throw invalid(ip);
+                }
+            } else {
+                throw invalid(ip);
+            }
+        }
+        if (digits == 0 || dots != 3) {
+            throw invalid(ip);
+        }
+        return (address << 8) | octet;
+    }
+
+    /**
+     * Parses the ASCII bytes in {@code [from, to)} without allocating. Returns the address as an unsigned value, or
+     * {@link #INVALID}.
+     */
+    public static long parse(byte[] bytes, int from, int to) {
+        int address = 0;
+        int octet = 0;
+        int digits = 0;
+        int dots = 0;
+        for (int i = from; i < to; i++) {
+            byte b = bytes[i];
+            if (b == '.') {
+                if (digits == 0 || ++dots > 3) {
+                    return INVALID;
+                }
+                address = (address << 8) | octet;
+                octet = 0;
+                digits = 0;
+            } else if (b >= '0' && b <= '9') {
+                if (digits > 0 && octet == 0) {
+                    return INVALID; // leading zero
+                }
+                octet = octet * 10 + (b - '0');
+                if (++digits > 3 || octet > 255) {
+                    return INVALID;
+                }
+            } else {
+                return INVALID;
+            }
+        }
+        if (digits == 0 || dots != 3) {
+            return INVALID;
+        }
+        return ((address << 8) | octet) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Parses the characters in {@code [from, to)} without allocating. Returns the address as an unsigned value, or
+     * {@link #INVALID}.
+     */
+    public static long parse(CharSequence ip, int from, int to) {
+        int address = 0;
+        int octet = 0;
+        int digits = 0;
+        int dots = 0;
+        for (int i = from; i < to; i++) {
+            char c = ip.charAt(i);
+            if (c == '.') {
+                if (digits == 0 || ++dots > 3) {
+                    return INVALID;
+                }
+                address = (address << 8) | octet;
+                octet = 0;
+                digits = 0;
+            } else if (c >= '0' && c <= '9') {
+                if (digits > 0 && octet == 0) {
+                    return INVALID; // leading zero
+                }
+                octet = octet * 10 + (c - '0');
+                if (++digits > 3 || octet > 255) {
+                    return INVALID;
+                }
+            } else {
+                return INVALID;
+            }
+        }
+        if (digits == 0 || dots != 3) {
+            return INVALID;
+        }
+        return ((address << 8) | octet) & 0xFFFFFFFFL;
+    }
+
+    public static String format(int address) {
+        return (address >>> 24) + "." + ((address >>> 16) & 0xFF) + "." + ((address >>> 8) & 0xFF) + "." + (address & 0xFF);
+    }
+
+    private static IllegalArgumentException invalid(String ip) {
+        return new IllegalArgumentException(String.format("Invalid IPv4 address %s", ip));
+    }
+}
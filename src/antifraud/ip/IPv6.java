@@ -0,0 +1,249 @@
+package antifraud.ip;
+
+/**
+ * IPv6 addresses as two longs, the high and the low 64 bits. An IPv4 address {@code a.b.c.d} is the IPv4-mapped
+ * address {@code ::ffff:a.b.c.d}, a zero high word and {@link #IPV4_MAPPED} in the low word next to the IPv4 bits.
+ */
+public final class IPv6 {
+    public static final long IPV4_MAPPED = 0xFFFF_0000_0000L;
+
+    private IPv6() {
+    }
+
+    /**
+     * Parses an IPv4 address, or an IPv6 address in full, compressed ({@code ::}) or dotted-quad
+     * ({@code ::ffff:1.2.3.4}) notation, into {@code address[0]} (high word) and {@code address[1]} (low word).
+     * IPv4 addresses come out IPv4-mapped.
+     */
+    public static void parse(String ip, long[] address) {
+        if (ip == null) {
+            throw new IllegalArgumentException("IP address is null");
+        }
+        if (!parse(ip, 0, ip.length(), address)) {
+            throw new IllegalArgumentException(String.format("Invalid IP address %s", ip));
+        }
+    }
+
+    /**
+     * Parses the characters in {@code [from, to)} like {@link #parse(String, long[])}, in one pass and without
+     * allocating. Returns false, leaving {@code address} as it was, if they are not an IP address. A null
+     * {@code address} only validates.
+     */
+    public static boolean parse(CharSequence ip, int from, int to, long[] address) {
+        long high = 0;
+        long low = 0;
+        int groups = 0;
+        int gap = -1; // groups before the "::", if any
+        int i = from;
+        if (to - from >= 2 && ip.charAt(i) == ':' && ip.charAt(i + 1) == ':') {
+            gap = 0;
+            i += 2;
+        }
+        while (i < to) {
+            int start = i;
+            int group = 0;
+            int digit;
+            while (i < to && (digit = hexDigit(ip.charAt(i))) >= 0) {
+                group = (group << 4) | digit;
+                i++;
+            }
+            if (i < to && ip.charAt(i) == '.') { // an IPv4 address in the last 32 bits
+                long ipv4 = groups <= 6 ? IPv4.parse(ip, start, to) : IPv4.INVALID;
+                if (ipv4 == IPv4.INVALID) {
+                    return false;
+                }
+                if (groups == 0 && gap < 0) { // a plain IPv4 address
+                    low = IPV4_MAPPED | ipv4;
+                    groups = 8;
+                    break;
+                }
+                high = (high << 32) | (low >>> 32);
+                low = (low << 32) | ipv4;
+                groups += 2;
+                break;
+            }
+            int digits = i - start;
+            if (digits == 0 || digits > 4 || groups == 8) {
+                return false;
+            }
+            high = (high << 16) | (low >>> 48);
+            low = (low << 16) | group;
+            groups++;
+            if (i == to) {
+                break;
+            }
+            if (ip.charAt(i++) != ':' || i == to) {
+                return false;
+            }
+            if (ip.charAt(i) == ':') {
+                if (gap >= 0) {
+                    return false;
+                }
+                gap = groups;
+                i++;
+            }
+        }
+        if (gap < 0 ? groups != 8 : groups == 8) {
+            return false;
+        }
+        if (gap >= 0) { // move the groups before "::" up, leaving zeros in between
+            int tailBits = (groups - gap) * 16;
+            long tailHigh = tailBits > 64 ? high & ((1L << (tailBits - 64)) - 1) : 0;
+            long tailLow = tailBits >= 64 ? low : low & ((1L << tailBits) - 1);
+            long headHigh = high ^ tailHigh;
+            long headLow = low ^ tailLow;
+            int shift = (8 - groups) * 16;
+            if (shift >= 128) {
+                headHigh = 0;
+                headLow = 0;
+            } else if (shift >= 64) {
+                headHigh = headLow << (shift - 64);
+                headLow = 0;
+            } else {
+                headHigh = (headHigh << shift) | (headLow >>> (64 - shift));
+                headLow <<= shift;
+            }
+            high = headHigh | tailHigh;
+            low = headLow | tailLow;
+        }
+        if (address != null) {
+            address[0] = high;
+            address[1] = low;
+        }
+        return true;
+    }
+
+    public static boolean isIPv4Mapped(long high, long low) {
+        return high == 0 && (low >>> 32) == (IPV4_MAPPED >>> 32);
+    }
+
+    /**
+     * Returns the low word of the IPv4-mapped address for {@code address}; the high word is zero.
+     */
+    public static long mapIPv4(int address) {
+        return IPV4_MAPPED | Integer.toUnsignedLong(address);
+    }
+
+    /**
+     * Formats the address in the canonical form of RFC 5952: lower case, no leading zeros, and the longest run of two
+     * or more zero groups compressed to {@code ::}.
+     */
+    public static String format(long high, long low) {
+        if (isIPv4Mapped(high, low)) {
+            return "::ffff:" + IPv4.format((int) low);
+        }
+        int zerosStart = -1;
+        int zerosLength = 1;
+        for (int i = 0, run = 0; i < 8; i++) {
+            run = group(high, low, i) == 0 ? run + 1 : 0;
+            if (run > zerosLength) {
+                zerosLength = run;
+                zerosStart = i - run + 1;
+            }
+        }
+        StringBuilder ip = new StringBuilder(39);
+        for (int i = 0; i < 8; i++) {
+            if (i == zerosStart) {
+                ip.append("::");
+                i += zerosLength - 1;
+                continue;
+            }
+            if (ip.length() > 0 && ip.charAt(ip.length() - 1) != ':') {
+                ip.append(':');
+            }
+            ip.append(Integer.toHexString(group(high, low, i)));
+        }
+        return ip.toString();
+    }
+
+    static int compare(long high, long low, long otherHigh, long otherLow) {
+        return high != otherHigh ? Long.compareUnsigned(high, otherHigh) : Long.compareUnsigned(low, otherLow);
+    }
+
+    /**
+     * Searches the first {@code size} addresses of {@code addresses}, stored as consecutive high and low words in
+     * ascending order. Returns the position like {@link java.util.Arrays#binarySearch(long[], long)} does.
+     */
+    static int binarySearch(long[] addresses, int size, long high, long low) {
+        int from = 0;
+        int to = size - 1;
+        while (from <= to) {
+            int middle = (from + to) >>> 1;
+            int comparison = compare(addresses[2 * middle], addresses[2 * middle + 1], high, low);
+            if (comparison < 0) {
+                from = middle + 1;
+            } else if (comparison > 0) {
+                to = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(from + 1);
+    }
+
+    /**
+     * Sorts the first {@code size} addresses of {@code addresses}, stored as consecutive high and low words.
+     */
+    static void sort(long[] addresses, int size) {
+        sort(addresses, 0, size);
+    }
+
+    private static void sort(long[] addresses, int from, int to) {
+        while (to - from > 16) {
+            int middle = (from + to) >>> 1;
+            long pivotHigh = addresses[2 * middle];
+            long pivotLow = addresses[2 * middle + 1];
+            int i = from;
+            int j = to - 1;
+            while (i <= j) {
+                while (compare(addresses[2 * i], addresses[2 * i + 1], pivotHigh, pivotLow) < 0) {
+                    i++;
+                }
+                while (compare(addresses[2 * j], addresses[2 * j + 1], pivotHigh, pivotLow) > 0) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(addresses, i++, j--);
+                }
+            }
+            if (j + 1 - from < to - i) { // recurse into the smaller half so the stack stays shallow
+                sort(addresses, from, j + 1);
+                from = i;
+            } else {
+                sort(addresses, i, to);
+                to = j + 1;
+            }
+        }
+        for (int i = from + 1; i < to; i++) {
+            for (int j = i; j > from && compare(addresses[2 * j - 2], addresses[2 * j - 1], addresses[2 * j], addresses[2 * j + 1]) > 0; j--) {
+                swap(addresses, j - 1, j);
+            }
+        }
+    }
+
+    private static void swap(long[] addresses, int i, int j) {
+        long high = addresses[2 * i];
+        long low = addresses[2 * i + 1];
+        addresses[2 * i] = addresses[2 * j];
+        addresses[2 * i + 1] = addresses[2 * j + 1];
+        addresses[2 * j] = high;
+        addresses[2 * j + 1] = low;
+    }
+
+    private static int group(long high, long low, int index) {
+        return (int) ((index < 4 ? high : low) >>> (48 - 16 * (index & 3))) & 0xFFFF;
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+}
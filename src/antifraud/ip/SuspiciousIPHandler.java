@@ -0,0 +1,8 @@
+package antifraud.ip;
+
+import java.io.IOException;
+
+@FunctionalInterface
+public interface SuspiciousIPHandler {
+    void handle(long id, String ip) throws IOException;
+}
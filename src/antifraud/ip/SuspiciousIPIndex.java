@@ -0,0 +1,207 @@
+package antifraud.ip;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Sorted, copy-on-write arrays of suspicious addresses. IPv4 keys are stored with the sign bit flipped,
+ * so signed ordering of the array matches unsigned ordering of the addresses. IPv6 addresses are kept apart as
+ * consecutive high and low words, so IPv4 lookups never touch them; IPv4-mapped IPv6 addresses go to the IPv4 keys.
+ * Reads never lock.
+ */
+@Component
+class SuspiciousIPIndex {
+    private static final int[] EMPTY = new int[0];
+    private static final long[] EMPTY_IPV6 = new long[0];
+
+    private volatile int[] keys = EMPTY;
+    private volatile long[] ipv6Keys = EMPTY_IPV6;
+
+    boolean contains(int address) {
+        return Arrays.binarySearch(keys, toKey(address)) >= 0;
+    }
+
+    boolean containsAnyInPrefix(int network, int prefixLength) {
+        if (prefixLength < 0 || prefixLength > 32) {
+            throw new IllegalArgumentException(String.format("Invalid prefix length %d", prefixLength));
+        }
+        int mask = prefixLength == 0 ? 0 : -1 << (32 - prefixLength);
+        int first = toKey(network & mask);
+        int last = toKey(network | ~mask);
+        int[] snapshot = keys;
+        int position = Arrays.binarySearch(snapshot, first);
+        if (position >= 0) {
+            return true;
+        }
+        int insertion = -position - 1;
+        return insertion < snapshot.length && snapshot[insertion] <= last;
+    }
+
+    boolean contains(long high, long low) {
+        if (IPv6.isIPv4Mapped(high, low)) {
+            return contains((int) low);
+        }
+        long[] snapshot = ipv6Keys;
+        return IPv6.binarySearch(snapshot, snapshot.length / 2, high, low) >= 0;
+    }
+
+    boolean containsAnyInPrefix(long high, long low, int prefixLength) {
+        if (prefixLength < 0 || prefixLength > 128) {
+            throw new IllegalArgumentException(String.format("Invalid prefix length %d", prefixLength));
+        }
+        long highMask = prefixLength >= 64 ? -1 : prefixLength == 0 ? 0 : -1L << (64 - prefixLength);
+        long lowMask = prefixLength <= 64 ? 0 : -1L << (128 - prefixLength);
+        if (prefixLength >= 96 && IPv6.isIPv4Mapped(high, low)) {
+            return containsAnyInPrefix((int) low, prefixLength - 96);
+        }
+        if ((high & highMask) == 0 && ((IPv6.IPV4_MAPPED ^ low) & lowMask) == 0 && keys.length > 0) {
+            return true; // the prefix covers every IPv4-mapped address
+        }
+        long[] snapshot = ipv6Keys;
+        int size = snapshot.length / 2;
+        int position = IPv6.binarySearch(snapshot, size, high & highMask, low & lowMask);
+        if (position >= 0) {
+            return true;
+        }
+        int insertion = -position - 1;
+        return insertion < size
+                && IPv6.compare(snapshot[2 * insertion], snapshot[2 * insertion + 1], high | ~highMask, low | ~lowMask) <= 0;
+    }
+
+    int size() {
+        return keys.length + ipv6Keys.length / 2;
+    }
+
+    synchronized void add(int address) {
+        int[] snapshot = keys;
+        int key = toKey(address);
+        int position = Arrays.binarySearch(snapshot, key);
+        if (position >= 0) {
+            return;
+        }
+        int insertion = -position - 1;
+        int[] updated = new int[snapshot.length + 1];
+        System.arraycopy(snapshot, 0, updated, 0, insertion);
+        updated[insertion] = key;
+        System.arraycopy(snapshot, insertion, updated, insertion + 1, snapshot.length - insertion);
+        keys = updated;
+    }
+
+    synchronized void addAll(int[] addresses) {
+        int[] added = new int[addresses.length];
+        for (int i = 0; i < addresses.length; i++) {
+            added[i] = toKey(addresses[i]);
+        }
+        Arrays.sort(added);
+        int[] snapshot = keys;
+        int[] merged = new int[snapshot.length + added.length];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < snapshot.length || j < added.length) {
+            int key = j == added.length || (i < snapshot.length && snapshot[i] <= added[j]) ? snapshot[i++] : added[j++];
+            if (size == 0 || merged[size - 1] != key) {
+                merged[size++] = key;
+            }
+        }
+        keys = size == merged.length ? merged : Arrays.copyOf(merged, size);
+    }
+
+    synchronized void remove(int address) {
+        int[] snapshot = keys;
+        int position = Arrays.binarySearch(snapshot, toKey(address));
+        if (position < 0) {
+            return;
+        }
+        int[] updated = new int[snapshot.length - 1];
+        System.arraycopy(snapshot, 0, updated, 0, position);
+        System.arraycopy(snapshot, position + 1, updated, position, updated.length - position);
+        keys = updated;
+    }
+
+    synchronized void replaceAll(int[] addresses) {
+        int[] updated = new int[addresses.length];
+        for (int i = 0; i < addresses.length; i++) {
+            updated[i] = toKey(addresses[i]);
+        }
+        Arrays.sort(updated);
+        int unique = 0;
+        for (int i = 0; i < updated.length; i++) {
+            if (unique == 0 || updated[unique - 1] != updated[i]) {
+                updated[unique++] = updated[i];
+            }
+        }
+        keys = unique == updated.length ? updated : Arrays.copyOf(updated, unique);
+    }
+
+    synchronized void add(long high, long low) {
+        if (IPv6.isIPv4Mapped(high, low)) {
+            add((int) low);
+            return;
+        }
+        long[] snapshot = ipv6Keys;
+        int position = IPv6.binarySearch(snapshot, snapshot.length / 2, high, low);
+        if (position >= 0) {
+            return;
+        }
+        int insertion = -position - 1;
+        long[] updated = new long[snapshot.length + 2];
+        System.arraycopy(snapshot, 0, updated, 0, 2 * insertion);
+        updated[2 * insertion] = high;
+        updated[2 * insertion + 1] = low;
+        System.arraycopy(snapshot, 2 * insertion, updated, 2 * insertion + 2, snapshot.length - 2 * insertion);
+        ipv6Keys = updated;
+    }
+
+    /**
+     * Merges IPv6 addresses given as consecutive high and low words, none of them IPv4-mapped.
+     */
+    synchronized void addAll(long[] addresses) {
+        long[] snapshot = ipv6Keys;
+        long[] merged = Arrays.copyOf(snapshot, snapshot.length + addresses.length);
+        System.arraycopy(addresses, 0, merged, snapshot.length, addresses.length);
+        ipv6Keys = sortedUnique(merged);
+    }
+
+    synchronized void remove(long high, long low) {
+        if (IPv6.isIPv4Mapped(high, low)) {
+            remove((int) low);
+            return;
+        }
+        long[] snapshot = ipv6Keys;
+        int position = IPv6.binarySearch(snapshot, snapshot.length / 2, high, low);
+        if (position < 0) {
+            return;
+        }
+        long[] updated = new long[snapshot.length - 2];
+        System.arraycopy(snapshot, 0, updated, 0, 2 * position);
+        System.arraycopy(snapshot, 2 * position + 2, updated, 2 * position, updated.length - 2 * position);
+        ipv6Keys = updated;
+    }
+
+    /**
+     * Replaces the IPv6 addresses, given as consecutive high and low words, none of them IPv4-mapped.
+     */
+    synchronized void replaceAll(long[] addresses) {
+        ipv6Keys = sortedUnique(addresses.clone());
+    }
+
+    private static long[] sortedUnique(long[] addresses) {
+        int size = addresses.length / 2;
+        IPv6.sort(addresses, size);
+        int unique = 0;
+        for (int i = 0; i < size; i++) {
+            if (unique == 0 || addresses[2 * unique - 2] != addresses[2 * i] || addresses[2 * unique - 1] != addresses[2 * i + 1]) {
+                addresses[2 * unique] = addresses[2 * i];
+                addresses[2 * unique + 1] = addresses[2 * i + 1];
+                unique++;
+            }
+        }
+        return unique == size ? addresses : Arrays.copyOf(addresses, 2 * unique);
+    }
+
+    private static int toKey(int address) {
+        return address ^ Integer.MIN_VALUE;
+    }
+}
@@ -0,0 +1,13 @@
+package antifraud.ip.dto;
+
+public class IPDeletionResponse {
+    private final String status;
+
+    public IPDeletionResponse(String ip) {
+        this.status = String.format("IP %ssuccessfully removed!", ip);
+    }
+
+    public String getStatus() {
+        return status;
+    }
+}
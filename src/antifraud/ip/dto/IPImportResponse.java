@@ -0,0 +1,25 @@
+package antifraud.ip.dto;
+
+public class IPImportResponse {
+    private final int added;
+    private final int duplicates;
+    private final int invalid;
+
+    public IPImportResponse(int added, int duplicates, int invalid) {
+        this.added = added;
+        this.duplicates = duplicates;
+        this.invalid = invalid;
+    }
+
+    public int getAdded() {
+        return added;
+    }
+
+    public int getDuplicates() {
+        return duplicates;
+    }
+
+    public int getInvalid() {
+        return invalid;
+    }
+}
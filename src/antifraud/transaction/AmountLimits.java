@@ -0,0 +1,135 @@
+package antifraud.transaction;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Amount limits per merchant, learned from the outcomes of manual reviews. Each outcome moves one limit a fixed
+ * fraction of the way towards the reviewed amount, so an update is O(1) whatever the feedback history, and scoring
+ * reads a merchant's limits with one lock-free map lookup. Changed limits are written to the database every
+ * {@code persist-interval} and loaded again at startup.
+ */
+@Component
+class AmountLimits {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AmountLimits.class);
+    private static final String MERGE = "MERGE INTO merchant_limit (merchant, allowed_max, manual_max) KEY (merchant) VALUES (?, ?, ?)";
+
+    static final class Limits {
+        final long allowedMax;
+        final long manualMax;
+
+        Limits(long allowedMax, long manualMax) {
+            this.allowedMax = allowedMax;
+            this.manualMax = manualMax;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Limits> limits = new ConcurrentHashMap<>();
+    private final Set<String> changed = ConcurrentHashMap.newKeySet();
+    private final JdbcTemplate jdbcTemplate;
+    private final double learningRate;
+    private final long persistIntervalMillis;
+    private ScheduledExecutorService persister;
+
+    public AmountLimits(JdbcTemplate jdbcTemplate,
+                        @Value("${antifraud.limits.learning-rate:0.2}") double learningRate,
+                        @Value("${antifraud.limits.persist-interval:PT5S}") Duration persistInterval) {
+        if (learningRate <= 0 || learningRate > 1) {
+            throw new IllegalArgumentException("antifraud.limits.learning-rate must be in (0, 1]");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.learningRate = learningRate;
+        this.persistIntervalMillis = persistInterval.toMillis();
+    }
+
+    @PostConstruct
+    void start() {
+        jdbcTemplate.query("SELECT merchant, allowed_max, manual_max FROM merchant_limit", row -> {
+            limits.put(row.getString(1), new Limits(row.getLong(2), row.getLong(3)));
+        });
+        persister = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("amount-limits-writer").daemon().factory());
+        persister.scheduleWithFixedDelay(this::persist, persistIntervalMillis, persistIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        persister.shutdown();
+        persister.awaitTermination(10, TimeUnit.SECONDS);
+        persist();
+    }
+
+    /**
+     * Returns the learned limits, or null for a merchant without feedback yet.
+     */
+    Limits get(String merchant) {
+        return merchant == null ? null : limits.get(merchant);
+    }
+
+    /**
+     * Learns from the final outcome of a transaction of {@code amount} that was sent to manual review. An allowed
+     * transaction above {@code allowedMax} raises it towards the amount; a prohibited one at or below
+     * {@code manualMax} lowers that towards the amount, and {@code allowedMax} with it if needed. Merchants without
+     * feedback start from {@code defaults}.
+     */
+    Limits learn(String merchant, long amount, TransactionStatus outcome, Limits defaults) {
+        Limits learned = limits.compute(merchant, (key, current) -> {
+            Limits from = current == null ? defaults : current;
+            long allowedMax = from.allowedMax;
+            long manualMax = from.manualMax;
+            if (outcome == TransactionStatus.ALLOWED && amount > allowedMax) {
+                allowedMax += step(amount - allowedMax);
+                manualMax = Math.max(manualMax, allowedMax);
+            } else if (outcome == TransactionStatus.PROHIBITED && amount <= manualMax) {
+                manualMax -= step(manualMax - amount + 1); // until the amount itself is prohibited
+                allowedMax = Math.min(allowedMax, manualMax);
+            }
+            return allowedMax == from.allowedMax && manualMax == from.manualMax ? current : new Limits(allowedMax, manualMax);
+        });
+        if (learned == null) {
+            return defaults;
+        }
+        changed.add(merchant);
+        return learned;
+    }
+
+    private long step(long distance) {
+        return (long) Math.ceil(learningRate * distance); // at least 1, so feedback always moves the limit
+    }
+
+    void persist() {
+        List<Object[]> rows = new ArrayList<>();
+        for (Iterator<String> merchants = changed.iterator(); merchants.hasNext(); ) {
+            String merchant = merchants.next();
+            merchants.remove(); // a change after this point marks the merchant again
+            Limits current = limits.get(merchant);
+            rows.add(new Object[]{merchant, current.allowedMax, current.manualMax});
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            jdbcTemplate.batchUpdate(MERGE, rows);
+        } catch (DataAccessException e) {
+            LOGGER.warn("Could not write the limits of {} merchants, retrying later", rows.size(), e);
+            for (Object[] row : rows) {
+                changed.add((String) row[0]);
+            }
+        }
+    }
+}
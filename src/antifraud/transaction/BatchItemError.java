@@ -0,0 +1,19 @@
+package antifraud.transaction;
+
+public class BatchItemError {
+    private final int index;
+    private final String error;
+
+    public BatchItemError(int index, String error) {
+        this.index = index;
+        this.error = error;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
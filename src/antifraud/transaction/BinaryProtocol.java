@@ -0,0 +1,46 @@
+package antifraud.transaction;
+
+/**
+ * Frames of the binary scoring channel, all big-endian. A request frame is an {@code int} length, counting the bytes
+ * after it, then a type byte and the payload:
+ * <ul>
+ *     <li>{@link #AUTHENTICATE}: {@code short} length and UTF-8 bytes of the username, then the same for the password.
+ *     It must be the first frame of a connection and the only one. The reply is one byte, {@link #AUTHENTICATED},
+ *     {@link #BAD_CREDENTIALS} or {@link #FORBIDDEN}, and the server closes the connection after a failure.</li>
+ *     <li>{@link #TRANSACTION}: {@code long} correlation id, {@code long} amount, {@code int} IPv4 address,
+ *     {@code long} card number as packed by {@link antifraud.card.CardNumbers}, a region byte (the {@link Region}
+ *     ordinal, or {@link #NO_REGION}) and a flags byte ({@link #HAS_IP}, {@link #HAS_CARD}). The reply is the
+ *     correlation id and one status byte, the {@link TransactionStatus} ordinal or {@link #INVALID}.</li>
+ * </ul>
+ * Clients may pipeline transactions without waiting for replies, which come back in request order. Any other frame,
+ * or a frame longer than {@link #MAX_FRAME_LENGTH}, closes the connection.
+ */
+public final class BinaryProtocol {
+    public static final byte AUTHENTICATE = 1;
+    public static final byte TRANSACTION = 2;
+
+    public static final byte AUTHENTICATED = 0;
+    public static final byte BAD_CREDENTIALS = 1;
+    public static final byte FORBIDDEN = 2;
+
+    public static final byte NO_REGION = -1;
+    public static final byte HAS_IP = 1;
+    public static final byte HAS_CARD = 2;
+    public static final byte INVALID = -1; // the transaction failed validation, as a 400 would say over HTTP
+
+    public static final int TRANSACTION_LENGTH = 1 + 8 + 8 + 4 + 8 + 1 + 1;
+    public static final int REPLY_LENGTH = 8 + 1;
+    public static final int MAX_FRAME_LENGTH = 1024;
+
+    private static final TransactionStatus[] STATUSES = TransactionStatus.values();
+
+    private BinaryProtocol() {
+    }
+
+    /**
+     * Returns the status for a reply byte, or null for {@link #INVALID}.
+     */
+    public static TransactionStatus status(byte code) {
+        return code == INVALID ? null : STATUSES[code];
+    }
+}
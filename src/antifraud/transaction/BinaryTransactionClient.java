@@ -0,0 +1,147 @@
+package antifraud.transaction;
+
+import antifraud.card.CardNumbers;
+import antifraud.ip.IPv4;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Blocking client for {@link BinaryTransactionServer}. Transactions are buffered by {@link #send} and go out when the
+ * buffer fills or on {@link #flush}, so a caller pipelines by sending a batch and then receiving as many replies.
+ * Keep batches to a few thousand: the server stops reading a connection whose replies are not being read, so a
+ * much larger batch can leave both sides waiting to write. Not thread-safe; open one client per thread.
+ */
+public class BinaryTransactionClient implements AutoCloseable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final SocketChannel channel;
+    private final ByteBuffer out = ByteBuffer.allocate(BUFFER_SIZE);
+    private final ByteBuffer in = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private BinaryTransactionClient(SocketChannel channel) {
+        this.channel = channel;
+        in.flip(); // empty, in read mode
+    }
+
+    /**
+     * Connects and authenticates as a merchant. Throws an {@link IOException} if the server rejects the credentials.
+     */
+    public static BinaryTransactionClient connect(String host, int port, String username, String password) throws IOException {
+        SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port));
+        BinaryTransactionClient client = new BinaryTransactionClient(channel);
+        try {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            client.authenticate(username, password);
+            return client;
+        } catch (IOException | RuntimeException e) {
+            client.close();
+            throw e;
+        }
+    }
+
+    private void authenticate(String username, String password) throws IOException {
+        byte[] user = username.getBytes(StandardCharsets.UTF_8);
+        byte[] secret = password.getBytes(StandardCharsets.UTF_8);
+        out.putInt(1 + 2 + user.length + 2 + secret.length)
+                .put(BinaryProtocol.AUTHENTICATE)
+                .putShort((short) user.length).put(user)
+                .putShort((short) secret.length).put(secret);
+        flush();
+        fill(1);
+        byte reply = in.get();
+        if (reply != BinaryProtocol.AUTHENTICATED) {
+            throw new IOException(reply == BinaryProtocol.FORBIDDEN
+                    ? String.format("User %s is not a merchant", username)
+                    : String.format("Wrong credentials for user %s", username));
+        }
+    }
+
+    /**
+     * Buffers a transaction. A null ip, number or region is left out, as it would be from the JSON request.
+     */
+    public void send(long correlationId, long amount, String ip, String number, Region region) throws IOException {
+        if (out.remaining() < Integer.BYTES + BinaryProtocol.TRANSACTION_LENGTH) {
+            flush();
+        }
+        byte flags = 0;
+        if (ip != null) {
+            flags |= BinaryProtocol.HAS_IP;
+        }
+        if (number != null) {
+            flags |= BinaryProtocol.HAS_CARD;
+        }
+        out.putInt(BinaryProtocol.TRANSACTION_LENGTH)
+                .put(BinaryProtocol.TRANSACTION)
+                .putLong(correlationId)
+                .putLong(amount)
+                .putInt(ip == null ? 0 : IPv4.parse(ip))
+                .putLong(number == null ? 0 : CardNumbers.pack(number)) // a malformed number goes out as INVALID and is rejected
+                .put(region == null ? BinaryProtocol.NO_REGION : (byte) region.ordinal())
+                .put(flags);
+    }
+
+    public void flush() throws IOException {
+        out.flip();
+        while (out.hasRemaining()) {
+            channel.write(out);
+        }
+        out.clear();
+    }
+
+    /**
+     * Flushes buffered transactions and waits for the next reply.
+     */
+    public Reply receive() throws IOException {
+        if (out.position() > 0) {
+            flush();
+        }
+        fill(BinaryProtocol.REPLY_LENGTH);
+        long correlationId = in.getLong();
+        return new Reply(correlationId, BinaryProtocol.status(in.get()));
+    }
+
+    private void fill(int bytes) throws IOException {
+        if (in.remaining() >= bytes) {
+            return;
+        }
+        in.compact();
+        while (in.position() < bytes) {
+            if (channel.read(in) < 0) {
+                throw new EOFException("Connection closed by the server");
+            }
+        }
+        in.flip();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public static final class Reply {
+        private final long correlationId;
+        private final TransactionStatus status;
+
+        private Reply(long correlationId, TransactionStatus status) {
+            this.correlationId = correlationId;
+            this.status = status;
+        }
+
+        public long getCorrelationId() {
+            return correlationId;
+        }
+
+        /**
+         * Returns the decision, or null if the transaction failed validation.
+         */
+        public TransactionStatus getStatus() {
+            return status;
+        }
+    }
+}
@@ -0,0 +1,492 @@
+package antifraud.transaction;
+
+import antifraud.auth.AccessTokenService;
+import antifraud.auth.Role;
+import antifraud.card.CardNumbers;
+import antifraud.ip.IPv4;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Opt-in scoring server for internal clients speaking {@link BinaryProtocol} over plain TCP, on its own port. An
+ * acceptor thread hands connections round-robin to {@code io-threads} selector loops, which parse frames, score
+ * transactions and write replies without blocking; a connection authenticates once, on a small pool because password
+ * checks and user lookups block. A connection whose replies are not being read stops being read itself.
+ * <p>
+ * Until it authenticates a connection holds only a buffer for one frame, and must authenticate within
+ * {@code authentication-timeout}; beyond {@code max-connections} new ones are closed on accept. An authenticated
+ * connection is closed after {@code idle-timeout} without traffic, and as soon as its merchant is deleted, locked or
+ * changes role.
+ */
+@Component
+public class BinaryTransactionServer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(BinaryTransactionServer.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int FRAME_BUFFER_SIZE = Integer.BYTES + BinaryProtocol.MAX_FRAME_LENGTH;
+    private static final long MAX_SWEEP_INTERVAL_MILLIS = 1000;
+    private static final Region[] REGIONS = Region.values();
+    private static final String MERCHANT_AUTHORITY = "ROLE_" + Role.MERCHANT.name();
+
+    private final TransactionValidator transactionValidator;
+    private final TransactionHistory transactionHistory;
+    private final Validator validator;
+    private final AuthenticationProvider authenticationProvider;
+    private final AccessTokenService accessTokenService;
+    private final boolean enabled;
+    private final int port;
+    private final int ioThreads;
+    private final int authenticationThreads;
+    private final int maxConnections;
+    private final long authenticationTimeoutNanos;
+    private final long idleTimeoutNanos;
+    private final long sweepIntervalMillis;
+    private final AtomicInteger connections = new AtomicInteger();
+    private ServerSocketChannel serverChannel;
+    private Thread acceptor;
+    private IOLoop[] loops;
+    private ExecutorService authenticator;
+    private volatile boolean running;
+    private int boundPort = -1;
+
+    public BinaryTransactionServer(TransactionValidator transactionValidator, TransactionHistory transactionHistory,
+                                   Validator validator, AuthenticationProvider authenticationProvider,
+                                   AccessTokenService accessTokenService,
+                                   @Value("${antifraud.binary.enabled:false}") boolean enabled,
+                                   @Value("${antifraud.binary.port:28854}") int port,
+                                   @Value("${antifraud.binary.io-threads:0}") int ioThreads,
+                                   @Value("${antifraud.binary.authentication-threads:4}") int authenticationThreads,
+                                   @Value("${antifraud.binary.max-connections:1024}") int maxConnections,
+                                   @Value("${antifraud.binary.authentication-timeout:PT10S}") Duration authenticationTimeout,
+                                   @Value("${antifraud.binary.idle-timeout:PT5M}") Duration idleTimeout) {
+        this.transactionValidator = transactionValidator;
+        this.transactionHistory = transactionHistory;
+        this.validator = validator;
+        this.authenticationProvider = authenticationProvider;
+        this.accessTokenService = accessTokenService;
+        this.enabled = enabled;
+        this.port = port;
+        this.ioThreads = ioThreads > 0 ? ioThreads : Runtime.getRuntime().availableProcessors();
+        this.authenticationThreads = authenticationThreads;
+        this.maxConnections = maxConnections;
+        this.authenticationTimeoutNanos = authenticationTimeout.toNanos();
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.sweepIntervalMillis = Math.max(1, Math.min(MAX_SWEEP_INTERVAL_MILLIS,
+                Math.min(authenticationTimeout.toMillis(), idleTimeout.toMillis())));
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        boundPort = ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+        authenticator = Executors.newFixedThreadPool(authenticationThreads,
+                Thread.ofPlatform().name("binary-authentication-", 0).daemon().factory());
+        loops = new IOLoop[ioThreads];
+        for (int i = 0; i < ioThreads; i++) {
+            loops[i] = new IOLoop("binary-io-" + i);
+        }
+        acceptor = Thread.ofPlatform().name("binary-acceptor").daemon().start(this::accept);
+        accessTokenService.addRevocationListener(this::closeConnections);
+    }
+
+    @PreDestroy
+    void stop() throws IOException, InterruptedException {
+        if (serverChannel == null) {
+            return;
+        }
+        running = false;
+        serverChannel.close(); // ends the blocking accept
+        acceptor.join();
+        for (IOLoop loop : loops) {
+            loop.selector.wakeup();
+            loop.thread.join();
+        }
+        authenticator.shutdownNow();
+        authenticator.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Returns the bound port, which differs from the configured one when that is 0, or -1 when the server is off.
+     */
+    public int getPort() {
+        return boundPort;
+    }
+
+    private void accept() {
+        int next = 0;
+        while (running) {
+            try {
+                SocketChannel channel = serverChannel.accept();
+                if (connections.incrementAndGet() > maxConnections) {
+                    connections.decrementAndGet();
+                    LOGGER.debug("Refusing a connection over the limit of {}", maxConnections);
+                    closeQuietly(channel);
+                    continue;
+                }
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                IOLoop loop = loops[next];
+                next = (next + 1) % loops.length;
+                loop.execute(() -> loop.register(channel));
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                LOGGER.warn("Could not accept a connection", e);
+            }
+        }
+    }
+
+    /**
+     * Closes every connection of the user, whose authentication was just revoked.
+     */
+    private void closeConnections(String username) {
+        if (!running) {
+            return;
+        }
+        for (IOLoop loop : loops) {
+            loop.execute(() -> loop.closeConnections(username));
+        }
+    }
+
+    private final class IOLoop implements Runnable {
+        private final Selector selector;
+        private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        private final Thread thread;
+
+        private IOLoop(String name) throws IOException {
+            this.selector = Selector.open();
+            this.thread = Thread.ofPlatform().name(name).daemon().start(this);
+        }
+
+        /**
+         * Runs the task on this loop's thread, which owns every connection registered with it.
+         */
+        void execute(Runnable task) {
+            tasks.add(task);
+            selector.wakeup();
+        }
+
+        void register(SocketChannel channel) {
+            try {
+                Connection connection = new Connection(this, channel);
+                connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            } catch (IOException e) {
+                connections.decrementAndGet();
+                closeQuietly(channel);
+            }
+        }
+
+        void closeConnections(String username) {
+            for (SelectionKey key : selector.keys()) {
+                Connection connection = (Connection) key.attachment();
+                if (username.equals(connection.merchant)) {
+                    connection.close();
+                }
+            }
+        }
+
+        /**
+         * Closes connections that did not authenticate in time, or have been idle for too long.
+         */
+        private void closeExpired(long now) {
+            for (SelectionKey key : selector.keys()) {
+                Connection connection = (Connection) key.attachment();
+                if (now - connection.deadline >= 0) {
+                    connection.close();
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            long nextSweep = System.nanoTime();
+            while (running) {
+                try {
+                    selector.select(sweepIntervalMillis);
+                } catch (IOException e) {
+                    LOGGER.error("Selector failed, closing its connections", e);
+                    break;
+                }
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    Connection connection = (Connection) key.attachment();
+                    try {
+                        if (key.isValid() && key.isReadable()) {
+                            connection.read();
+                        } else if (key.isValid() && key.isWritable()) {
+                            connection.serve();
+                        }
+                    } catch (IOException e) {
+                        LOGGER.debug("Closing connection after I/O failure", e);
+                        connection.close();
+                    }
+                }
+                long now = System.nanoTime();
+                if (now - nextSweep >= 0) {
+                    closeExpired(now);
+                    nextSweep = now + TimeUnit.MILLISECONDS.toNanos(sweepIntervalMillis);
+                }
+            }
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key.channel());
+            }
+            closeQuietly(selector);
+        }
+    }
+
+    private final class Connection {
+        private final IOLoop loop;
+        private final SocketChannel channel;
+        private ByteBuffer in = ByteBuffer.allocate(FRAME_BUFFER_SIZE); // grows to BUFFER_SIZE once authenticated
+        private ByteBuffer out; // allocated for the authentication reply
+        private SelectionKey key;
+        private String merchant; // set once authenticated
+        private long authenticationStartedAt;
+        private long deadline; // System.nanoTime() by which to authenticate, then to send or take traffic again
+        private boolean authenticating;
+        private boolean closing;
+        private boolean closed;
+
+        private Connection(IOLoop loop, SocketChannel channel) {
+            this.loop = loop;
+            this.channel = channel;
+            this.deadline = System.nanoTime() + authenticationTimeoutNanos;
+        }
+
+        void read() throws IOException {
+            if (channel.read(in) < 0) {
+                close();
+                return;
+            }
+            serve();
+        }
+
+        /**
+         * Writes pending replies, then handles buffered frames and writes their replies for as long as the socket
+         * takes them. Reads more only once every reply is out.
+         */
+        void serve() throws IOException {
+            if (merchant != null) {
+                deadline = System.nanoTime() + idleTimeoutNanos;
+            }
+            boolean pending = flush();
+            while (!pending) {
+                in.flip();
+                int buffered = in.remaining();
+                handleFrames();
+                boolean progressed = in.remaining() != buffered;
+                in.compact();
+                pending = flush();
+                if (!progressed) { // the rest is an incomplete frame, or waits for authentication
+                    break;
+                }
+            }
+            if (closing && !pending) {
+                close();
+            } else if (key.isValid()) {
+                key.interestOps(pending ? SelectionKey.OP_WRITE : authenticating || closing ? 0 : SelectionKey.OP_READ);
+            }
+        }
+
+        private boolean flush() throws IOException {
+            if (out == null) {
+                return false;
+            }
+            out.flip();
+            channel.write(out);
+            out.compact();
+            return out.position() > 0;
+        }
+
+        private void handleFrames() {
+            while (!authenticating && !closing && in.remaining() >= Integer.BYTES
+                    && (out == null || out.remaining() >= BinaryProtocol.REPLY_LENGTH)) {
+                int start = in.position();
+                int length = in.getInt(start);
+                if (length < 1 || length > BinaryProtocol.MAX_FRAME_LENGTH) {
+                    closing = true;
+                    return;
+                }
+                if (in.remaining() < Integer.BYTES + length) {
+                    return;
+                }
+                int frame = start + Integer.BYTES;
+                in.position(frame + length);
+                byte type = in.get(frame);
+                if (type == BinaryProtocol.TRANSACTION && merchant != null && length == BinaryProtocol.TRANSACTION_LENGTH) {
+                    score(frame + 1);
+                } else if (type == BinaryProtocol.AUTHENTICATE && merchant == null) {
+                    authenticate(frame + 1, frame + length);
+                } else {
+                    closing = true;
+                }
+            }
+        }
+
+        private void score(int offset) {
+            long correlationId = in.getLong(offset);
+            long amount = in.getLong(offset + 8);
+            int ip = in.getInt(offset + 16);
+            long card = in.getLong(offset + 20);
+            byte region = in.get(offset + 28);
+            byte flags = in.get(offset + 29);
+            out.putLong(correlationId);
+            if (region != BinaryProtocol.NO_REGION && (region < 0 || region >= REGIONS.length)) {
+                out.put(BinaryProtocol.INVALID);
+                return;
+            }
+            Transaction transaction = new Transaction(amount,
+                    (flags & BinaryProtocol.HAS_IP) != 0 ? IPv4.format(ip) : null,
+                    (flags & BinaryProtocol.HAS_CARD) != 0 ? CardNumbers.format(card) : null,
+                    region == BinaryProtocol.NO_REGION ? null : REGIONS[region]);
+            if (!validator.validate(transaction).isEmpty()) {
+                out.put(BinaryProtocol.INVALID);
+                return;
+            }
+            TransactionStatus result = transactionValidator.validate(merchant, transaction);
+            transactionHistory.recordWithoutWaiting(merchant, transaction, result);
+            out.put((byte) result.ordinal());
+        }
+
+        private void authenticate(int from, int to) {
+            int usernameLength = stringLength(from, to);
+            int passwordOffset = from + 2 + usernameLength;
+            int passwordLength = usernameLength < 0 ? -1 : stringLength(passwordOffset, to);
+            if (passwordLength < 0) {
+                closing = true;
+                return;
+            }
+            String username = string(from + 2, usernameLength);
+            String password = string(passwordOffset + 2, passwordLength);
+            authenticating = true;
+            authenticationStartedAt = System.currentTimeMillis();
+            authenticator.execute(() -> {
+                byte reply = checkCredentials(username, password);
+                loop.execute(() -> authenticated(username, reply));
+            });
+        }
+
+        /**
+         * Returns the byte length of the string at {@code offset}, or -1 if it does not end by {@code to}.
+         */
+        private int stringLength(int offset, int to) {
+            if (offset + 2 > to) {
+                return -1;
+            }
+            int length = in.getShort(offset);
+            return length < 0 || offset + 2 + length > to ? -1 : length;
+        }
+
+        private String string(int offset, int length) {
+            byte[] bytes = new byte[length];
+            in.get(offset, bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Takes the result of the credential check. A revocation since the check started may have been decided on
+         * the user as it was before, so it fails the authentication; one after this point closes the connection.
+         */
+        private void authenticated(String username, byte reply) {
+            if (closed) {
+                return;
+            }
+            authenticating = false;
+            if (reply == BinaryProtocol.AUTHENTICATED && accessTokenService.isRevoked(username, authenticationStartedAt)) {
+                reply = BinaryProtocol.BAD_CREDENTIALS;
+            }
+            if (reply == BinaryProtocol.AUTHENTICATED) {
+                merchant = username;
+                in.flip();
+                in = ByteBuffer.allocate(BUFFER_SIZE).put(in); // keeps frames pipelined after the authentication
+                out = ByteBuffer.allocate(BUFFER_SIZE);
+            } else {
+                closing = true;
+                out = ByteBuffer.allocate(1);
+            }
+            out.put(reply);
+            try {
+                serve();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            connections.decrementAndGet();
+            key.cancel();
+            closeQuietly(channel);
+        }
+    }
+
+    private byte checkCredentials(String username, String password) {
+        try {
+            Authentication authentication = authenticationProvider.authenticate(
+                    UsernamePasswordAuthenticationToken.unauthenticated(username, password));
+            if (authentication == null) {
+                return BinaryProtocol.BAD_CREDENTIALS;
+            }
+            for (GrantedAuthority authority : authentication.getAuthorities()) {
+                if (MERCHANT_AUTHORITY.equals(authority.getAuthority())) {
+                    return BinaryProtocol.AUTHENTICATED;
+                }
+            }
+            return BinaryProtocol.FORBIDDEN;
+        } catch (AuthenticationException e) {
+            return BinaryProtocol.BAD_CREDENTIALS;
+        } catch (RuntimeException e) {
+            LOGGER.warn("Authentication of {} failed", username, e);
+            return BinaryProtocol.BAD_CREDENTIALS;
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception ignored) {
+        }
+    }
+}
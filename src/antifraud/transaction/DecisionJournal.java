@@ -0,0 +1,400 @@
+package antifraud.transaction;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Append-only binary journal of scoring decisions, for audit and replay. Records go straight into a memory-mapped
+ * segment file, so an append is a few stores into the page cache under a short lock and allocates nothing. A full
+ * segment is closed and the next one mapped; its file is named after the journal offset of its first byte, and
+ * closed segments older than {@code retention} are deleted. {@link DecisionJournalReader} reads the files back.
+ * <p>
+ * Appends run on scoring threads, including the reactive event loops and the binary channel's selector loops, so
+ * the slow file work happens on the maintenance thread: it creates and maps the next segment ahead of time as a
+ * {@code .spare} file, which readers ignore, and forces and purges closed segments. Rolling only renames the spare.
+ * <p>
+ * Each record is laid out as below, big-endian, and padded to a multiple of 4 bytes. The length is written last with
+ * a release store, and read with an acquire load, so a reader in this JVM following the live journal never sees half
+ * a record; the padding keeps the length aligned, as those accesses require.
+ * <pre>
+ *  0 int   record length, 0 past the last record of a segment
+ *  4 long  timestamp, epoch millis
+ * 12 long  rule set version
+ * 20 long  amount
+ * 28 long  card number packed by {@link antifraud.card.CardNumbers}, or INVALID
+ * 36 int   IPv4 address, valid if flags has {@link #HAS_IP}
+ * 40 byte  {@link Region} ordinal, or -1
+ * 41 byte  {@link TransactionStatus} ordinal
+ * 42 byte  flags
+ * 43 byte  unused
+ * 44 short merchant length in bytes, or -1 for none
+ * 46       merchant, UTF-8
+ * </pre>
+ */
+@Component
+class DecisionJournal {
+    private static final Logger LOGGER = LoggerFactory.getLogger(DecisionJournal.class);
+
+    static final String SEGMENT_SUFFIX = ".journal";
+    static final String SPARE_SUFFIX = ".spare";
+    static final int LENGTH = 0;
+    static final int TIMESTAMP = 4;
+    static final int RULE_SET_VERSION = 12;
+    static final int AMOUNT = 20;
+    static final int CARD = 28;
+    static final int IP = 36;
+    static final int REGION = 40;
+    static final int STATUS = 41;
+    static final int FLAGS = 42;
+    static final int MERCHANT_LENGTH = 44;
+    static final int MERCHANT = 46;
+    static final byte HAS_IP = 1;
+
+    private static final int MAX_MERCHANT_LENGTH = 1024; // usernames are far shorter, this only bounds a record
+    static final VarHandle RECORD_LENGTH = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+    enum FsyncPolicy {
+        NEVER, // the OS writes pages back when it likes; a crash of the machine, not the process, loses recent records
+        INTERVAL, // forced every fsync-interval by a background thread
+        ALWAYS // forced after every record: a disk flush per decision, blocking the event and selector loops that score
+    }
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalMillis;
+    private final long retentionMillis;
+    private final ReentrantLock lock = new ReentrantLock(); // held for a few stores, or a rename when rolling
+    private volatile MappedByteBuffer segment;
+    private MappedByteBuffer spare; // the next segment, mapped ahead by the maintenance thread
+    private long segmentBase;
+    private int position;
+    private ScheduledExecutorService maintenance;
+
+    public DecisionJournal(@Value("${antifraud.journal.enabled:false}") boolean enabled,
+                           @Value("${antifraud.journal.directory:journal}") String directory,
+                           @Value("${antifraud.journal.segment-size:64MB}") DataSize segmentSize,
+                           @Value("${antifraud.journal.fsync:INTERVAL}") FsyncPolicy fsyncPolicy,
+                           @Value("${antifraud.journal.fsync-interval:PT1S}") Duration fsyncInterval,
+                           @Value("${antifraud.journal.retention:P7D}") Duration retention) {
+        if (segmentSize.toBytes() < 64 * 1024 || segmentSize.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("antifraud.journal.segment-size must be between 64KB and 2GB");
+        }
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.segmentSize = (int) segmentSize.toBytes();
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalMillis = fsyncInterval.toMillis();
+        this.retentionMillis = retention.toMillis();
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(directory);
+        deleteSpares();
+        long[] segments = segments(directory);
+        if (segments.length > 0) { // never append to a segment whose end was not recorded; start after it instead
+            long last = segments[segments.length - 1];
+            segmentBase = last + Files.size(segmentPath(directory, last));
+        }
+        segment = map(segmentPath(directory, segmentBase));
+        maintenance = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("decision-journal-maintenance").daemon().factory());
+        if (fsyncPolicy == FsyncPolicy.INTERVAL) {
+            maintenance.scheduleWithFixedDelay(this::force, fsyncIntervalMillis, fsyncIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        long active = segmentBase;
+        maintenance.execute(() -> {
+            purge(active);
+            prepareSpare(active + segmentSize);
+        });
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (maintenance == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (fsyncPolicy != FsyncPolicy.NEVER) {
+                segment.force();
+            }
+            segment = null; // later appends are ignored, and none rolls a segment from here on
+        } finally {
+            lock.unlock();
+        }
+        maintenance.shutdown();
+        maintenance.awaitTermination(10, TimeUnit.SECONDS);
+        try {
+            deleteSpares();
+        } catch (IOException e) {
+            LOGGER.warn("Could not delete the spare journal segment", e);
+        }
+    }
+
+    /**
+     * Appends a decision and returns its offset, or -1 when the journal is off or stopped. A null merchant is
+     * recorded as none, and so is one longer than {@value #MAX_MERCHANT_LENGTH} bytes.
+     */
+    long append(long timestamp, String merchant, long amount, int ip, boolean hasIp, long card, int region,
+                TransactionStatus status, long ruleSetVersion) {
+        if (segment == null) {
+            return -1;
+        }
+        int merchantLength = utf8Length(merchant);
+        if (merchantLength > MAX_MERCHANT_LENGTH) {
+            merchantLength = -1;
+        }
+        int length = (MERCHANT + Math.max(merchantLength, 0) + 3) & ~3;
+        lock.lock();
+        try {
+            MappedByteBuffer buffer = segment;
+            if (buffer == null) {
+                return -1;
+            }
+            if (position + length > segmentSize && (buffer = roll()) == null) {
+                return -1;
+            }
+            int at = position;
+            buffer.putLong(at + TIMESTAMP, timestamp);
+            buffer.putLong(at + RULE_SET_VERSION, ruleSetVersion);
+            buffer.putLong(at + AMOUNT, amount);
+            buffer.putLong(at + CARD, card);
+            buffer.putInt(at + IP, ip);
+            buffer.put(at + REGION, (byte) region);
+            buffer.put(at + STATUS, (byte) status.ordinal());
+            buffer.put(at + FLAGS, hasIp ? HAS_IP : 0);
+            buffer.putShort(at + MERCHANT_LENGTH, (short) merchantLength);
+            if (merchantLength > 0) {
+                putUtf8(buffer, at + MERCHANT, merchant);
+            }
+            RECORD_LENGTH.setRelease((ByteBuffer) buffer, at + LENGTH, length); // publishes the fields stored above
+            position = at + length;
+            if (fsyncPolicy == FsyncPolicy.ALWAYS) {
+                buffer.force(at, length);
+            }
+            return segmentBase + at;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the offset the next record will get, where a reader catching up stops.
+     */
+    long getEndOffset() {
+        lock.lock();
+        try {
+            return segmentBase + position;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Moves on to the spare segment and leaves the full one to the maintenance thread, or stops the journal if that
+     * fails: scoring goes on without it. Maps the next segment here only if the spare is not ready yet.
+     */
+    private MappedByteBuffer roll() {
+        MappedByteBuffer closed = segment;
+        Path closedPath = segmentPath(directory, segmentBase);
+        long base = segmentBase + segmentSize;
+        MappedByteBuffer next = spare;
+        spare = null;
+        try {
+            if (next != null) {
+                Files.move(sparePath(directory, base), segmentPath(directory, base), StandardCopyOption.ATOMIC_MOVE);
+            } else {
+                LOGGER.warn("Journal segment {} was not prepared in time, mapping it on the scoring thread", base);
+                next = map(segmentPath(directory, base));
+            }
+        } catch (IOException e) {
+            LOGGER.error("Could not start journal segment {}, no further decisions are journaled", base, e);
+            segment = null;
+            return null;
+        }
+        segment = next;
+        segmentBase = base;
+        position = 0;
+        maintenance.execute(() -> {
+            close(closed, closedPath);
+            purge(base);
+            prepareSpare(base + segmentSize);
+        });
+        return next;
+    }
+
+    private void close(MappedByteBuffer closed, Path path) {
+        if (fsyncPolicy != FsyncPolicy.NEVER) {
+            closed.force();
+        }
+        try {
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis())); // retention counts from here
+        } catch (IOException e) {
+            LOGGER.warn("Could not mark journal segment {} closed", path, e);
+        }
+    }
+
+    /**
+     * Maps the segment starting at {@code base} as the spare, unless the journal has stopped or moved past it.
+     */
+    private void prepareSpare(long base) {
+        MappedByteBuffer mapped;
+        try {
+            mapped = map(sparePath(directory, base));
+        } catch (IOException e) {
+            LOGGER.warn("Could not prepare journal segment {}, the next roll maps it itself", base, e);
+            return;
+        }
+        lock.lock();
+        try {
+            if (segment != null && segmentBase + segmentSize == base) {
+                spare = mapped;
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        try {
+            Files.deleteIfExists(sparePath(directory, base)); // the journal stopped or rolled past it meanwhile
+        } catch (IOException e) {
+            LOGGER.warn("Could not delete the spare journal segment {}", base, e);
+        }
+    }
+
+    private void deleteSpares() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (file.getFileName().toString().endsWith(SPARE_SUFFIX)) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    private MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize); // stays mapped after the channel closes
+        }
+    }
+
+    private void force() {
+        MappedByteBuffer buffer = segment;
+        if (buffer != null) {
+            buffer.force();
+        }
+    }
+
+    private void purge(long active) {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        try {
+            for (long base : segments(directory)) {
+                Path path = segmentPath(directory, base);
+                if (base < active && Files.getLastModifiedTime(path).toMillis() < cutoff) {
+                    Files.delete(path);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Could not delete expired journal segments", e);
+        }
+    }
+
+    /**
+     * Returns the base offsets of the segments in {@code directory}, in order.
+     */
+    static long[] segments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            long[] bases = files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .mapToLong(name -> Long.parseLong(name, 0, name.length() - SEGMENT_SUFFIX.length(), 10))
+                    .toArray();
+            Arrays.sort(bases);
+            return bases;
+        }
+    }
+
+    static Path segmentPath(Path directory, long base) {
+        return directory.resolve(String.format("%020d", base) + SEGMENT_SUFFIX);
+    }
+
+    private static Path sparePath(Path directory, long base) {
+        return directory.resolve(String.format("%020d", base) + SPARE_SUFFIX);
+    }
+
+    private static int utf8Length(String value) {
+        if (value == null) {
+            return -1;
+        }
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3; // a lone surrogate is encoded on its own
+            }
+        }
+        return length;
+    }
+
+    private static void putUtf8(MappedByteBuffer buffer, int at, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                buffer.put(at++, (byte) c);
+            } else if (c < 0x800) {
+                buffer.put(at++, (byte) (0xC0 | c >> 6));
+                buffer.put(at++, (byte) (0x80 | c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer.put(at++, (byte) (0xF0 | codePoint >> 18));
+                buffer.put(at++, (byte) (0x80 | codePoint >> 12 & 0x3F));
+                buffer.put(at++, (byte) (0x80 | codePoint >> 6 & 0x3F));
+                buffer.put(at++, (byte) (0x80 | codePoint & 0x3F));
+            } else {
+                buffer.put(at++, (byte) (0xE0 | c >> 12));
+                buffer.put(at++, (byte) (0x80 | c >> 6 & 0x3F));
+                buffer.put(at++, (byte) (0x80 | c & 0x3F));
+            }
+        }
+    }
+}
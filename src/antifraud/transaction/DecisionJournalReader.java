@@ -0,0 +1,157 @@
+package antifraud.transaction;
+
+import antifraud.card.CardNumbers;
+import antifraud.ip.IPv4;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Iterates the records of a {@link DecisionJournal} directory from an offset, which must be one returned by
+ * {@link DecisionJournal#append} or {@link #getNextOffset}, or 0 for the oldest retained record. The getters read the
+ * current record straight from the mapped segment. Once {@link #next} returns false it can be called again later to
+ * pick up records written since, so a reader can follow a live journal. Not thread-safe.
+ */
+class DecisionJournalReader {
+    private static final TransactionStatus[] STATUSES = TransactionStatus.values();
+    private static final Region[] REGIONS = Region.values();
+
+    private final Path directory;
+    private MappedByteBuffer segment;
+    private long segmentBase;
+    private int position; // of the next record
+    private int current; // of the record the getters read
+
+    DecisionJournalReader(Path directory, long fromOffset) throws IOException {
+        this.directory = directory;
+        long[] bases = DecisionJournal.segments(directory);
+        if (bases.length == 0) {
+            return;
+        }
+        int containing = 0;
+        for (int i = 1; i < bases.length && bases[i] <= fromOffset; i++) {
+            containing = i;
+        }
+        long base = bases[containing];
+        open(base, fromOffset < base ? 0 : fromOffset - base); // records before the oldest segment were deleted
+    }
+
+    /**
+     * Moves to the next record, returning false if none has been written yet.
+     */
+    boolean next() throws IOException {
+        while (true) {
+            if (segment == null) {
+                long[] bases = DecisionJournal.segments(directory);
+                if (bases.length == 0) {
+                    return false;
+                }
+                open(bases[0], 0);
+            }
+            if (position + DecisionJournal.MERCHANT <= segment.capacity()) {
+                int length = (int) DecisionJournal.RECORD_LENGTH.getAcquire((ByteBuffer) segment, position + DecisionJournal.LENGTH);
+                if (length > 0) {
+                    current = position;
+                    position += length;
+                    return true;
+                }
+            }
+            long next = nextSegment(); // only written once this one was full, so nothing more will come here
+            if (next < 0) {
+                return false;
+            }
+            open(next, 0);
+        }
+    }
+
+    long getOffset() {
+        return segmentBase + current;
+    }
+
+    /**
+     * Returns the offset to resume from after the current record.
+     */
+    long getNextOffset() {
+        return segmentBase + position;
+    }
+
+    long getTimestamp() {
+        return segment.getLong(current + DecisionJournal.TIMESTAMP);
+    }
+
+    long getRuleSetVersion() {
+        return segment.getLong(current + DecisionJournal.RULE_SET_VERSION);
+    }
+
+    String getMerchant() {
+        int length = segment.getShort(current + DecisionJournal.MERCHANT_LENGTH);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        segment.get(current + DecisionJournal.MERCHANT, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    long getAmount() {
+        return segment.getLong(current + DecisionJournal.AMOUNT);
+    }
+
+    String getIp() {
+        boolean hasIp = (segment.get(current + DecisionJournal.FLAGS) & DecisionJournal.HAS_IP) != 0;
+        return hasIp ? IPv4.format(segment.getInt(current + DecisionJournal.IP)) : null;
+    }
+
+    /**
+     * Returns the packed card number, or {@link CardNumbers#INVALID} for none.
+     */
+    long getCard() {
+        return segment.getLong(current + DecisionJournal.CARD);
+    }
+
+    String getNumber() {
+        long card = getCard();
+        return card == CardNumbers.INVALID ? null : CardNumbers.format(card);
+    }
+
+    Region getRegion() {
+        byte region = segment.get(current + DecisionJournal.REGION);
+        return region < 0 ? null : REGIONS[region];
+    }
+
+    TransactionStatus getStatus() {
+        return STATUSES[segment.get(current + DecisionJournal.STATUS)];
+    }
+
+    /**
+     * Rebuilds the scored transaction, with its merchant and timestamp, for scoring it again.
+     */
+    Transaction getTransaction() {
+        Transaction transaction = new Transaction(getAmount(), getIp(), getNumber(), getRegion());
+        transaction.merchant(getMerchant());
+        transaction.timestamp(getTimestamp());
+        return transaction;
+    }
+
+    private long nextSegment() throws IOException {
+        for (long base : DecisionJournal.segments(directory)) {
+            if (base > segmentBase) {
+                return base;
+            }
+        }
+        return -1;
+    }
+
+    private void open(long base, long from) throws IOException {
+        try (FileChannel channel = FileChannel.open(DecisionJournal.segmentPath(directory, base), StandardOpenOption.READ)) {
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        segmentBase = base;
+        position = (int) Math.min(from, segment.capacity());
+    }
+}
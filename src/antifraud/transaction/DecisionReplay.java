@@ -0,0 +1,134 @@
+package antifraud.transaction;
+
+import antifraud.card.CardNumbers;
+import antifraud.card.StolenCardService;
+import antifraud.ip.IPService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Scores the decisions of a {@link DecisionJournal} again against candidate rules, to see what a change would do
+ * before it is installed. Velocity rules need each card's transactions in order, so the journal is split by card into
+ * partitions rather than by position: a fork/join task per partition reads the whole journal, which is a cheap
+ * sequential pass over mapped memory, and scores only its own cards, with a velocity store of its own and the
+ * recorded timestamps as the clock. The blacklists and learned amount limits are the current ones, not those in
+ * force when the transaction was first scored.
+ */
+@Component
+public class DecisionReplay {
+    private final IPService ipService;
+    private final StolenCardService stolenCardService;
+    private final VelocityStore velocityStore;
+    private final AmountLimits amountLimits;
+
+    public DecisionReplay(IPService ipService, StolenCardService stolenCardService, VelocityStore velocityStore,
+                          AmountLimits amountLimits) {
+        this.ipService = ipService;
+        this.stolenCardService = stolenCardService;
+        this.velocityStore = velocityStore;
+        this.amountLimits = amountLimits;
+    }
+
+    /**
+     * Replays every record in {@code journal} written before the call, on {@code parallelism} threads, keeping up to
+     * {@code samplesPerCell} examples of each pair of recorded and replayed status. Throws
+     * {@link InvalidRulesException} if the candidate does not compile.
+     */
+    public ReplayReport replay(Path journal, RulesConfiguration candidate, int parallelism, int samplesPerCell) throws IOException {
+        compiler(velocityStore.emptyCopy()).compile(candidate, 0); // fail before starting any work
+        long end = endOffset(journal); // records appended meanwhile are left out, or partitions would disagree
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.invoke(new PartitionTask(journal, candidate, end, samplesPerCell, 0, parallelism, parallelism));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private RuleCompiler compiler(VelocityStore velocity) {
+        return new RuleCompiler(ipService, stolenCardService, velocity, amountLimits, new SimpleMeterRegistry());
+    }
+
+    private ReplayReport replayPartition(Path journal, RulesConfiguration candidate, long end, int samplesPerCell,
+                                         int partition, int partitions) throws IOException {
+        VelocityStore velocity = velocityStore.emptyCopy();
+        RuleSet rules = compiler(velocity).compile(candidate, 0);
+        ReplayReport report = new ReplayReport(samplesPerCell);
+        DecisionJournalReader reader = new DecisionJournalReader(journal, 0);
+        while (reader.next() && reader.getOffset() < end) {
+            long card = reader.getCard();
+            if (partitionOf(card == CardNumbers.INVALID ? reader.getOffset() : card, partitions) != partition) {
+                continue;
+            }
+            Transaction transaction = reader.getTransaction();
+            TransactionStatus replayed = rules.evaluate(transaction);
+            if (card != CardNumbers.INVALID) { // as the validator does, after evaluation
+                velocity.record(card, transaction.timestamp(), VelocityStore.ipOf(transaction), VelocityStore.regionOf(transaction));
+            }
+            TransactionStatus recorded = reader.getStatus();
+            report.add(recorded, replayed);
+            if (report.wantsSample(recorded, replayed)) {
+                report.addSample(recorded, replayed, new ReplaySample(reader.getOffset(), transaction.timestamp(), transaction));
+            }
+        }
+        return report;
+    }
+
+    private static int partitionOf(long key, int partitions) {
+        return Math.floorMod(Long.hashCode(key * 0x9E3779B97F4A7C15L), partitions); // spreads neighbouring card numbers and offsets
+    }
+
+    private static long endOffset(Path journal) throws IOException {
+        DecisionJournalReader reader = new DecisionJournalReader(journal, 0);
+        long end = 0;
+        while (reader.next()) {
+            end = reader.getNextOffset();
+        }
+        return end;
+    }
+
+    private final class PartitionTask extends RecursiveTask<ReplayReport> {
+        private final Path journal;
+        private final RulesConfiguration candidate;
+        private final long end;
+        private final int samplesPerCell;
+        private final int from;
+        private final int to;
+        private final int partitions;
+
+        private PartitionTask(Path journal, RulesConfiguration candidate, long end, int samplesPerCell, int from, int to, int partitions) {
+            this.journal = journal;
+            this.candidate = candidate;
+            this.end = end;
+            this.samplesPerCell = samplesPerCell;
+            this.from = from;
+            this.to = to;
+            this.partitions = partitions;
+        }
+
+        @Override
+        protected ReplayReport compute() {
+            if (to - from == 1) {
+                try {
+                    return replayPartition(journal, candidate, end, samplesPerCell, from, partitions);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            int middle = (from + to) >>> 1;
+            PartitionTask left = new PartitionTask(journal, candidate, end, samplesPerCell, from, middle, partitions);
+            PartitionTask right = new PartitionTask(journal, candidate, end, samplesPerCell, middle, to, partitions);
+            left.fork();
+            ReplayReport rightReport = right.compute();
+            return left.join().merge(rightReport);
+        }
+    }
+}
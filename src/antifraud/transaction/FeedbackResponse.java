@@ -0,0 +1,47 @@
+package antifraud.transaction;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * The recorded feedback and the merchant's amount limits after learning from it. The limits are left out when there
+ * is nothing to learn them for: no AMOUNT rule is active or the transaction has no merchant.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class FeedbackResponse {
+    private long transactionId;
+    private String merchant;
+    private TransactionStatus feedback;
+    private Long allowedMax;
+    private Long manualMax;
+
+    public FeedbackResponse(long transactionId, String merchant, TransactionStatus feedback, Long allowedMax, Long manualMax) {
+        this.transactionId = transactionId;
+        this.merchant = merchant;
+        this.feedback = feedback;
+        this.allowedMax = allowedMax;
+        this.manualMax = manualMax;
+    }
+
+    public FeedbackResponse() {
+    }
+
+    public long getTransactionId() {
+        return transactionId;
+    }
+
+    public String getMerchant() {
+        return merchant;
+    }
+
+    public TransactionStatus getFeedback() {
+        return feedback;
+    }
+
+    public Long getAllowedMax() {
+        return allowedMax;
+    }
+
+    public Long getManualMax() {
+        return manualMax;
+    }
+}
@@ -0,0 +1,11 @@
+package antifraud.transaction;
+
+public class InvalidRulesException extends RuntimeException {
+    public InvalidRulesException(String message) {
+        super(message);
+    }
+
+    public InvalidRulesException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
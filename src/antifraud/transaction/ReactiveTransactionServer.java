@@ -0,0 +1,104 @@
+package antifraud.transaction;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.WebFilterChainProxy;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+import org.springframework.web.server.handler.ResponseStatusExceptionHandler;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+
+/**
+ * Opt-in non-blocking server for {@code POST /api/antifraud/transaction} on its own port, next to the servlet server
+ * that keeps every other route. Scoring only reads in-memory indexes and the history only enqueues, so the handler
+ * runs on the event loop; authentication is the one blocking step and runs on the bounded scheduler.
+ */
+@Component
+public class ReactiveTransactionServer {
+    private final TransactionValidator transactionValidator;
+    private final TransactionHistory transactionHistory;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final SecurityWebFilterChain reactiveFilterChain;
+    private final boolean enabled;
+    private final int port;
+    private DisposableServer server;
+
+    public ReactiveTransactionServer(TransactionValidator transactionValidator, TransactionHistory transactionHistory,
+                                     Validator validator, ObjectMapper objectMapper, SecurityWebFilterChain reactiveFilterChain,
+                                     @Value("${antifraud.reactive.enabled:false}") boolean enabled,
+                                     @Value("${antifraud.reactive.port:28853}") int port) {
+        this.transactionValidator = transactionValidator;
+        this.transactionHistory = transactionHistory;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.reactiveFilterChain = reactiveFilterChain;
+        this.enabled = enabled;
+        this.port = port;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) {
+            return;
+        }
+        RouterFunction<ServerResponse> routes = RouterFunctions.route(RequestPredicates.POST("/api/antifraud/transaction"), this::processTransaction);
+        HandlerStrategies strategies = HandlerStrategies.builder()
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(objectMapper));
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(objectMapper));
+                })
+                .build();
+        HttpHandler handler = WebHttpHandlerBuilder.webHandler(RouterFunctions.toWebHandler(routes, strategies))
+                .filter(new WebFilterChainProxy(reactiveFilterChain))
+                .exceptionHandler(new ResponseStatusExceptionHandler()) // unreadable bodies become 400
+                .build();
+        server = HttpServer.create()
+                .port(port)
+                .handle(new ReactorHttpHandlerAdapter(handler))
+                .bindNow();
+    }
+
+    @PreDestroy
+    void stop() {
+        if (server != null) {
+            server.disposeNow();
+        }
+    }
+
+    /**
+     * Returns the bound port, which differs from the configured one when that is 0, or -1 when the server is off.
+     */
+    public int getPort() {
+        return server == null ? -1 : server.port();
+    }
+
+    private Mono<ServerResponse> processTransaction(ServerRequest request) {
+        return request.bodyToMono(Transaction.class)
+                .filter(transaction -> validator.validate(transaction).isEmpty())
+                .zipWith(request.principal())
+                .flatMap(scored -> {
+                    TransactionStatus result = transactionValidator.validate(scored.getT2().getName(), scored.getT1());
+                    transactionHistory.recordWithoutWaiting(scored.getT2().getName(), scored.getT1(), result);
+                    return ServerResponse.ok().contentType(MediaType.APPLICATION_JSON).bodyValue(ValidationResult.of(result));
+                })
+                .switchIfEmpty(ServerResponse.badRequest().build());
+    }
+}
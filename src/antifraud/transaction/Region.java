@@ -0,0 +1,11 @@
+package antifraud.transaction;
+
+public enum Region {
+    EAP,
+    ECA,
+    HIC,
+    LAC,
+    MENA,
+    SA,
+    SSA
+}
@@ -0,0 +1,90 @@
+package antifraud.transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * How a replay changed the journaled decisions: a count for every pair of recorded and replayed status, and a few
+ * example transactions of each pair.
+ */
+public class ReplayReport {
+    private static final int STATUSES = TransactionStatus.values().length;
+
+    private final int samplesPerCell;
+    private final long[][] counts = new long[STATUSES][STATUSES];
+    private final List<List<ReplaySample>> samples = new ArrayList<>(STATUSES * STATUSES);
+
+    ReplayReport(int samplesPerCell) {
+        this.samplesPerCell = samplesPerCell;
+        for (int i = 0; i < STATUSES * STATUSES; i++) {
+            samples.add(new ArrayList<>(0));
+        }
+    }
+
+    /**
+     * Returns whether a sample of this pair is still wanted, so callers only build one when it is.
+     */
+    boolean wantsSample(TransactionStatus recorded, TransactionStatus replayed) {
+        return cell(recorded, replayed).size() < samplesPerCell;
+    }
+
+    void add(TransactionStatus recorded, TransactionStatus replayed) {
+        counts[recorded.ordinal()][replayed.ordinal()]++;
+    }
+
+    void addSample(TransactionStatus recorded, TransactionStatus replayed, ReplaySample sample) {
+        cell(recorded, replayed).add(sample);
+    }
+
+    /**
+     * Adds the counts of a report on other records, keeping this report's samples first.
+     */
+    ReplayReport merge(ReplayReport other) {
+        for (int i = 0; i < STATUSES; i++) {
+            for (int j = 0; j < STATUSES; j++) {
+                counts[i][j] += other.counts[i][j];
+            }
+        }
+        for (int i = 0; i < samples.size(); i++) {
+            List<ReplaySample> cell = samples.get(i);
+            List<ReplaySample> more = other.samples.get(i);
+            for (int j = 0; j < more.size() && cell.size() < samplesPerCell; j++) {
+                cell.add(more.get(j));
+            }
+        }
+        return this;
+    }
+
+    public long getCount(TransactionStatus recorded, TransactionStatus replayed) {
+        return counts[recorded.ordinal()][replayed.ordinal()];
+    }
+
+    public List<ReplaySample> getSamples(TransactionStatus recorded, TransactionStatus replayed) {
+        return cell(recorded, replayed);
+    }
+
+    public long getTotal() {
+        long total = 0;
+        for (long[] row : counts) {
+            for (long count : row) {
+                total += count;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Returns the number of transactions whose status the candidate rules changed.
+     */
+    public long getChanged() {
+        long unchanged = 0;
+        for (int i = 0; i < STATUSES; i++) {
+            unchanged += counts[i][i];
+        }
+        return getTotal() - unchanged;
+    }
+
+    private List<ReplaySample> cell(TransactionStatus recorded, TransactionStatus replayed) {
+        return samples.get(recorded.ordinal() * STATUSES + replayed.ordinal());
+    }
+}
@@ -0,0 +1,52 @@
+package antifraud.transaction;
+
+/**
+ * A journaled decision that a replay scored, kept as an example of its cell of the {@link ReplayReport}.
+ */
+public class ReplaySample {
+    private final long offset;
+    private final long timestamp;
+    private final String merchant;
+    private final long amount;
+    private final String ip;
+    private final String number;
+    private final Region region;
+
+    ReplaySample(long offset, long timestamp, Transaction transaction) {
+        this.offset = offset;
+        this.timestamp = timestamp;
+        this.merchant = transaction.merchant();
+        this.amount = transaction.getAmount();
+        this.ip = transaction.getIp();
+        this.number = transaction.getNumber();
+        this.region = transaction.getRegion();
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public String getMerchant() {
+        return merchant;
+    }
+
+    public long getAmount() {
+        return amount;
+    }
+
+    public String getIp() {
+        return ip;
+    }
+
+    public String getNumber() {
+        return number;
+    }
+
+    public Region getRegion() {
+        return region;
+    }
+}
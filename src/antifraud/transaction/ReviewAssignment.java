@@ -0,0 +1,67 @@
+package antifraud.transaction;
+
+import antifraud.card.CardNumbers;
+
+import java.time.Instant;
+
+/**
+ * A transaction assigned for manual review. Feedback on {@code transactionId} before {@code leaseExpiresAt} takes it
+ * out of the queue; after that it may be assigned to someone else.
+ */
+public class ReviewAssignment {
+    private long transactionId;
+    private String merchant;
+    private long amount;
+    private String ip;
+    private String number;
+    private Instant createdAt;
+    private String reviewer;
+    private Instant leaseExpiresAt;
+
+    ReviewAssignment(long transactionId, String merchant, long amount, String ip, long number, Instant createdAt,
+                     String reviewer, Instant leaseExpiresAt) {
+        this.transactionId = transactionId;
+        this.merchant = merchant;
+        this.amount = amount;
+        this.ip = ip;
+        this.number = number == CardNumbers.INVALID ? null : CardNumbers.format(number);
+        this.createdAt = createdAt;
+        this.reviewer = reviewer;
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    public ReviewAssignment() {
+    }
+
+    public long getTransactionId() {
+        return transactionId;
+    }
+
+    public String getMerchant() {
+        return merchant;
+    }
+
+    public long getAmount() {
+        return amount;
+    }
+
+    public String getIp() {
+        return ip;
+    }
+
+    public String getNumber() {
+        return number;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getReviewer() {
+        return reviewer;
+    }
+
+    public Instant getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+}
@@ -0,0 +1,29 @@
+package antifraud.transaction;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.security.Principal;
+
+@RestController
+@RequestMapping("/api/antifraud/review")
+public class ReviewController {
+
+    private final ReviewQueue reviewQueue;
+
+    public ReviewController(ReviewQueue reviewQueue) {
+        this.reviewQueue = reviewQueue;
+    }
+
+    /**
+     * Long-polls for the next transaction to review and leases it to the caller. Answers 204 if none arrives within
+     * the poll timeout; feedback goes to {@code PUT /api/antifraud/transaction}.
+     */
+    @PostMapping("next")
+    public DeferredResult<ResponseEntity<ReviewAssignment>> nextReview(Principal principal) {
+        return reviewQueue.poll(principal.getName());
+    }
+}
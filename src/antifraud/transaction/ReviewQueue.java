@@ -0,0 +1,266 @@
+package antifraud.transaction;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Transactions waiting for manual review, handed out to SUPPORT users one at a time under a lease. The durable state
+ * is the history itself: a {@code MANUAL_PROCESSING} row without feedback is pending, so the queue is filled from the
+ * history at startup and then fed by the history writer, and polls never touch the database.
+ * <p>
+ * A poll that finds nothing waits as a {@link DeferredResult}, holding no thread, and the next item goes straight to
+ * the longest waiting poll. Leases expire on a {@link DelayQueue}, so the one reaper thread sleeps until the earliest
+ * expiry and puts the item back at the end of the queue unless feedback was given in time.
+ * <p>
+ * At most {@code capacity} transactions wait in memory. Beyond that they are only counted: their history rows stay
+ * pending and are queued again at the next startup.
+ */
+@Component
+class ReviewQueue {
+    private static final ResponseEntity<ReviewAssignment> NOTHING_TO_REVIEW = ResponseEntity.noContent().build();
+
+    private final long pollTimeoutMillis;
+    private final long leaseNanos;
+    private final int capacity;
+    private final AtomicLong overflowed = new AtomicLong();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<Long, ReviewItem> pending = new LinkedHashMap<>(); // by transaction id, oldest first
+    private final Map<Long, Lease> leases = new HashMap<>();
+    private final Set<Waiter> waiters = Collections.newSetFromMap(new LinkedHashMap<>()); // longest waiting first
+    private final DelayQueue<Lease> expiries = new DelayQueue<>();
+    private Thread reaper;
+
+    public ReviewQueue(@Value("${antifraud.review.poll-timeout:PT30S}") Duration pollTimeout,
+                       @Value("${antifraud.review.lease:PT5M}") Duration lease,
+                       @Value("${antifraud.review.capacity:100000}") int capacity,
+                       MeterRegistry meterRegistry) {
+        this.pollTimeoutMillis = pollTimeout.toMillis();
+        this.leaseNanos = lease.toNanos();
+        this.capacity = capacity;
+        Gauge.builder("antifraud.review.pending", this, ReviewQueue::getPending)
+                .description("Transactions waiting to be assigned for manual review")
+                .register(meterRegistry);
+        FunctionCounter.builder("antifraud.review.overflowed", overflowed, AtomicLong::doubleValue)
+                .description("Transactions left out of the review queue because it was full, until the next startup")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        reaper = new Thread(this::reap, "review-lease-reaper");
+        reaper.setDaemon(true);
+        reaper.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        reaper.interrupt();
+        reaper.join(10_000);
+    }
+
+    /**
+     * Queues a transaction for review, or assigns it right away to the longest waiting poll.
+     */
+    void offer(ReviewItem item) {
+        while (true) {
+            Waiter waiter;
+            Lease lease;
+            lock.lock();
+            try {
+                Iterator<Waiter> longestWaiting = waiters.iterator();
+                if (!longestWaiting.hasNext()) {
+                    if (pending.size() < capacity) {
+                        pending.put(item.transactionId, item);
+                    } else {
+                        overflowed.incrementAndGet();
+                    }
+                    return;
+                }
+                waiter = longestWaiting.next();
+                longestWaiting.remove();
+                lease = lease(item, waiter.reviewer);
+            } finally {
+                lock.unlock();
+            }
+            if (waiter.result.setResult(ResponseEntity.ok(lease.assignment()))) {
+                return;
+            }
+            revoke(lease); // the poll timed out or its client went away meanwhile, try the next one
+        }
+    }
+
+    /**
+     * Assigns the oldest pending transaction to {@code reviewer}, waiting up to {@code poll-timeout} for one to
+     * arrive. The result is 204 No Content if none does.
+     */
+    DeferredResult<ResponseEntity<ReviewAssignment>> poll(String reviewer) {
+        DeferredResult<ResponseEntity<ReviewAssignment>> result = new DeferredResult<>(pollTimeoutMillis, NOTHING_TO_REVIEW);
+        Lease lease = null;
+        lock.lock();
+        try {
+            Iterator<ReviewItem> oldest = pending.values().iterator();
+            if (oldest.hasNext()) {
+                ReviewItem item = oldest.next();
+                oldest.remove();
+                lease = lease(item, reviewer);
+            } else {
+                Waiter waiter = new Waiter(reviewer, result);
+                result.onCompletion(() -> removeWaiter(waiter));
+                waiters.add(waiter);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (lease != null) {
+            result.setResult(ResponseEntity.ok(lease.assignment()));
+        }
+        return result;
+    }
+
+    /**
+     * Takes a transaction {@code reviewer} is giving feedback on out of the queue, whether it was pending or leased.
+     * Throws {@link TransactionLeasedToAnotherReviewer}, and keeps the lease, while another reviewer holds a live one.
+     */
+    void complete(long transactionId, String reviewer) {
+        lock.lock();
+        try {
+            Lease lease = leases.get(transactionId);
+            if (lease != null && !lease.reviewer.equals(reviewer) && lease.getDelay(TimeUnit.NANOSECONDS) > 0) {
+                throw new TransactionLeasedToAnotherReviewer();
+            }
+            pending.remove(transactionId);
+            leases.remove(transactionId); // its expiry stays queued and is ignored when it comes up
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long getOverflowed() {
+        return overflowed.get();
+    }
+
+    int getPending() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Lease lease(ReviewItem item, String reviewer) {
+        Lease lease = new Lease(item, reviewer, System.nanoTime() + leaseNanos);
+        leases.put(item.transactionId, lease);
+        expiries.add(lease);
+        return lease;
+    }
+
+    private boolean revoke(Lease lease) {
+        lock.lock();
+        try {
+            return leases.remove(lease.item.transactionId, lease);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void removeWaiter(Waiter waiter) {
+        lock.lock();
+        try {
+            waiters.remove(waiter);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void reap() {
+        try {
+            while (true) {
+                Lease expired = expiries.take();
+                if (revoke(expired)) { // false once the transaction was reviewed
+                    offer(expired.item);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // shutting down
+        }
+    }
+
+    static final class ReviewItem {
+        private final long transactionId;
+        private final String merchant;
+        private final long amount;
+        private final String ip;
+        private final long number;
+        private final long createdAt;
+
+        ReviewItem(long transactionId, String merchant, long amount, String ip, long number, long createdAt) {
+            this.transactionId = transactionId;
+            this.merchant = merchant;
+            this.amount = amount;
+            this.ip = ip;
+            this.number = number;
+            this.createdAt = createdAt;
+        }
+    }
+
+    private static final class Waiter {
+        private final String reviewer;
+        private final DeferredResult<ResponseEntity<ReviewAssignment>> result;
+
+        private Waiter(String reviewer, DeferredResult<ResponseEntity<ReviewAssignment>> result) {
+            this.reviewer = reviewer;
+            this.result = result;
+        }
+    }
+
+    private static final class Lease implements Delayed {
+        private final ReviewItem item;
+        private final String reviewer;
+        private final long expiresAtNanos;
+        private final Instant expiresAt;
+
+        private Lease(ReviewItem item, String reviewer, long expiresAtNanos) {
+            this.item = item;
+            this.reviewer = reviewer;
+            this.expiresAtNanos = expiresAtNanos;
+            this.expiresAt = Instant.now().plusNanos(expiresAtNanos - System.nanoTime());
+        }
+
+        private ReviewAssignment assignment() {
+            return new ReviewAssignment(item.transactionId, item.merchant, item.amount, item.ip, item.number,
+                    Instant.ofEpochMilli(item.createdAt), reviewer, expiresAt);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(expiresAtNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(expiresAtNanos, ((Lease) other).expiresAtNanos);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package antifraud.transaction;
+
+interface Rule {
+    String getName();
+
+    TransactionStatus evaluate(Transaction transaction);
+}
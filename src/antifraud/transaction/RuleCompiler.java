@@ -0,0 +1,239 @@
+package antifraud.transaction;
+
+import antifraud.card.CardNumbers;
+import antifraud.card.StolenCardService;
+import antifraud.ip.IPService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+@Component
+class RuleCompiler {
+    private final IPService ipService;
+    private final StolenCardService stolenCardService;
+    private final VelocityStore velocityStore;
+    private final AmountLimits amountLimits;
+    private final MeterRegistry meterRegistry;
+
+    public RuleCompiler(IPService ipService, StolenCardService stolenCardService, VelocityStore velocityStore,
+                        AmountLimits amountLimits, MeterRegistry meterRegistry) {
+        this.ipService = ipService;
+        this.stolenCardService = stolenCardService;
+        this.velocityStore = velocityStore;
+        this.amountLimits = amountLimits;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public RuleSet compile(RulesConfiguration configuration, long version) {
+        List<RuleDefinition> definitions = configuration.getRules();
+        if (definitions == null || definitions.isEmpty()) {
+            throw new InvalidRulesException("At least one rule is required");
+        }
+        Rule[] rules = new Rule[definitions.size()];
+        RuleType[] types = new RuleType[rules.length];
+        Counter[] manualCounters = new Counter[rules.length];
+        Counter[] prohibitedCounters = new Counter[rules.length];
+        for (int i = 0; i < rules.length; i++) {
+            rules[i] = compile(definitions.get(i));
+            types[i] = definitions.get(i).getType();
+            manualCounters[i] = triggeredCounter(rules[i], TransactionStatus.MANUAL_PROCESSING);
+            prohibitedCounters[i] = triggeredCounter(rules[i], TransactionStatus.PROHIBITED);
+        }
+        return new RuleSet(version, rules, types, manualCounters, prohibitedCounters, configuration);
+    }
+
+    private Counter triggeredCounter(Rule rule, TransactionStatus result) {
+        return Counter.builder("antifraud.rule.triggered")
+                .description("Transactions a rule escalated, by rule and result")
+                .tag("rule", rule.getName())
+                .tag("result", result.name())
+                .register(meterRegistry);
+    }
+
+    private Rule compile(RuleDefinition definition) {
+        if (definition.getType() == null) {
+            throw new InvalidRulesException("Rule type is required");
+        }
+        String name = definition.getName() != null ? definition.getName() : definition.getType().name();
+        switch (definition.getType()) {
+            case AMOUNT:
+                return amountRule(name, definition);
+            case SUSPICIOUS_IP:
+                return new SuspiciousIPRule(name, blacklistResult(definition), ipService);
+            case STOLEN_CARD:
+                return new StolenCardRule(name, blacklistResult(definition), stolenCardService);
+            case IP_VELOCITY:
+            case REGION_VELOCITY:
+                return velocityRule(name, definition);
+            default:
+                throw new InvalidRulesException(String.format("Unsupported rule type %s", definition.getType()));
+        }
+    }
+
+    private Rule amountRule(String name, RuleDefinition definition) {
+        if (definition.getAllowedMax() == null || definition.getManualMax() == null) {
+            throw new InvalidRulesException(String.format("Rule %s needs allowedMax and manualMax", name));
+        }
+        long allowedMax = definition.getAllowedMax();
+        long manualMax = definition.getManualMax();
+        if (allowedMax < 0 || manualMax < allowedMax) {
+            throw new InvalidRulesException(String.format("Rule %s needs 0 <= allowedMax <= manualMax", name));
+        }
+        return new AmountRule(name, allowedMax, manualMax, amountLimits);
+    }
+
+    private Rule velocityRule(String name, RuleDefinition definition) {
+        if (definition.getAllowedMax() == null || definition.getManualMax() == null) {
+            throw new InvalidRulesException(String.format("Rule %s needs allowedMax and manualMax", name));
+        }
+        long allowedMax = definition.getAllowedMax();
+        long manualMax = definition.getManualMax();
+        if (allowedMax < 0 || manualMax < allowedMax || manualMax >= Integer.MAX_VALUE) {
+            throw new InvalidRulesException(String.format("Rule %s needs 0 <= allowedMax <= manualMax", name));
+        }
+        Duration window;
+        try {
+            window = definition.getWindow() == null ? Duration.ofHours(1) : Duration.parse(definition.getWindow());
+        } catch (DateTimeParseException e) {
+            throw new InvalidRulesException(String.format("Rule %s has an invalid window %s", name, definition.getWindow()), e);
+        }
+        if (window.isNegative() || window.isZero() || window.toMillis() > velocityStore.getRetentionMillis()) {
+            throw new InvalidRulesException(String.format("Rule %s needs a window between 0 and the velocity retention", name));
+        }
+        boolean byRegion = definition.getType() == RuleType.REGION_VELOCITY;
+        return new VelocityRule(name, byRegion, (int) allowedMax, (int) manualMax, window.toMillis(), velocityStore);
+    }
+
+    private static TransactionStatus blacklistResult(RuleDefinition definition) {
+        if (definition.getResult() == null) {
+            return TransactionStatus.PROHIBITED;
+        }
+        try {
+            return TransactionStatus.valueOf(definition.getResult());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRulesException(String.format("Unknown result %s", definition.getResult()), e);
+        }
+    }
+
+    private static final class AmountRule implements Rule {
+        private final String name;
+        private final long allowedMax;
+        private final long manualMax;
+        private final AmountLimits amountLimits;
+
+        private AmountRule(String name, long allowedMax, long manualMax, AmountLimits amountLimits) {
+            this.name = name;
+            this.allowedMax = allowedMax;
+            this.manualMax = manualMax;
+            this.amountLimits = amountLimits;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public TransactionStatus evaluate(Transaction transaction) {
+            long amount = transaction.getAmount();
+            AmountLimits.Limits learned = amountLimits.get(transaction.merchant());
+            if (amount <= (learned == null ? allowedMax : learned.allowedMax)) {
+                return TransactionStatus.ALLOWED;
+            } else if (amount <= (learned == null ? manualMax : learned.manualMax)) {
+                return TransactionStatus.MANUAL_PROCESSING;
+            } else {
+                return TransactionStatus.PROHIBITED;
+            }
+        }
+    }
+
+    private static final class SuspiciousIPRule implements Rule {
+        private final String name;
+        private final TransactionStatus result;
+        private final IPService ipService;
+
+        private SuspiciousIPRule(String name, TransactionStatus result, IPService ipService) {
+            this.name = name;
+            this.result = result;
+            this.ipService = ipService;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public TransactionStatus evaluate(Transaction transaction) {
+            return transaction.getIp() != null && ipService.isSuspicious(transaction.address()) ? result : TransactionStatus.ALLOWED;
+        }
+    }
+
+    private static final class StolenCardRule implements Rule {
+        private final String name;
+        private final TransactionStatus result;
+        private final StolenCardService stolenCardService;
+
+        private StolenCardRule(String name, TransactionStatus result, StolenCardService stolenCardService) {
+            this.name = name;
+            this.result = result;
+            this.stolenCardService = stolenCardService;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public TransactionStatus evaluate(Transaction transaction) {
+            return transaction.getNumber() != null && stolenCardService.isStolen(transaction.getNumber()) ? result : TransactionStatus.ALLOWED;
+        }
+    }
+
+    private static final class VelocityRule implements Rule {
+        private final String name;
+        private final boolean byRegion;
+        private final int allowedMax;
+        private final int manualMax;
+        private final long windowMillis;
+        private final VelocityStore velocityStore;
+
+        private VelocityRule(String name, boolean byRegion, int allowedMax, int manualMax, long windowMillis, VelocityStore velocityStore) {
+            this.name = name;
+            this.byRegion = byRegion;
+            this.allowedMax = allowedMax;
+            this.manualMax = manualMax;
+            this.windowMillis = windowMillis;
+            this.velocityStore = velocityStore;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public TransactionStatus evaluate(Transaction transaction) {
+            long card = CardNumbers.pack(transaction.getNumber());
+            if (card == CardNumbers.INVALID) {
+                return TransactionStatus.ALLOWED;
+            }
+            long since = transaction.timestamp() - windowMillis;
+            int distinct = byRegion
+                    ? velocityStore.countDistinctRegions(card, since, VelocityStore.regionOf(transaction))
+                    : velocityStore.countDistinctIPs(card, since, VelocityStore.ipOf(transaction), manualMax + 1);
+            if (distinct <= allowedMax) {
+                return TransactionStatus.ALLOWED;
+            } else if (distinct <= manualMax) {
+                return TransactionStatus.MANUAL_PROCESSING;
+            } else {
+                return TransactionStatus.PROHIBITED;
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package antifraud.transaction;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestController
+@RequestMapping("/api/antifraud/rules")
+public class RuleController {
+
+    private final TransactionValidator transactionValidator;
+
+    public RuleController(TransactionValidator transactionValidator) {
+        this.transactionValidator = transactionValidator;
+    }
+
+    @GetMapping
+    public RuleSetResponse getRules() {
+        return RuleSetResponse.mapRuleSetToRuleSetResponse(transactionValidator.getRuleSet());
+    }
+
+    @PostMapping("reload")
+    public RuleSetResponse reloadRules() {
+        try {
+            return RuleSetResponse.mapRuleSetToRuleSetResponse(transactionValidator.reload());
+        } catch (InvalidRulesException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package antifraud.transaction;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RuleDefinition {
+    private String name;
+    private RuleType type;
+    private String result;
+    private Long allowedMax;
+    private Long manualMax;
+    private String window;
+
+    public RuleDefinition() {
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public RuleType getType() {
+        return type;
+    }
+
+    public void setType(RuleType type) {
+        this.type = type;
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    public void setResult(String result) {
+        this.result = result;
+    }
+
+    public Long getAllowedMax() {
+        return allowedMax;
+    }
+
+    public void setAllowedMax(Long allowedMax) {
+        this.allowedMax = allowedMax;
+    }
+
+    public Long getManualMax() {
+        return manualMax;
+    }
+
+    public void setManualMax(Long manualMax) {
+        this.manualMax = manualMax;
+    }
+
+    public String getWindow() {
+        return window;
+    }
+
+    public void setWindow(String window) {
+        this.window = window;
+    }
+}
@@ -0,0 +1,28 @@
+package antifraud.transaction;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@Component
+class RuleLoader {
+    private final Resource location;
+    private final ObjectMapper objectMapper;
+
+    public RuleLoader(@Value("${antifraud.rules.location:classpath:rules.json}") Resource location, ObjectMapper objectMapper) {
+        this.location = location;
+        this.objectMapper = objectMapper;
+    }
+
+    public RulesConfiguration load() {
+        try (InputStream input = location.getInputStream()) {
+            return objectMapper.readValue(input, RulesConfiguration.class);
+        } catch (IOException e) {
+            throw new InvalidRulesException(String.format("Cannot read rules from %s: %s", location, e.getMessage()), e);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package antifraud.transaction;
+
+import io.micrometer.core.instrument.Counter;
+
+/**
+ * Immutable evaluation plan compiled from a {@link RulesConfiguration}. The most severe result of all rules wins and
+ * evaluation stops at the first {@link TransactionStatus#PROHIBITED}. The type of the rule that decided alone is left
+ * on the transaction, see {@link Transaction#decidedBy()}.
+ */
+final class RuleSet {
+    private final long version;
+    private final Rule[] rules;
+    private final RuleType[] types;
+    private final Counter[] manualCounters;
+    private final Counter[] prohibitedCounters;
+    private final RulesConfiguration configuration;
+
+    RuleSet(long version, Rule[] rules, RuleType[] types, Counter[] manualCounters, Counter[] prohibitedCounters,
+            RulesConfiguration configuration) {
+        this.version = version;
+        this.rules = rules;
+        this.types = types;
+        this.manualCounters = manualCounters;
+        this.prohibitedCounters = prohibitedCounters;
+        this.configuration = configuration;
+    }
+
+    TransactionStatus evaluate(Transaction transaction) {
+        TransactionStatus result = TransactionStatus.ALLOWED;
+        RuleType decidedBy = null;
+        boolean several = false;
+        for (int i = 0; i < rules.length; i++) {
+            TransactionStatus status = rules[i].evaluate(transaction);
+            if (status == TransactionStatus.PROHIBITED) {
+                prohibitedCounters[i].increment();
+                transaction.decidedBy(types[i]);
+                return status;
+            }
+            if (status == TransactionStatus.MANUAL_PROCESSING) {
+                manualCounters[i].increment();
+                several = result == TransactionStatus.MANUAL_PROCESSING;
+                decidedBy = types[i];
+                result = status;
+            }
+        }
+        transaction.decidedBy(several ? null : decidedBy);
+        return result;
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    RulesConfiguration getConfiguration() {
+        return configuration;
+    }
+}
@@ -0,0 +1,25 @@
+package antifraud.transaction;
+
+import java.util.List;
+
+public class RuleSetResponse {
+    private final long version;
+    private final List<RuleDefinition> rules;
+
+    public RuleSetResponse(long version, List<RuleDefinition> rules) {
+        this.version = version;
+        this.rules = rules;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<RuleDefinition> getRules() {
+        return rules;
+    }
+
+    static RuleSetResponse mapRuleSetToRuleSetResponse(RuleSet ruleSet) {
+        return new RuleSetResponse(ruleSet.getVersion(), ruleSet.getConfiguration().getRules());
+    }
+}
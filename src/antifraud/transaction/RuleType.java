@@ -0,0 +1,9 @@
+package antifraud.transaction;
+
+public enum RuleType {
+    AMOUNT,
+    SUSPICIOUS_IP,
+    STOLEN_CARD,
+    IP_VELOCITY,
+    REGION_VELOCITY
+}
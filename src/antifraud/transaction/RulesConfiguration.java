@@ -0,0 +1,23 @@
+package antifraud.transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class RulesConfiguration {
+    private List<RuleDefinition> rules = new ArrayList<>();
+
+    public RulesConfiguration() {
+    }
+
+    public RulesConfiguration(List<RuleDefinition> rules) {
+        this.rules = rules;
+    }
+
+    public List<RuleDefinition> getRules() {
+        return rules;
+    }
+
+    public void setRules(List<RuleDefinition> rules) {
+        this.rules = rules;
+    }
+}
@@ -0,0 +1,176 @@
+package antifraud.transaction;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * JSON codec of the scoring route, which reads a {@link Transaction} and writes a {@link ValidationResult} without
+ * Jackson data binding.
+ * <p>
+ * Transactions are read with Jackson's streaming parser. The parser works in Jackson's recycled per-thread buffers,
+ * field names are matched against their interned canonical strings and regions against the enum's names in place, so
+ * the only allocations are the parser itself, the transaction and its ip and number, which validation and the history
+ * take as strings. Accepts what binding accepted: unknown fields are skipped, numbers and numeric strings are amounts
+ * and other scalars are text.
+ * <p>
+ * Results are written from bytes encoded once per {@link TransactionStatus} at startup by the application's
+ * {@link ObjectMapper}, so the body is exactly what Jackson wrote before, pretty-printing included.
+ */
+@Component
+class ScoringCodec implements HttpMessageConverter<Object> {
+    private static final List<MediaType> MEDIA_TYPES = List.of(MediaType.APPLICATION_JSON);
+    private static final Region[] REGIONS = Region.values();
+    private static final char[][] REGION_NAMES = new char[REGIONS.length][];
+
+    static {
+        for (Region region : REGIONS) {
+            REGION_NAMES[region.ordinal()] = region.name().toCharArray();
+        }
+    }
+
+    private final JsonFactory jsonFactory;
+    private final byte[][] encoded = new byte[TransactionStatus.values().length][];
+
+    public ScoringCodec(ObjectMapper objectMapper) throws JsonProcessingException {
+        this.jsonFactory = objectMapper.getFactory();
+        for (TransactionStatus status : TransactionStatus.values()) {
+            encoded[status.ordinal()] = objectMapper.writeValueAsBytes(new ValidationResult(status));
+        }
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return Transaction.class == clazz && (mediaType == null || MediaType.APPLICATION_JSON.includes(mediaType));
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return ValidationResult.class.isAssignableFrom(clazz) && (mediaType == null
+                || MediaType.ALL.equalsTypeAndSubtype(mediaType) || MediaType.APPLICATION_JSON.isCompatibleWith(mediaType));
+    }
+
+    @Override
+    public List<MediaType> getSupportedMediaTypes() {
+        return MEDIA_TYPES;
+    }
+
+    /**
+     * Writes the pre-encoded result with its Content-Type and Content-Length.
+     */
+    @Override
+    public void write(Object result, MediaType contentType, HttpOutputMessage outputMessage) throws IOException {
+        byte[] body = encoded[((ValidationResult) result).getResult().ordinal()];
+        HttpHeaders headers = outputMessage.getHeaders();
+        if (headers.getContentType() == null) {
+            headers.setContentType(contentType == null || !contentType.isConcrete() ? MediaType.APPLICATION_JSON : contentType);
+        }
+        if (headers.getContentLength() < 0 && !headers.containsKey(HttpHeaders.TRANSFER_ENCODING)) {
+            headers.setContentLength(body.length);
+        }
+        OutputStream output = outputMessage.getBody();
+        output.write(body);
+        output.flush();
+    }
+
+    @Override
+    public Transaction read(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(inputMessage.getBody())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new HttpMessageNotReadableException("A transaction must be a JSON object", inputMessage);
+            }
+            Transaction transaction = new Transaction();
+            String field;
+            while ((field = parser.nextFieldName()) != null) {
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "amount":
+                        transaction.setAmount(amount(parser, value, inputMessage));
+                        break;
+                    case "ip":
+                        transaction.setIp(text(parser, value, inputMessage));
+                        break;
+                    case "number":
+                        transaction.setNumber(text(parser, value, inputMessage));
+                        break;
+                    case "region":
+                        transaction.setRegion(region(parser, value, inputMessage));
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            if (parser.currentToken() != JsonToken.END_OBJECT) {
+                throw new HttpMessageNotReadableException("Unexpected end of the transaction", inputMessage);
+            }
+            return transaction;
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotReadableException("JSON parse error: " + e.getOriginalMessage(), e, inputMessage);
+        }
+    }
+
+    private static long amount(JsonParser parser, JsonToken value, HttpInputMessage inputMessage) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return 0; // as binding does for a primitive, and then fails validation
+        }
+        if (value == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getLongValue();
+        }
+        if (value == JsonToken.VALUE_NUMBER_FLOAT || value == JsonToken.VALUE_STRING) {
+            return parser.getValueAsLong();
+        }
+        throw new HttpMessageNotReadableException(String.format("Unexpected %s for amount", value), inputMessage);
+    }
+
+    private static String text(JsonParser parser, JsonToken value, HttpInputMessage inputMessage) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value.isScalarValue()) {
+            return parser.getValueAsString();
+        }
+        throw new HttpMessageNotReadableException(String.format("Unexpected %s for %s", value, parser.currentName()), inputMessage);
+    }
+
+    private static Region region(JsonParser parser, JsonToken value, HttpInputMessage inputMessage) throws IOException {
+        if (value == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (value == JsonToken.VALUE_STRING) {
+            char[] chars = parser.getTextCharacters();
+            int offset = parser.getTextOffset();
+            int length = parser.getTextLength();
+            for (int i = 0; i < REGIONS.length; i++) {
+                if (matches(REGION_NAMES[i], chars, offset, length)) {
+                    return REGIONS[i];
+                }
+            }
+        }
+        throw new HttpMessageNotReadableException("Unknown region", inputMessage);
+    }
+
+    private static boolean matches(char[] name, char[] chars, int offset, int length) {
+        if (name.length != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name[i] != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,15 +1,57 @@
 package antifraud.transaction;
 
-import javax.validation.constraints.Min;
+import antifraud.card.CardNumber;
+import antifraud.ip.IPAddress;
+import antifraud.ip.IPv4;
+import jakarta.validation.constraints.Min;
 
 class Transaction {
     @Min(value = 1)
     private long amount;
 
+    @IPAddress(ipv6 = false)
+    private String ip;
+
+    // parsed once on first use, then shared by every rule that looks at the address
+    private int address;
+    private boolean addressParsed;
+
+    @CardNumber
+    private String number;
+
+    private Region region;
+
+    // set by the server from the authenticated principal, never read from the request
+    private String merchant;
+
+    // when it was scored, the clock of time-window rules; set by the validator or a replay, never read from the request
+    private long timestamp;
+
+    // the rule type that decided the result alone, null if allowed or several rules asked for review; set by the rules
+    private RuleType decidedBy;
+
     public Transaction(long amount) {
         this.amount = amount;
     }
 
+    public Transaction(long amount, String ip) {
+        this.amount = amount;
+        this.ip = ip;
+    }
+
+    public Transaction(long amount, String ip, String number) {
+        this.amount = amount;
+        this.ip = ip;
+        this.number = number;
+    }
+
+    public Transaction(long amount, String ip, String number, Region region) {
+        this.amount = amount;
+        this.ip = ip;
+        this.number = number;
+        this.region = region;
+    }
+
     public Transaction() {
     }
 
@@ -20,4 +62,64 @@ class Transaction {
     public void setAmount(long amount) {
         this.amount = amount;
     }
+
+    public String getIp() {
+        return ip;
+    }
+
+    public void setIp(String ip) {
+        this.ip = ip;
+        this.addressParsed = false;
+    }
+
+    /**
+     * Returns the IPv4 address as an int. Only valid once the transaction passed validation with a non-null ip.
+     */
+    int address() {
+        if (!addressParsed) {
+            address = IPv4.parse(ip);
+            addressParsed = true;
+        }
+        return address;
+    }
+
+    public String getNumber() {
+        return number;
+    }
+
+    public void setNumber(String number) {
+        this.number = number;
+    }
+
+    public Region getRegion() {
+        return region;
+    }
+
+    public void setRegion(Region region) {
+        this.region = region;
+    }
+
+    String merchant() {
+        return merchant;
+    }
+
+    void merchant(String merchant) {
+        this.merchant = merchant;
+    }
+
+    long timestamp() {
+        return timestamp;
+    }
+
+    void timestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    RuleType decidedBy() {
+        return decidedBy;
+    }
+
+    void decidedBy(RuleType decidedBy) {
+        this.decidedBy = decidedBy;
+    }
 }
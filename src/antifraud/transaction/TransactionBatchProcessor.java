@@ -0,0 +1,89 @@
+package antifraud.transaction;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Set;
+
+@Component
+class TransactionBatchProcessor {
+    private static final int FLUSH_EVERY = 256;
+
+    private final TransactionValidator transactionValidator;
+    private final TransactionHistory transactionHistory;
+    private final Validator validator;
+    private final ObjectReader transactionReader;
+    private final ObjectWriter resultWriter;
+
+    public TransactionBatchProcessor(TransactionValidator transactionValidator, TransactionHistory transactionHistory,
+                                     Validator validator, ObjectMapper objectMapper) {
+        this.transactionValidator = transactionValidator;
+        this.transactionHistory = transactionHistory;
+        this.validator = validator;
+        this.transactionReader = objectMapper.readerFor(Transaction.class);
+        this.resultWriter = objectMapper.writer()
+                .without(SerializationFeature.INDENT_OUTPUT)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+    }
+
+    /**
+     * Reads transactions one at a time from either a JSON array or a stream of newline-delimited JSON objects,
+     * and writes one result per transaction in the same order, flushing as it goes. Malformed input before the
+     * first transaction is rethrown; once results have been streamed it is reported as a final error item.
+     */
+    public int process(InputStream input, OutputStream output, boolean ndjson, String merchant) throws IOException {
+        ObjectWriter writer = ndjson ? resultWriter.withRootValueSeparator("\n") : resultWriter;
+        int count = 0;
+        try (MappingIterator<Transaction> transactions = transactionReader.readValues(input);
+             SequenceWriter results = writer.writeValues(output).init(!ndjson)) {
+            while (true) {
+                Transaction transaction;
+                try {
+                    if (!transactions.hasNextValue()) {
+                        break;
+                    }
+                    transaction = transactions.nextValue();
+                } catch (JsonProcessingException e) {
+                    if (count == 0) {
+                        throw e;
+                    }
+                    results.write(new BatchItemError(count, e.getOriginalMessage()));
+                    break;
+                }
+                results.write(score(transaction, count, merchant));
+                if (++count % FLUSH_EVERY == 0) {
+                    results.flush();
+                    output.flush();
+                }
+            }
+        }
+        if (ndjson && count > 0) {
+            output.write('\n');
+        }
+        return count;
+    }
+
+    private Object score(Transaction transaction, int index, String merchant) {
+        Set<ConstraintViolation<Transaction>> violations = validator.validate(transaction);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<Transaction> violation = violations.iterator().next();
+            return new BatchItemError(index, violation.getPropertyPath() + " " + violation.getMessage());
+        }
+        TransactionStatus result = transactionValidator.validate(merchant, transaction);
+        transactionHistory.record(merchant, transaction, result);
+        return ValidationResult.of(result);
+    }
+}
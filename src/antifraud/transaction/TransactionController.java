@@ -1,24 +1,76 @@
 package antifraud.transaction;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import javax.validation.Valid;
+import java.io.IOException;
+import java.security.Principal;
 
 @RestController
 @RequestMapping("/api/antifraud")
 public class TransactionController {
+    static final String APPLICATION_NDJSON = "application/x-ndjson";
 
     private final TransactionValidator transactionValidator;
+    private final TransactionBatchProcessor transactionBatchProcessor;
+    private final TransactionHistory transactionHistory;
+    private final TransactionFeedbackService transactionFeedbackService;
 
-    public TransactionController(TransactionValidator transactionValidator) {
+    public TransactionController(TransactionValidator transactionValidator, TransactionBatchProcessor transactionBatchProcessor,
+                                 TransactionHistory transactionHistory, TransactionFeedbackService transactionFeedbackService) {
         this.transactionValidator = transactionValidator;
+        this.transactionBatchProcessor = transactionBatchProcessor;
+        this.transactionHistory = transactionHistory;
+        this.transactionFeedbackService = transactionFeedbackService;
     }
 
     @PostMapping("transaction")
-    public ValidationResult processTransaction(@Valid @RequestBody Transaction transaction) {
-        return new ValidationResult(transactionValidator.validate(transaction.getAmount()));
+    public ValidationResult processTransaction(@Valid @RequestBody Transaction transaction, Principal principal) {
+        TransactionStatus result = transactionValidator.validate(principal.getName(), transaction);
+        transactionHistory.record(principal.getName(), transaction, result);
+        return ValidationResult.of(result);
+    }
+
+    @PostMapping(value = "transactions/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, APPLICATION_NDJSON})
+    public void processTransactionBatch(HttpServletRequest request, HttpServletResponse response, Principal principal) throws IOException {
+        boolean ndjson = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(MediaType.parseMediaType(APPLICATION_NDJSON));
+        response.setContentType(ndjson ? APPLICATION_NDJSON : MediaType.APPLICATION_JSON_VALUE);
+        try {
+            transactionBatchProcessor.process(request.getInputStream(), response.getOutputStream(), ndjson, principal.getName());
+        } catch (JsonProcessingException e) {
+            if (!response.isCommitted()) {
+                response.reset();
+                response.sendError(HttpStatus.BAD_REQUEST.value(), e.getOriginalMessage());
+            }
+        }
+    }
+
+    /**
+     * Reports the final outcome of a transaction sent to manual review, by its id in the transaction history.
+     */
+    @PutMapping("transaction")
+    public ResponseEntity<FeedbackResponse> giveFeedback(@Valid @RequestBody TransactionFeedback feedback, Principal principal) {
+        try {
+            return ResponseEntity.ok(transactionFeedbackService.giveFeedback(feedback.getTransactionId(), feedback.getFeedback(),
+                    principal.getName()));
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        } catch (TransactionNotInHistory e) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        } catch (TransactionNotForReview e) {
+            return new ResponseEntity<>(HttpStatus.UNPROCESSABLE_ENTITY);
+        } catch (FeedbackAlreadyGiven | TransactionLeasedToAnotherReviewer e) {
+            return new ResponseEntity<>(HttpStatus.CONFLICT);
+        }
     }
 }
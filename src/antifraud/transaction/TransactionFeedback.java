@@ -0,0 +1,35 @@
+package antifraud.transaction;
+
+import jakarta.validation.constraints.NotNull;
+
+public class TransactionFeedback {
+    @NotNull
+    private Long transactionId;
+
+    @NotNull
+    private TransactionStatus feedback;
+
+    public TransactionFeedback(Long transactionId, TransactionStatus feedback) {
+        this.transactionId = transactionId;
+        this.feedback = feedback;
+    }
+
+    public TransactionFeedback() {
+    }
+
+    public Long getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(Long transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public TransactionStatus getFeedback() {
+        return feedback;
+    }
+
+    public void setFeedback(TransactionStatus feedback) {
+        this.feedback = feedback;
+    }
+}
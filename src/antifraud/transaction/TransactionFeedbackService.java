@@ -0,0 +1,84 @@
+package antifraud.transaction;
+
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+/**
+ * Records the final outcome of transactions sent to manual review and feeds it to {@link AmountLimits}. Each history
+ * row takes feedback once, so a retried or concurrent report cannot move the limits twice. Only transactions the
+ * AMOUNT rule alone sent to review teach the limits: an outcome of a review asked for by the blacklists or velocity
+ * rules says nothing about the amount.
+ */
+@Service
+class TransactionFeedbackService {
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionValidator transactionValidator;
+    private final AmountLimits amountLimits;
+    private final ReviewQueue reviewQueue;
+
+    public TransactionFeedbackService(JdbcTemplate jdbcTemplate, TransactionValidator transactionValidator,
+                                      AmountLimits amountLimits, ReviewQueue reviewQueue) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionValidator = transactionValidator;
+        this.amountLimits = amountLimits;
+        this.reviewQueue = reviewQueue;
+    }
+
+    /**
+     * Records the feedback of {@code reviewer}, who must hold the lease on the transaction if anyone does.
+     */
+    public FeedbackResponse giveFeedback(long transactionId, TransactionStatus feedback, String reviewer) {
+        if (feedback == TransactionStatus.MANUAL_PROCESSING) {
+            throw new IllegalArgumentException("Feedback must be ALLOWED or PROHIBITED");
+        }
+        Reviewed reviewed;
+        try {
+            reviewed = jdbcTemplate.queryForObject("SELECT merchant, amount, result, decided_by FROM transaction_history WHERE id = ?",
+                    (row, index) -> new Reviewed(row.getString(1), row.getLong(2), row.getString(3), row.getString(4)), transactionId);
+        } catch (EmptyResultDataAccessException e) {
+            throw new TransactionNotInHistory();
+        }
+        if (!TransactionStatus.MANUAL_PROCESSING.name().equals(reviewed.result)) {
+            throw new TransactionNotForReview();
+        }
+        reviewQueue.complete(transactionId, reviewer);
+        int updated = jdbcTemplate.update("UPDATE transaction_history SET feedback = ? WHERE id = ? AND feedback IS NULL",
+                feedback.name(), transactionId);
+        if (updated == 0) {
+            throw new FeedbackAlreadyGiven();
+        }
+        AmountLimits.Limits defaults = configuredLimits();
+        if (defaults == null || reviewed.merchant == null || !RuleType.AMOUNT.name().equals(reviewed.decidedBy)) {
+            return new FeedbackResponse(transactionId, reviewed.merchant, feedback, null, null);
+        }
+        AmountLimits.Limits limits = amountLimits.learn(reviewed.merchant, reviewed.amount, feedback, defaults);
+        return new FeedbackResponse(transactionId, reviewed.merchant, feedback, limits.allowedMax, limits.manualMax);
+    }
+
+    /**
+     * Returns the limits of the first AMOUNT rule, where merchants without feedback start, or null if there is none.
+     */
+    private AmountLimits.Limits configuredLimits() {
+        for (RuleDefinition definition : transactionValidator.getRuleSet().getConfiguration().getRules()) {
+            if (definition.getType() == RuleType.AMOUNT) {
+                return new AmountLimits.Limits(definition.getAllowedMax(), definition.getManualMax());
+            }
+        }
+        return null;
+    }
+
+    private static final class Reviewed {
+        private final String merchant;
+        private final long amount;
+        private final String result;
+        private final String decidedBy;
+
+        private Reviewed(String merchant, long amount, String result, String decidedBy) {
+            this.merchant = merchant;
+            this.amount = amount;
+            this.result = result;
+            this.decidedBy = decidedBy;
+        }
+    }
+}
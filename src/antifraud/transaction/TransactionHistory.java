@@ -0,0 +1,349 @@
+package antifraud.transaction;
+
+import antifraud.card.CardNumbers;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind store of scored transactions. Request threads only enqueue; a single writer thread drains the queue
+ * into JDBC batch inserts once {@code batch-size} records are waiting or {@code flush-interval} has passed. Inserted
+ * {@code MANUAL_PROCESSING} transactions go on to the {@link ReviewQueue} with their generated ids.
+ * <p>
+ * The history is the only source of the review queue, so {@code MANUAL_PROCESSING} transactions are never dropped:
+ * one that finds the queue full waits in an unbounded overflow queue instead, which only grows while the database is
+ * slower than the review rate, and they are written even with the history disabled. A batch that fails is retried
+ * with backoff until it is written; only rows the database rejects as invalid are dropped.
+ */
+@Component
+class TransactionHistory {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TransactionHistory.class);
+    private static final String INSERT = "INSERT INTO transaction_history (merchant, amount, ip, number, result, decided_by, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String PENDING_REVIEWS = "SELECT id, merchant, amount, ip, number, created_at FROM transaction_history "
+            + "WHERE result = 'MANUAL_PROCESSING' AND feedback IS NULL ORDER BY id";
+
+    enum OverflowPolicy {
+        DROP, // the default: never delay the request, count the record as dropped
+        BLOCK // wait up to offer-timeout for space, then drop; puts the database's insert rate on the request path
+    }
+
+    private static final long MAX_RETRY_DELAY_MILLIS = 5000;
+    private static final Record SHUTDOWN = new Record(null, 0, null, CardNumbers.INVALID, null, null, 0);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ReviewQueue reviewQueue;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final long offerTimeoutNanos;
+    private final BlockingQueue<Record> queue;
+    private final BlockingQueue<Record> reviewOverflow = new LinkedBlockingQueue<>();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final Timer writeTimer;
+    private volatile boolean running;
+    private Thread writer;
+
+    public TransactionHistory(JdbcTemplate jdbcTemplate, ReviewQueue reviewQueue,
+                              @Value("${antifraud.history.enabled:true}") boolean enabled,
+                              @Value("${antifraud.history.queue-capacity:10000}") int queueCapacity,
+                              @Value("${antifraud.history.batch-size:500}") int batchSize,
+                              @Value("${antifraud.history.flush-interval:PT0.2S}") Duration flushInterval,
+                              @Value("${antifraud.history.overflow:DROP}") OverflowPolicy overflowPolicy,
+                              @Value("${antifraud.history.offer-timeout:PT0.01S}") Duration offerTimeout,
+                              MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.reviewQueue = reviewQueue;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.overflowPolicy = overflowPolicy;
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writeTimer = Timer.builder("antifraud.history.write")
+                .description("Time to insert one batch of transactions into the history")
+                .register(meterRegistry);
+        Gauge.builder("antifraud.history.pending", this, TransactionHistory::getPending)
+                .description("Transactions waiting to be written to the history")
+                .register(meterRegistry);
+        FunctionCounter.builder("antifraud.history.dropped", dropped, AtomicLong::doubleValue)
+                .description("Transactions not written to the history because the queue was full or the database rejected them")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        jdbcTemplate.query(PENDING_REVIEWS, row -> { // the one scan; from here on the writer feeds the queue
+            long number = row.getLong(5);
+            reviewQueue.offer(new ReviewQueue.ReviewItem(row.getLong(1), row.getString(2), row.getLong(3), row.getString(4),
+                    row.wasNull() ? CardNumbers.INVALID : number, row.getTimestamp(6).getTime()));
+        });
+        running = true; // even disabled, to write the transactions sent to review
+        writer = new Thread(this::drain, "transaction-history-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        running = false;
+        queue.offer(SHUTDOWN); // wakes the writer if it is waiting for records; a full queue needs no wake-up
+        writer.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + 10_000);
+        if (writer.isAlive()) {
+            LOGGER.warn("Shut down with {} transactions not written", getPending());
+        }
+    }
+
+    public void record(String merchant, Transaction transaction, TransactionStatus result) {
+        record(merchant, transaction, result, overflowPolicy == OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * Records like {@link #record} but never waits for space, whatever the overflow policy, for callers on event-loop
+     * threads.
+     */
+    public void recordWithoutWaiting(String merchant, Transaction transaction, TransactionStatus result) {
+        record(merchant, transaction, result, false);
+    }
+
+    private void record(String merchant, Transaction transaction, TransactionStatus result, boolean wait) {
+        if (!running || !enabled && result != TransactionStatus.MANUAL_PROCESSING) {
+            return;
+        }
+        Record record = new Record(merchant, transaction.getAmount(), transaction.getIp(),
+                CardNumbers.pack(transaction.getNumber()), result, transaction.decidedBy(), System.currentTimeMillis());
+        boolean accepted;
+        if (!wait) {
+            accepted = queue.offer(record);
+        } else {
+            try {
+                accepted = queue.offer(record, offerTimeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                accepted = false;
+            }
+        }
+        if (accepted) {
+            return;
+        }
+        if (result == TransactionStatus.MANUAL_PROCESSING) {
+            reviewOverflow.add(record); // nothing else would ever queue it for review
+        } else {
+            dropped.incrementAndGet();
+        }
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getWritten() {
+        return written.get();
+    }
+
+    public int getPending() {
+        return queue.size() + reviewOverflow.size();
+    }
+
+    private void drain() {
+        List<Record> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty() || !reviewOverflow.isEmpty()) {
+            try {
+                Record first = reviewOverflow.poll();
+                if (first == null) {
+                    first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                }
+                if (first == null || first == SHUTDOWN) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize && running) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    Record next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null || next == SHUTDOWN) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                queue.drainTo(batch, batchSize - batch.size());
+                reviewOverflow.drainTo(batch, batchSize);
+                batch.remove(SHUTDOWN);
+                write(batch);
+            } catch (InterruptedException e) {
+                running = false;
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Writes the batch, retrying with backoff while the database fails. If it rejects the batch as invalid, the rows
+     * are written one by one and only those it rejects are dropped.
+     */
+    private void write(List<Record> batch) throws InterruptedException {
+        boolean oneByOne = false;
+        long delayMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos));
+        while (true) {
+            try {
+                if (oneByOne) {
+                    insertEach(batch);
+                } else {
+                    insert(batch);
+                }
+                return;
+            } catch (DataIntegrityViolationException e) {
+                oneByOne = true;
+            } catch (RuntimeException e) {
+                LOGGER.error("Failed to write {} transactions to history, retrying in {} ms", batch.size(), delayMillis, e);
+                Thread.sleep(delayMillis);
+                delayMillis = Math.min(2 * delayMillis, MAX_RETRY_DELAY_MILLIS);
+            }
+        }
+    }
+
+    private void insertEach(List<Record> batch) {
+        for (Iterator<Record> records = batch.iterator(); records.hasNext(); ) {
+            Record record = records.next();
+            try {
+                insert(List.of(record));
+            } catch (DataIntegrityViolationException e) {
+                dropped.incrementAndGet();
+                LOGGER.error("History rejected a {} transaction of {}, dropping it", record.result, record.merchant, e);
+            }
+            records.remove(); // a retry after another failure starts from the next row
+        }
+    }
+
+    private void insert(List<Record> batch) {
+        long start = System.nanoTime();
+        try {
+            long[] ids = jdbcTemplate.execute((ConnectionCallback<long[]>) connection -> insert(connection, batch));
+            queueForReview(batch, ids);
+            written.addAndGet(batch.size());
+        } finally {
+            writeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Inserts the batch in one database transaction, so a retry never writes a row twice, and returns the generated
+     * ids if it holds a transaction for review, else null.
+     */
+    private long[] insert(Connection connection, List<Record> batch) throws SQLException {
+        boolean forReview = batch.stream().anyMatch(record -> record.result == TransactionStatus.MANUAL_PROCESSING);
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try (PreparedStatement statement = forReview
+                ? connection.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS) // only pay for the ids when they are needed
+                : connection.prepareStatement(INSERT)) {
+            for (Record record : batch) {
+                statement.setString(1, record.merchant);
+                statement.setLong(2, record.amount);
+                statement.setString(3, record.ip);
+                if (record.number == CardNumbers.INVALID) {
+                    statement.setNull(4, Types.BIGINT);
+                } else {
+                    statement.setLong(4, record.number);
+                }
+                statement.setString(5, record.result.name());
+                statement.setString(6, record.decidedBy == null ? null : record.decidedBy.name());
+                statement.setTimestamp(7, new Timestamp(record.createdAt));
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            long[] ids = forReview ? generatedIds(statement, batch.size()) : null;
+            connection.commit();
+            return ids;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static long[] generatedIds(PreparedStatement statement, int rows) throws SQLException {
+        long[] ids = new long[rows];
+        int count = 0;
+        try (ResultSet keys = statement.getGeneratedKeys()) { // one per row, in batch order
+            while (count < rows && keys.next()) {
+                ids[count++] = keys.getLong(1);
+            }
+        }
+        return count == rows ? ids : Arrays.copyOf(ids, count);
+    }
+
+    private void queueForReview(List<Record> batch, long[] ids) {
+        if (ids == null) {
+            return;
+        }
+        for (int i = 0; i < ids.length; i++) {
+            Record record = batch.get(i);
+            if (record.result == TransactionStatus.MANUAL_PROCESSING) {
+                reviewQueue.offer(new ReviewQueue.ReviewItem(ids[i], record.merchant, record.amount, record.ip,
+                        record.number, record.createdAt));
+            }
+        }
+    }
+
+    private static final class Record {
+        private final String merchant;
+        private final long amount;
+        private final String ip;
+        private final long number;
+        private final TransactionStatus result;
+        private final RuleType decidedBy;
+        private final long createdAt;
+
+        private Record(String merchant, long amount, String ip, long number, TransactionStatus result, RuleType decidedBy,
+                       long createdAt) {
+            this.merchant = merchant;
+            this.amount = amount;
+            this.ip = ip;
+            this.number = number;
+            this.result = result;
+            this.decidedBy = decidedBy;
+            this.createdAt = createdAt;
+        }
+    }
+}
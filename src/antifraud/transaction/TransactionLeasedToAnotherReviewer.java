@@ -0,0 +1,4 @@
+package antifraud.transaction;
+
+public class TransactionLeasedToAnotherReviewer extends RuntimeException {
+}
@@ -0,0 +1,4 @@
+package antifraud.transaction;
+
+public class TransactionNotInHistory extends RuntimeException {
+}
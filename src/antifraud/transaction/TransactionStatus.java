@@ -1,6 +1,6 @@
 package antifraud.transaction;
 
-enum TransactionStatus {
+public enum TransactionStatus {
     ALLOWED,
     PROHIBITED,
     MANUAL_PROCESSING
@@ -1,20 +1,96 @@
 package antifraud.transaction;
 
+import antifraud.card.CardNumbers;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
 @Component
 class TransactionValidator {
 
-    private static final int ALLOWED_MAX = 200;
-    private static final int MANUAL_MAX = 1500;
+    private final RuleLoader ruleLoader;
+    private final RuleCompiler ruleCompiler;
+    private final VelocityStore velocityStore;
+    private final DecisionJournal decisionJournal;
+    private final Timer validationTimer;
+    private final Counter[] decisionCounters; // indexed by TransactionStatus.ordinal(), so recording never looks up tags
+    private final ReentrantLock installLock = new ReentrantLock(); // loading reads a file, which must not pin a virtual thread's carrier
+    private volatile RuleSet ruleSet;
+
+    public TransactionValidator(RuleLoader ruleLoader, RuleCompiler ruleCompiler, VelocityStore velocityStore,
+                                DecisionJournal decisionJournal, MeterRegistry meterRegistry) {
+        this.ruleLoader = ruleLoader;
+        this.ruleCompiler = ruleCompiler;
+        this.velocityStore = velocityStore;
+        this.decisionJournal = decisionJournal;
+        this.validationTimer = Timer.builder("antifraud.transaction.validation")
+                .description("Time to score a transaction against the active rules")
+                .register(meterRegistry);
+        TransactionStatus[] statuses = TransactionStatus.values();
+        this.decisionCounters = new Counter[statuses.length];
+        for (TransactionStatus status : statuses) {
+            decisionCounters[status.ordinal()] = Counter.builder("antifraud.transaction.decisions")
+                    .description("Scored transactions by result")
+                    .tag("status", status.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    @PostConstruct
+    public RuleSet reload() {
+        installLock.lock();
+        try {
+            return install(ruleLoader.load());
+        } finally {
+            installLock.unlock();
+        }
+    }
+
+    public RuleSet install(RulesConfiguration configuration) {
+        installLock.lock();
+        try {
+            long version = ruleSet == null ? 1 : ruleSet.getVersion() + 1;
+            RuleSet compiled = ruleCompiler.compile(configuration, version);
+            ruleSet = compiled; // readers switch over atomically, no request ever waits for a reload
+            return compiled;
+        } finally {
+            installLock.unlock();
+        }
+    }
+
+    public RuleSet getRuleSet() {
+        return ruleSet;
+    }
+
+    /**
+     * Scores a transaction of {@code merchant}, whose learned amount limits then replace the configured ones.
+     */
+    public TransactionStatus validate(String merchant, Transaction transaction) {
+        transaction.merchant(merchant);
+        return validate(transaction);
+    }
 
-    public TransactionStatus validate(long amount) {
-        if (amount <= ALLOWED_MAX) {
-            return TransactionStatus.ALLOWED;
-        } else if (amount <= MANUAL_MAX) {
-            return TransactionStatus.MANUAL_PROCESSING;
-        } else {
-            return TransactionStatus.PROHIBITED;
+    public TransactionStatus validate(Transaction transaction) {
+        long start = System.nanoTime();
+        long now = System.currentTimeMillis();
+        transaction.timestamp(now);
+        RuleSet rules = ruleSet; // one read, so the journal names the version that decided
+        TransactionStatus result = rules.evaluate(transaction);
+        long card = CardNumbers.pack(transaction.getNumber());
+        int ip = VelocityStore.ipOf(transaction);
+        int region = VelocityStore.regionOf(transaction);
+        if (card != CardNumbers.INVALID) { // recorded after evaluation so velocity rules only see earlier activity
+            velocityStore.record(card, now, ip, region);
         }
+        validationTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        decisionCounters[result.ordinal()].increment();
+        decisionJournal.append(now, transaction.merchant(), transaction.getAmount(), ip, transaction.getIp() != null, card,
+                region, result, rules.getVersion());
+        return result;
     }
 }
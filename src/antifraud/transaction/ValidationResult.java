@@ -1,25 +1,40 @@
 package antifraud.transaction;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import java.util.Objects;
 
+/**
+ * The decision on a scored transaction. Immutable, as scoring answers with one shared instance per status.
+ */
 public class ValidationResult {
-    private TransactionStatus result;
+    private static final ValidationResult[] SHARED = new ValidationResult[TransactionStatus.values().length];
+
+    static {
+        for (TransactionStatus status : TransactionStatus.values()) {
+            SHARED[status.ordinal()] = new ValidationResult(status);
+        }
+    }
+
+    private final TransactionStatus result;
 
-    public ValidationResult(TransactionStatus result) {
+    @JsonCreator
+    public ValidationResult(@JsonProperty("result") TransactionStatus result) {
         this.result = result;
     }
 
-    public ValidationResult() {
+    /**
+     * Returns the shared result for a status, so scoring allocates none.
+     */
+    static ValidationResult of(TransactionStatus status) {
+        return SHARED[status.ordinal()];
     }
 
     public TransactionStatus getResult() {
         return result;
     }
 
-    public void setResult(TransactionStatus result) {
-        this.result = result;
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
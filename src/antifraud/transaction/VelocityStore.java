@@ -0,0 +1,350 @@
+package antifraud.transaction;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Recent activity per card: a ring of {@code buckets} time buckets spanning the retention period for each packed card
+ * number, each holding the distinct IPs and regions seen in it with the last time each was seen. Repeated activity
+ * from one address only refreshes its entry, so nothing seen inside the window is pushed out by later traffic. A
+ * bucket keeps at most {@code ips-per-bucket} distinct IPs; past that it is saturated and counts as at least any
+ * limit asked for. Cards are spread over independently locked stripes, so requests for different cards rarely meet
+ * on the same lock. Cards without activity inside the retention period are evicted, and each stripe holds at most its
+ * share of {@code max-cards}, dropping the least recently seen quarter when full.
+ */
+@Component
+class VelocityStore {
+    static final int UNKNOWN_IP = 0;
+    static final int UNKNOWN_REGION = -1;
+
+    private static final long EMPTY = 0L; // never a valid card number
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final int REGIONS = Region.values().length;
+
+    private final Stripe[] stripes;
+    private final int buckets;
+    private final int ipsPerBucket;
+    private final long bucketMillis;
+    private final int maxCardsPerStripe;
+    private final long retentionMillis;
+
+    public VelocityStore(@Value("${antifraud.velocity.stripes:64}") int stripes,
+                         @Value("${antifraud.velocity.buckets:12}") int buckets,
+                         @Value("${antifraud.velocity.ips-per-bucket:16}") int ipsPerBucket,
+                         @Value("${antifraud.velocity.max-cards:100000}") int maxCards,
+                         @Value("${antifraud.velocity.retention:PT1H}") Duration retention) {
+        if (buckets < 1 || ipsPerBucket < 1) {
+            throw new IllegalArgumentException("antifraud.velocity.buckets and ips-per-bucket must be positive");
+        }
+        int stripeCount = Integer.highestOneBit(Math.max(stripes, 1) * 2 - 1);
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.buckets = buckets;
+        this.ipsPerBucket = ipsPerBucket;
+        this.maxCardsPerStripe = Math.max(maxCards / stripeCount, 1);
+        this.retentionMillis = retention.toMillis();
+        this.bucketMillis = Math.max(1, (retentionMillis + buckets - 1) / buckets);
+    }
+
+    /**
+     * Returns an empty store with the same settings, for scoring outside the live traffic.
+     */
+    VelocityStore emptyCopy() {
+        return new VelocityStore(stripes.length, buckets, ipsPerBucket, maxCardsPerStripe * stripes.length,
+                Duration.ofMillis(retentionMillis));
+    }
+
+    long getRetentionMillis() {
+        return retentionMillis;
+    }
+
+    void record(long card, long timestamp, int ip, int region) {
+        long hash = mix(card);
+        Stripe stripe = stripeFor(hash);
+        stripe.lock();
+        try {
+            Activity activity = stripe.get(card, hash);
+            if (activity == null) {
+                activity = new Activity(buckets + 1); // one spare, so a window of the whole retention starting mid-bucket keeps it
+                stripe.put(card, hash, activity, timestamp - retentionMillis, maxCardsPerStripe);
+            }
+            activity.add(timestamp, Math.floorDiv(timestamp, bucketMillis), ip, region, ipsPerBucket);
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * Counts distinct known IPs other than {@code excludedIp} seen for the card since {@code since}, stopping at
+     * {@code limit}. Returns {@code limit} if a saturated bucket falls inside the window.
+     */
+    int countDistinctIPs(long card, long since, int excludedIp, int limit) {
+        long hash = mix(card);
+        Stripe stripe = stripeFor(hash);
+        stripe.lock();
+        try {
+            Activity activity = stripe.get(card, hash);
+            if (activity == null) {
+                return 0;
+            }
+            long firstBucket = Math.floorDiv(since, bucketMillis);
+            int[] seen = stripe.scratch(limit);
+            int distinct = 0;
+            for (Bucket bucket : activity.buckets) {
+                if (bucket == null || bucket.index < firstBucket) {
+                    continue;
+                }
+                if (bucket.saturatedAt >= since) {
+                    return limit;
+                }
+                for (int i = 0; i < bucket.ipCount && distinct < limit; i++) {
+                    int ip = bucket.ips[i];
+                    if (bucket.ipLastSeen[i] < since || ip == excludedIp || contains(seen, distinct, ip)) {
+                        continue;
+                    }
+                    seen[distinct++] = ip;
+                }
+            }
+            return distinct;
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * Counts distinct known regions other than {@code excludedRegion} seen for the card since {@code since}.
+     */
+    int countDistinctRegions(long card, long since, int excludedRegion) {
+        long hash = mix(card);
+        Stripe stripe = stripeFor(hash);
+        stripe.lock();
+        try {
+            Activity activity = stripe.get(card, hash);
+            if (activity == null) {
+                return 0;
+            }
+            long firstBucket = Math.floorDiv(since, bucketMillis);
+            long regions = 0;
+            for (Bucket bucket : activity.buckets) {
+                if (bucket == null || bucket.index < firstBucket) {
+                    continue;
+                }
+                for (int region = 0; region < REGIONS; region++) {
+                    if (bucket.regionLastSeen[region] >= since && region != excludedRegion) {
+                        regions |= 1L << region;
+                    }
+                }
+            }
+            return Long.bitCount(regions);
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock();
+            try {
+                size += stripe.size;
+            } finally {
+                stripe.unlock();
+            }
+        }
+        return size;
+    }
+
+    static int ipOf(Transaction transaction) {
+        return transaction.getIp() == null ? UNKNOWN_IP : transaction.address();
+    }
+
+    static int regionOf(Transaction transaction) {
+        return transaction.getRegion() == null ? UNKNOWN_REGION : transaction.getRegion().ordinal();
+    }
+
+    private Stripe stripeFor(long hash) {
+        return stripes[(int) (hash >>> 32) & (stripes.length - 1)];
+    }
+
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long mix(long card) { // SplitMix64 finalizer
+        long z = card * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static final class Activity {
+        private final Bucket[] buckets; // slot = bucket index modulo length, allocated on first use
+        private long lastSeen = Long.MIN_VALUE;
+
+        private Activity(int buckets) {
+            this.buckets = new Bucket[buckets];
+        }
+
+        void add(long timestamp, long index, int ip, int region, int ipsPerBucket) {
+            int slot = (int) Math.floorMod(index, (long) buckets.length);
+            Bucket bucket = buckets[slot];
+            if (bucket == null) {
+                bucket = new Bucket(index);
+                buckets[slot] = bucket;
+            } else if (bucket.index < index) {
+                bucket.reset(index); // last seen a full ring ago, outside the retention
+            } else if (bucket.index > index) {
+                return; // arrived after its bucket was reused, so older than the retention
+            }
+            if (ip != UNKNOWN_IP) {
+                bucket.addIp(ip, timestamp, ipsPerBucket);
+            }
+            if (region != UNKNOWN_REGION) {
+                bucket.regionLastSeen[region] = Math.max(bucket.regionLastSeen[region], timestamp);
+            }
+            lastSeen = Math.max(lastSeen, timestamp);
+        }
+    }
+
+    private static final class Bucket {
+        private long index;
+        private int[] ips = new int[2];
+        private long[] ipLastSeen = new long[2];
+        private int ipCount;
+        private long saturatedAt = Long.MIN_VALUE; // last time a new IP did not fit
+        private final long[] regionLastSeen = new long[REGIONS];
+
+        private Bucket(long index) {
+            this.index = index;
+            Arrays.fill(regionLastSeen, Long.MIN_VALUE);
+        }
+
+        void reset(long index) {
+            this.index = index;
+            ipCount = 0;
+            saturatedAt = Long.MIN_VALUE;
+            Arrays.fill(regionLastSeen, Long.MIN_VALUE);
+        }
+
+        void addIp(int ip, long timestamp, int maxIps) {
+            for (int i = 0; i < ipCount; i++) {
+                if (ips[i] == ip) {
+                    ipLastSeen[i] = Math.max(ipLastSeen[i], timestamp);
+                    return;
+                }
+            }
+            if (ipCount == maxIps) {
+                saturatedAt = Math.max(saturatedAt, timestamp);
+                return;
+            }
+            if (ipCount == ips.length) {
+                int capacity = Math.min(2 * ips.length, maxIps);
+                ips = Arrays.copyOf(ips, capacity);
+                ipLastSeen = Arrays.copyOf(ipLastSeen, capacity);
+            }
+            ips[ipCount] = ip;
+            ipLastSeen[ipCount++] = timestamp;
+        }
+    }
+
+    /**
+     * Open-addressing map from card to activity, guarded by itself as a lock. A lock rather than a monitor, so a
+     * virtual thread waiting for it unmounts instead of pinning its carrier.
+     */
+    private static final class Stripe extends ReentrantLock {
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private Activity[] values = new Activity[INITIAL_CAPACITY];
+        private int size;
+        private int[] scratch = new int[8];
+
+        Activity get(long card, long hash) {
+            int mask = keys.length - 1;
+            int slot = (int) hash & mask;
+            while (keys[slot] != EMPTY) {
+                if (keys[slot] == card) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+
+        void put(long card, long hash, Activity activity, long idleBefore, int maxCards) {
+            if (size >= maxCards || (size + 1) * 2 > keys.length) {
+                rebuild(idleBefore, maxCards);
+            }
+            insert(keys, values, card, hash, activity);
+            size++;
+        }
+
+        int[] scratch(int length) {
+            if (scratch.length < length) {
+                scratch = new int[length];
+            }
+            return scratch;
+        }
+
+        private void rebuild(long idleBefore, int maxCards) {
+            long evictBefore = idleBefore;
+            if (liveCount(idleBefore) >= maxCards) {
+                evictBefore = Math.max(idleBefore, oldestQuarterCutoff());
+            }
+            int live = liveCount(evictBefore);
+            int capacity = Math.max(INITIAL_CAPACITY, Integer.highestOneBit(Math.max(live + 1, 2) * 2 - 1) << 1);
+            long[] newKeys = new long[capacity];
+            Activity[] newValues = new Activity[capacity];
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != EMPTY && values[i].lastSeen >= evictBefore) {
+                    insert(newKeys, newValues, keys[i], mix(keys[i]), values[i]);
+                }
+            }
+            keys = newKeys;
+            values = newValues;
+            size = live;
+        }
+
+        private int liveCount(long since) {
+            int live = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != EMPTY && values[i].lastSeen >= since) {
+                    live++;
+                }
+            }
+            return live;
+        }
+
+        private long oldestQuarterCutoff() {
+            long[] lastSeen = new long[size];
+            int n = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != EMPTY) {
+                    lastSeen[n++] = values[i].lastSeen;
+                }
+            }
+            Arrays.sort(lastSeen, 0, n);
+            return lastSeen[n / 4] + 1;
+        }
+
+        private static void insert(long[] keys, Activity[] values, long card, long hash, Activity activity) {
+            int mask = keys.length - 1;
+            int slot = (int) hash & mask;
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = card;
+            values[slot] = activity;
+        }
+    }
+}
@@ -9,5 +9,34 @@ CREATE TABLE IF NOT EXISTS users (
 
 CREATE TABLE IF NOT EXISTS ip (
     id INT AUTO_INCREMENT PRIMARY KEY,
-    ip varchar(15)
+    address_high BIGINT NOT NULL,
+    address_low BIGINT NOT NULL,
+    UNIQUE (address_high, address_low)
+);
+
+CREATE TABLE IF NOT EXISTS stolen_card (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    number BIGINT NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS transaction_history (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    merchant varchar(50),
+    amount BIGINT NOT NULL,
+    ip varchar(15),
+    number BIGINT,
+    result varchar(20) NOT NULL,
+    decided_by varchar(20),
+    created_at TIMESTAMP NOT NULL,
+    feedback varchar(20)
+);
+
+-- databases created before feedback and the deciding rule were recorded
+ALTER TABLE transaction_history ADD COLUMN IF NOT EXISTS feedback varchar(20);
+ALTER TABLE transaction_history ADD COLUMN IF NOT EXISTS decided_by varchar(20);
+
+CREATE TABLE IF NOT EXISTS merchant_limit (
+    merchant varchar(50) PRIMARY KEY,
+    allowed_max BIGINT NOT NULL,
+    manual_max BIGINT NOT NULL
 )
\ No newline at end of file
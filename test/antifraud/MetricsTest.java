@@ -0,0 +1,79 @@
+package antifraud;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+@AutoConfigureObservability
+@TestPropertySource(properties = {
+        "management.endpoints.web.exposure.include=metrics,prometheus",
+        "management.metrics.distribution.percentiles-histogram.antifraud=true",
+        "management.metrics.distribution.percentiles-histogram.spring.data.repository.invocations=true",
+        "management.metrics.distribution.percentiles.antifraud=0.5,0.99,0.999"
+})
+class MetricsTest extends ControllerTest {
+
+    @Test
+    void shouldCountDecisionsAndTriggeredRules() {
+        postTransaction("{\"amount\": 1700}");
+
+        webClient.get()
+                .uri("/actuator/metrics/antifraud.transaction.decisions?tag=status:PROHIBITED")
+                .headers(headers -> headers.setBasicAuth(ADMIN_USERNAME, PASSWORD))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.measurements[0].value").value(greaterThanOrEqualTo(1.0));
+        webClient.get()
+                .uri("/actuator/metrics/antifraud.rule.triggered?tag=rule:AMOUNT&tag=result:PROHIBITED")
+                .headers(headers -> headers.setBasicAuth(ADMIN_USERNAME, PASSWORD))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.measurements[0].value").value(greaterThanOrEqualTo(1.0));
+    }
+
+    @Test
+    void shouldExposeLatencyHistogramsInPrometheusFormat() {
+        postTransaction("{\"amount\": 50, \"ip\": \"192.168.0.1\"}");
+
+        webClient.get()
+                .uri("/actuator/prometheus")
+                .headers(headers -> headers.setBasicAuth(ADMIN_USERNAME, PASSWORD))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .value(containsString("antifraud_transaction_validation_seconds_bucket"))
+                .value(containsString("antifraud_transaction_validation_seconds{quantile=\"0.99\""))
+                .value(containsString("antifraud_ip_lookup_seconds_bucket"))
+                .value(containsString("antifraud_auth_authentication_seconds_bucket{cache=\"miss\""))
+                .value(containsString("spring_data_repository_invocations_seconds_bucket"));
+    }
+
+    @Test
+    void shouldRequireAdministratorForMetrics() {
+        webClient.get()
+                .uri("/actuator/prometheus")
+                .headers(headers -> headers.setBasicAuth(MERCHANT_USERNAME, PASSWORD))
+                .exchange()
+                .expectStatus().isForbidden();
+        webClient.get()
+                .uri("/actuator/metrics")
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    private void postTransaction(String body) {
+        webClient.post()
+                .uri("/api/antifraud/transaction")
+                .headers(headers -> headers.setBasicAuth(MERCHANT_USERNAME, PASSWORD))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk();
+    }
+}
@@ -0,0 +1,71 @@
+package antifraud;
+
+import antifraud.auth.dto.TokenResponse;
+import org.apache.tomcat.util.threads.VirtualThreadExecutor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+class VirtualThreadsTest extends ControllerTest {
+
+    @Autowired
+    private ServletWebServerApplicationContext context;
+
+    @Test
+    void shouldHandleRequestsOnVirtualThreads() {
+        TomcatWebServer server = (TomcatWebServer) context.getWebServer();
+
+        assertInstanceOf(VirtualThreadExecutor.class, server.getTomcat().getConnector().getProtocolHandler().getExecutor());
+    }
+
+    @Test
+    void shouldScoreConcurrentTransactions() throws Exception {
+        // one token for every request, so they test scoring concurrency rather than wait on BCrypt
+        TokenResponse token = webClient.post()
+                .uri("/api/auth/token")
+                .headers(headers -> headers.setBasicAuth(MERCHANT_USERNAME, PASSWORD))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(TokenResponse.class)
+                .returnResult()
+                .getResponseBody();
+        assertNotNull(token);
+        WebTestClient client = webClient.mutate().responseTimeout(Duration.ofSeconds(30)).build();
+        List<Callable<String>> requests = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            requests.add(() -> client.post()
+                    .uri("/api/antifraud/transaction")
+                    .headers(headers -> headers.setBearerAuth(token.getToken()))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue("{\"amount\": 50}")
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(String.class)
+                    .returnResult()
+                    .getResponseBody());
+        }
+
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Future<String> response : clients.invokeAll(requests)) {
+                assertTrue(response.get().contains("ALLOWED"));
+            }
+        }
+    }
+}
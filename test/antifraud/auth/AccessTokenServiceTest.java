@@ -0,0 +1,42 @@
+package antifraud.auth;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccessTokenServiceTest {
+    @Test
+    void shouldRevokeTokenIssuedBeforeTransactionCompleted() throws InterruptedException {
+        var service = new AccessTokenService(Duration.ofMinutes(15), "");
+        TransactionSynchronizationManager.initSynchronization();
+        String token;
+        try {
+            service.revoke("merchant");
+            Thread.sleep(2); // issued after the revocation, from the state before the commit
+            token = service.issue("merchant", Role.MERCHANT).getToken();
+            assertTrue(service.verify(token).isPresent());
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertFalse(service.verify(token).isPresent());
+    }
+
+    @Test
+    void shouldKeepTokenIssuedAfterRevocation() throws InterruptedException {
+        var service = new AccessTokenService(Duration.ofMinutes(15), "");
+        service.revoke("merchant");
+        Thread.sleep(2);
+
+        assertTrue(service.verify(service.issue("merchant", Role.MERCHANT).getToken()).isPresent());
+    }
+}
@@ -0,0 +1,126 @@
+package antifraud.auth;
+
+import antifraud.ControllerTest;
+import antifraud.auth.dto.Operation;
+import antifraud.auth.dto.RoleChangeRequest;
+import antifraud.auth.dto.TokenResponse;
+import antifraud.auth.dto.UserLockRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AccessTokenTest extends ControllerTest {
+    private static final String TOKEN_ENDPOINT = "/api/auth/token";
+    private static final String TRANSACTION_ENDPOINT = "/api/antifraud/transaction";
+
+    @Test
+    void shouldIssueTokenForBasicCredentials() {
+        var response = webClient.post()
+                .uri(TOKEN_ENDPOINT)
+                .headers(headers -> headers.setBasicAuth(MERCHANT_USERNAME, PASSWORD))
+                .exchange();
+
+        response
+                .expectStatus().isOk()
+                .expectBody(TokenResponse.class)
+                .consumeWith(body -> {
+                    TokenResponse token = body.getResponseBody();
+                    assertNotNull(token);
+                    assertNotNull(token.getToken());
+                    assertTrue(token.getExpiresAt() > System.currentTimeMillis());
+                });
+    }
+
+    @Test
+    void shouldReturnUnauthorizedForAnonymousTokenRequest() {
+        webClient.post().uri(TOKEN_ENDPOINT).exchange().expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void shouldNotExchangeTokenForAnotherToken() {
+        String token = issueToken(MERCHANT_USERNAME);
+
+        webClient.post()
+                .uri(TOKEN_ENDPOINT)
+                .headers(headers -> headers.setBearerAuth(token))
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void shouldAuthorizeRequestWithToken() {
+        String token = issueToken(MERCHANT_USERNAME);
+
+        buildTransactionRequest(token).exchange().expectStatus().isOk();
+    }
+
+    @Test
+    void shouldApplyRoleCarriedByToken() {
+        String token = issueToken(SUPPORT_USERNAME);
+
+        buildTransactionRequest(token).exchange().expectStatus().isForbidden();
+    }
+
+    @Test
+    void shouldRejectTamperedToken() {
+        String token = issueToken(MERCHANT_USERNAME);
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        buildTransactionRequest(tampered).exchange().expectStatus().isUnauthorized();
+        buildTransactionRequest("garbage").exchange().expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void shouldRevokeTokenWhenUserIsLocked() {
+        String token = issueToken(MERCHANT_USERNAME);
+
+        webClient.put()
+                .uri("/api/auth/access")
+                .headers(headers -> headers.setBasicAuth(ADMIN_USERNAME, PASSWORD))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UserLockRequest(MERCHANT_USERNAME, Operation.LOCK))
+                .exchange()
+                .expectStatus().isOk();
+
+        buildTransactionRequest(token).exchange().expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void shouldRevokeTokenWhenRoleChanges() {
+        String token = issueToken(MERCHANT_USERNAME);
+
+        webClient.put()
+                .uri("/api/auth/role")
+                .headers(headers -> headers.setBasicAuth(ADMIN_USERNAME, PASSWORD))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new RoleChangeRequest(MERCHANT_USERNAME, Role.SUPPORT.name()))
+                .exchange()
+                .expectStatus().isOk();
+
+        buildTransactionRequest(token).exchange().expectStatus().isUnauthorized();
+    }
+
+    private String issueToken(String username) {
+        TokenResponse response = webClient.post()
+                .uri(TOKEN_ENDPOINT)
+                .headers(headers -> headers.setBasicAuth(username, PASSWORD))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(TokenResponse.class)
+                .returnResult()
+                .getResponseBody();
+        assertNotNull(response);
+        return response.getToken();
+    }
+
+    private WebTestClient.RequestHeadersSpec<?> buildTransactionRequest(String token) {
+        return webClient.post()
+                .uri(TRANSACTION_ENDPOINT)
+                .headers(headers -> headers.setBearerAuth(token))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"amount\": 100}");
+    }
+}
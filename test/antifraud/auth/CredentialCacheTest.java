@@ -0,0 +1,67 @@
+package antifraud.auth;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CredentialCacheTest {
+    private static final UserDetails DETAILS = org.springframework.security.core.userdetails.User
+            .withUsername("merchant")
+            .password("hash")
+            .roles(Role.MERCHANT.name())
+            .build();
+
+    @Test
+    void shouldReturnDetailsOnlyForMatchingPassword() {
+        var cache = new CredentialCache(Duration.ofMinutes(1), 10);
+        cache.put("merchant", "password", DETAILS, cache.generation());
+
+        assertSame(DETAILS, cache.get("merchant", "password"));
+        assertNull(cache.get("merchant", "wrong"));
+        assertNull(cache.get("other", "password"));
+    }
+
+    @Test
+    void shouldForgetInvalidatedUser() {
+        var cache = new CredentialCache(Duration.ofMinutes(1), 10);
+        cache.put("merchant", "password", DETAILS, cache.generation());
+
+        cache.invalidate("merchant");
+
+        assertNull(cache.get("merchant", "password"));
+    }
+
+    @Test
+    void shouldNotCacheDetailsLoadedBeforeInvalidation() {
+        var cache = new CredentialCache(Duration.ofMinutes(1), 10);
+        long generation = cache.generation();
+        cache.invalidate("merchant");
+
+        cache.put("merchant", "password", DETAILS, generation);
+
+        assertNull(cache.get("merchant", "password"));
+    }
+
+    @Test
+    void shouldExpireEntries() throws InterruptedException {
+        var cache = new CredentialCache(Duration.ofMillis(10), 10);
+        cache.put("merchant", "password", DETAILS, cache.generation());
+
+        Thread.sleep(20);
+
+        assertNull(cache.get("merchant", "password"));
+    }
+
+    @Test
+    void shouldNotGrowBeyondMaxSize() {
+        var cache = new CredentialCache(Duration.ofMinutes(1), 1);
+        cache.put("merchant", "password", DETAILS, cache.generation());
+        cache.put("support", "password", DETAILS, cache.generation());
+
+        assertNotNull(cache.get("merchant", "password"));
+        assertNull(cache.get("support", "password"));
+    }
+}
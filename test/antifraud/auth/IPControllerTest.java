@@ -2,6 +2,7 @@ package antifraud.auth;
 
 import antifraud.ip.IP;
 import antifraud.ip.IPRepository;
+import antifraud.ip.dto.IPResponse;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
@@ -10,14 +11,20 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -117,6 +124,49 @@ public class IPControllerTest {
         response.expectStatus().isEqualTo(HttpStatus.CONFLICT);
     }
 
+    @Test
+    void shouldReturnCanonicalFormForSupportAddingIPv6() {
+        var response = webClient.post()
+                .uri(ANTIFRAUD_TRANSACTION_ENDPOINT)
+                .headers(http -> http.setBasicAuth(SUPPORT_USERNAME, PASSWORD))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"ip\": \"2001:0DB8:0000:0000:0000:0000:0000:0001\"}")
+                .exchange();
+
+        response.expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isNumber()
+                .jsonPath("$.ip").isEqualTo("2001:db8::1");
+        assertTrue(ipRepository.findByIp("2001:db8::1").isPresent());
+    }
+
+    @Test
+    void shouldReturnConflictForIPv4MappedFormOfIPInDatabase() {
+        ipRepository.save(new IP("10.10.0.2"));
+
+        var response = webClient.post()
+                .uri(ANTIFRAUD_TRANSACTION_ENDPOINT)
+                .headers(http -> http.setBasicAuth(SUPPORT_USERNAME, PASSWORD))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"ip\": \"::ffff:10.10.0.2\"}")
+                .exchange();
+
+        response.expectStatus().isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"2001:db8::1::1", "1:2:3:4:5:6:7", "::fffff"})
+    void shouldReturnBadRequestForAddingWrongIPv6Format(String ip) {
+        var response = webClient.post()
+                .uri(ANTIFRAUD_TRANSACTION_ENDPOINT)
+                .headers(http -> http.setBasicAuth(SUPPORT_USERNAME, PASSWORD))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"ip\": \"" + ip + "\"}")
+                .exchange();
+
+        response.expectStatus().isBadRequest();
+    }
+
     @Test
     void shouldReturnUnauthorizedForAnonymousDeletingIP() {
         var response = webClient.delete()
@@ -151,6 +201,18 @@ public class IPControllerTest {
         assertFalse(ipRepository.findByIp(ip).isPresent());
     }
 
+    @Test
+    void shouldRemoveIPv6GivenInAnyNotation() {
+        ipRepository.save(new IP("fe80::1:2"));
+
+        webClient.delete()
+                .uri(ANTIFRAUD_TRANSACTION_ENDPOINT + "/fe80:0:0:0:0:0:1:2")
+                .headers(http -> http.setBasicAuth(SUPPORT_USERNAME, PASSWORD))
+                .exchange()
+                .expectStatus().isOk();
+        assertFalse(ipRepository.findByIp("fe80::1:2").isPresent());
+    }
+
     @Test
     void shouldReturnBadRequestForRemovingWrongIPFormat() {
         String ip = "12.wrongip.266.-9";
@@ -195,7 +257,9 @@ public class IPControllerTest {
     @Test
     void shouldReturnOkAndListIPsInAscendingOrderForSupport() {
         List<String> ips = List.of("192.168.0.1", "192.168.0.2", "192.168.0.3");
-        ipRepository.saveAll(ips.stream().map(IP::new).collect(Collectors.toList()));
+        List<Integer> ids = StreamSupport.stream(ipRepository.saveAll(ips.stream().map(IP::new).collect(Collectors.toList())).spliterator(), false)
+                .map(ip -> (int) ip.getId())
+                .collect(Collectors.toList());
 
         var response = webClient.get()
                 .uri(ANTIFRAUD_TRANSACTION_ENDPOINT)
@@ -204,8 +268,8 @@ public class IPControllerTest {
 
         response.expectStatus().isOk()
                 .expectBody()
-                .jsonPath("$..id").isEqualTo(List.of(1, 2, 3))
-                .jsonPath("$..ip").isEqualTo(ips);
+                .jsonPath("$..id").value(equalTo(ids))
+                .jsonPath("$..ip").value(equalTo(ips));
     }
 
     @Test
@@ -216,6 +280,175 @@ public class IPControllerTest {
                 .exchange();
 
         response.expectStatus().isOk()
-                .expectBody().jsonPath("$").isArray().isEmpty();
+                .expectBody().jsonPath("$").isArray().jsonPath("$").isEmpty();
+    }
+
+    @Test
+    void shouldPageThroughIPsWithCursorAndLimit() {
+        List<String> ips = new ArrayList<>();
+        for (int i = 1; i <= 25; i++) {
+            ips.add("10.1.0." + i);
+        }
+        ipRepository.saveAll(ips.stream().map(IP::new).collect(Collectors.toList()));
+
+        List<String> listed = new ArrayList<>();
+        String next = ANTIFRAUD_TRANSACTION_ENDPOINT + "?limit=10";
+        int pages = 0;
+        while (next != null) {
+            var response = webClient.get()
+                    .uri(next)
+                    .headers(http -> http.setBasicAuth(SUPPORT_USERNAME, PASSWORD))
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(IPResponse[].class)
+                    .returnResult();
+            for (IPResponse ip : response.getResponseBody()) {
+                listed.add(ip.getIp());
+            }
+            String link = response.getResponseHeaders().getFirst(HttpHeaders.LINK);
+            next = link == null ? null : link.substring(link.indexOf('<') + 1, link.indexOf('>'));
+            pages++;
+        }
+
+        assertEquals(ips, listed);
+        assertEquals(3, pages);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"?limit=0", "?limit=1001", "?after=-1"})
+    void shouldReturnBadRequestForInvalidPage(String query) {
+        webClient.get()
+                .uri(ANTIFRAUD_TRANSACTION_ENDPOINT + query)
+                .headers(http -> http.setBasicAuth(SUPPORT_USERNAME, PASSWORD))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void shouldExportAllIPsInAscendingOrder() {
+        List<String> ips = new ArrayList<>();
+        for (int i = 1; i <= 2500; i++) {
+            ips.add("10.2." + (i / 256) + "." + (i % 256));
+        }
+        ipRepository.saveAll(ips.stream().map(IP::new).collect(Collectors.toList()));
+
+        webClient.get()
+                .uri(ANTIFRAUD_TRANSACTION_ENDPOINT + "/export")
+                .headers(http -> http.setBasicAuth(SUPPORT_USERNAME, PASSWORD))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(ips.size())
+                .jsonPath("$..ip").value(equalTo(ips));
+    }
+
+    @Test
+    void shouldReturnForbiddenForMerchantExportingIPs() {
+        webClient.get()
+                .uri(ANTIFRAUD_TRANSACTION_ENDPOINT + "/export")
+                .headers(http -> http.setBasicAuth(MERCHANT_USERNAME, PASSWORD))
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
+    @Test
+    void shouldImportNewIPsAndReportDuplicatesAndInvalidLines() {
+        webClient.post()
+                .uri(ANTIFRAUD_TRANSACTION_ENDPOINT)
+                .headers(http -> http.setBasicAuth(SUPPORT_USERNAME, PASSWORD))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"ip\": \"10.3.0.1\"}")
+                .exchange()
+                .expectStatus().isOk();
+
+        webClient.post()
+                .uri(ANTIFRAUD_TRANSACTION_ENDPOINT + "/import")
+                .headers(http -> http.setBasicAuth(SUPPORT_USERNAME, PASSWORD))
+                .contentType(MediaType.valueOf("text/csv"))
+                .bodyValue("ip,comment\n10.3.0.2,new\n10.3.0.1,known\n10.3.0.3\n10.3.0.2,again\n10.3.0.300\n")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.added").isEqualTo(2)
+                .jsonPath("$.duplicates").isEqualTo(2)
+                .jsonPath("$.invalid").isEqualTo(1);
+
+        List<String> saved = StreamSupport.stream(ipRepository.findAll().spliterator(), false)
+                .map(IP::getIp)
+                .sorted()
+                .collect(Collectors.toList());
+        assertEquals(List.of("10.3.0.1", "10.3.0.2", "10.3.0.3"), saved);
+    }
+
+    @Test
+    void shouldSkipAddressesAddedSinceTheIndexWasChecked() {
+        ipRepository.save(new IP("10.7.0.2")); // in the table, but not yet in the in-memory index
+
+        webClient.post()
+                .uri(ANTIFRAUD_TRANSACTION_ENDPOINT + "/import")
+                .headers(http -> http.setBasicAuth(SUPPORT_USERNAME, PASSWORD))
+                .contentType(MediaType.TEXT_PLAIN)
+                .bodyValue("10.7.0.1\n10.7.0.2\n10.7.0.3\n")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.added").isEqualTo(2)
+                .jsonPath("$.duplicates").isEqualTo(1);
+
+        assertEquals(3, ipRepository.count());
+    }
+
+    @Test
+    void shouldImportIPv6AndDeduplicateAcrossNotations() {
+        webClient.post()
+                .uri(ANTIFRAUD_TRANSACTION_ENDPOINT + "/import")
+                .headers(http -> http.setBasicAuth(SUPPORT_USERNAME, PASSWORD))
+                .contentType(MediaType.TEXT_PLAIN)
+                .bodyValue("2001:db8:6::1\n2001:DB8:6:0:0:0:0:1\n10.6.0.1\n::ffff:10.6.0.1\n2001:db8:6::2\n2001:db8:6:::3\n")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.added").isEqualTo(3)
+                .jsonPath("$.duplicates").isEqualTo(2)
+                .jsonPath("$.invalid").isEqualTo(1);
+
+        List<String> saved = StreamSupport.stream(ipRepository.findAll().spliterator(), false)
+                .map(IP::getIp)
+                .sorted()
+                .collect(Collectors.toList());
+        assertEquals(List.of("10.6.0.1", "2001:db8:6::1", "2001:db8:6::2"), saved);
+    }
+
+    @Test
+    void shouldImportLargeListInBatches() {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 120_500; i++) {
+            body.append("10.").append(4 + (i >> 16)).append('.').append((i >> 8) & 0xFF).append('.').append(i & 0xFF).append('\n');
+        }
+
+        webClient.mutate().responseTimeout(Duration.ofMinutes(1)).build().post()
+                .uri(ANTIFRAUD_TRANSACTION_ENDPOINT + "/import")
+                .headers(http -> http.setBasicAuth(SUPPORT_USERNAME, PASSWORD))
+                .contentType(MediaType.TEXT_PLAIN)
+                .bodyValue(body.toString())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.added").isEqualTo(120_500)
+                .jsonPath("$.duplicates").isEqualTo(0);
+
+        assertEquals(120_500, ipRepository.count());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {MERCHANT_USERNAME, ADMIN_USERNAME})
+    void shouldReturnForbiddenForNotSupportImportingIPs(String username) {
+        webClient.post()
+                .uri(ANTIFRAUD_TRANSACTION_ENDPOINT + "/import")
+                .headers(http -> http.setBasicAuth(username, PASSWORD))
+                .contentType(MediaType.TEXT_PLAIN)
+                .bodyValue("10.5.0.1\n")
+                .exchange()
+                .expectStatus().isForbidden();
     }
 }
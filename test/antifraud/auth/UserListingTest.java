@@ -3,12 +3,18 @@ package antifraud.auth;
 import antifraud.ControllerTest;
 import antifraud.auth.dto.UserDTO;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertIterableEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
@@ -43,6 +49,71 @@ public class UserListingTest extends ControllerTest {
 
     }
 
+    @Test
+    void shouldPageThroughUsersWithCursor() {
+        List<String> usernames = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            usernames.add("merchant" + i);
+            userRepository.save(new User("Merchant", "merchant" + i, "password", Role.MERCHANT));
+        }
+        List<String> expected = new ArrayList<>(List.of(MERCHANT_USERNAME, ADMIN_USERNAME, SUPPORT_USERNAME));
+        expected.addAll(usernames);
+
+        List<String> listed = new ArrayList<>();
+        String next = LIST_USERS_ENDPOINT + "?limit=5";
+        int pages = 0;
+        while (next != null) {
+            var result = this.webClient.get()
+                    .uri(next)
+                    .headers(headers -> headers.setBasicAuth(SUPPORT_USERNAME, PASSWORD))
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(UserDTO[].class)
+                    .returnResult();
+            for (UserDTO user : result.getResponseBody()) {
+                listed.add(user.getUsername());
+            }
+            String link = result.getResponseHeaders().getFirst(HttpHeaders.LINK);
+            next = link == null ? null : link.substring(link.indexOf('<') + 1, link.indexOf('>'));
+            pages++;
+        }
+
+        assertEquals(expected, listed);
+        assertEquals(3, pages);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"?cursor=not-a-cursor", "?cursor=LTE", "?limit=0", "?limit=1001"})
+    void shouldReturnBadRequestForInvalidPage(String query) {
+        this.webClient.get()
+                .uri(LIST_USERS_ENDPOINT + query)
+                .headers(headers -> headers.setBasicAuth(SUPPORT_USERNAME, PASSWORD))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void shouldExportAllUsersWithoutPasswords() {
+        this.webClient.get()
+                .uri(LIST_USERS_ENDPOINT + "/export")
+                .headers(headers -> headers.setBasicAuth(ADMIN_USERNAME, PASSWORD))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$..username").value(equalTo(List.of(MERCHANT_USERNAME, ADMIN_USERNAME, SUPPORT_USERNAME)))
+                .jsonPath("$..role").value(equalTo(List.of("MERCHANT", "ADMINISTRATOR", "SUPPORT")))
+                .jsonPath("$..password").value(equalTo(List.of()));
+    }
+
+    @Test
+    void shouldReturnForbiddenForMerchantExportingUsers() {
+        this.webClient.get()
+                .uri(LIST_USERS_ENDPOINT + "/export")
+                .headers(headers -> headers.setBasicAuth(MERCHANT_USERNAME, PASSWORD))
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
     @Test
     void shouldReturnOkForSupportUserUser() {
         var request = buildListingUsersRequest(SUPPORT_USERNAME, PASSWORD);
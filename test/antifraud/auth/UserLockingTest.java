@@ -83,6 +83,23 @@ public class UserLockingTest extends ControllerTest {
 
     }
 
+    @Test
+    void shouldRejectPreviouslyAuthenticatedUserOnceLocked() {
+        var transactionRequest = this.webClient
+                .post()
+                .uri("/api/antifraud/transaction")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"amount\": 100}")
+                .headers(headers -> headers.setBasicAuth(MERCHANT_USERNAME, PASSWORD));
+        transactionRequest.exchange().expectStatus().isOk();
+
+        buildUserLockRequestAsAdmin(new UserLockRequest(MERCHANT_USERNAME, Operation.LOCK))
+                .exchange()
+                .expectStatus().isOk();
+
+        transactionRequest.exchange().expectStatus().isUnauthorized();
+    }
+
     private WebTestClient.RequestHeadersSpec<?> buildUserLockRequestAsAdmin(UserLockRequest request) {
         return buildUserLockRequestAsUser(request, ADMIN_USERNAME);
     }
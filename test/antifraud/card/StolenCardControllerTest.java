@@ -0,0 +1,123 @@
+package antifraud.card;
+
+import antifraud.ControllerTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StolenCardControllerTest extends ControllerTest {
+    private static final String STOLEN_CARD_ENDPOINT = "/api/antifraud/stolencard";
+    private static final String CARD_NUMBER = "4000008449433403";
+
+    @Autowired
+    private StolenCardRepository stolenCardRepository;
+
+    @Autowired
+    private StolenCardService stolenCardService;
+
+    @AfterEach
+    void deleteStolenCards() {
+        stolenCardRepository.deleteAll();
+        stolenCardService.loadStolenCardIndex();
+    }
+
+    @Test
+    void shouldReturnUnauthorizedForAnonymousAddingCard() {
+        webClient.post().uri(STOLEN_CARD_ENDPOINT).exchange().expectStatus().isUnauthorized();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {MERCHANT_USERNAME, ADMIN_USERNAME})
+    void shouldReturnForbiddenForNotSupportAddingCard(String username) {
+        buildAddCardRequest(CARD_NUMBER, username).exchange().expectStatus().isForbidden();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {CARD_NUMBER, "9999999999999999998"})
+    void shouldReturnOkAndIdForSupportAddingCard(String number) {
+        var response = buildAddCardRequest(number, SUPPORT_USERNAME).exchange();
+
+        response.expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isNumber()
+                .jsonPath("$.number").isEqualTo(number);
+        assertTrue(stolenCardRepository.findByNumber(CardNumbers.pack(number)).isPresent());
+        assertTrue(stolenCardService.isStolen(number));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"4000008449433402", "400000844943", "40000084494334031234", "4000OO8449433403", "0000000000000000"})
+    void shouldReturnBadRequestForInvalidCardNumber(String number) {
+        buildAddCardRequest(number, SUPPORT_USERNAME).exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    void shouldReturnConflictForCardAlreadyInDatabase() {
+        stolenCardRepository.save(new StolenCard(CardNumbers.pack(CARD_NUMBER)));
+
+        buildAddCardRequest(CARD_NUMBER, SUPPORT_USERNAME).exchange().expectStatus().isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    void shouldReturnOkAndStatusMessageForSupportDeletingCard() {
+        stolenCardService.addStolenCard(CARD_NUMBER);
+
+        var response = buildDeleteCardRequest(CARD_NUMBER).exchange();
+
+        response.expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("Card " + CARD_NUMBER + " successfully removed!");
+        assertFalse(stolenCardRepository.findByNumber(CardNumbers.pack(CARD_NUMBER)).isPresent());
+        assertFalse(stolenCardService.isStolen(CARD_NUMBER));
+    }
+
+    @Test
+    void shouldReturnBadRequestForDeletingInvalidCardNumber() {
+        buildDeleteCardRequest("1234").exchange().expectStatus().isBadRequest();
+    }
+
+    @Test
+    void shouldReturnNotFoundForDeletingCardNotInDatabase() {
+        buildDeleteCardRequest(CARD_NUMBER).exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    void shouldReturnOkAndListCardsInAscendingOrderForSupport() {
+        List<String> numbers = List.of(CARD_NUMBER, "4111111111111111", "5555555555554444");
+        numbers.forEach(stolenCardService::addStolenCard);
+
+        var response = webClient.get()
+                .uri(STOLEN_CARD_ENDPOINT)
+                .headers(http -> http.setBasicAuth(SUPPORT_USERNAME, PASSWORD))
+                .exchange();
+
+        response.expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[*].number").value(equalTo(numbers));
+    }
+
+    private WebTestClient.RequestHeadersSpec<?> buildAddCardRequest(String number, String username) {
+        return webClient.post()
+                .uri(STOLEN_CARD_ENDPOINT)
+                .headers(http -> http.setBasicAuth(username, PASSWORD))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new StolenCardRequest(number));
+    }
+
+    private WebTestClient.RequestHeadersSpec<?> buildDeleteCardRequest(String number) {
+        return webClient.delete()
+                .uri(STOLEN_CARD_ENDPOINT + "/" + number)
+                .headers(http -> http.setBasicAuth(SUPPORT_USERNAME, PASSWORD));
+    }
+}
@@ -0,0 +1,68 @@
+package antifraud.card;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StolenCardIndexTest {
+
+    @Test
+    void shouldPackLuhnValidNumbersIncludingNineteenDigits() {
+        assertEquals(4000008449433403L, CardNumbers.pack("4000008449433403"));
+        assertEquals("9999999999999999998", CardNumbers.format(CardNumbers.pack("9999999999999999998")));
+        assertEquals(CardNumbers.INVALID, CardNumbers.pack("4000008449433404"));
+        assertEquals(CardNumbers.INVALID, CardNumbers.pack(null));
+    }
+
+    @Test
+    void shouldMatchOnlyStoredNumbers() {
+        var index = new StolenCardIndex();
+        long[] stolen = new long[5000];
+        for (int i = 0; i < stolen.length; i++) {
+            stolen[i] = 4000000000000000L + i * 17L;
+        }
+        index.replaceAll(stolen);
+
+        for (long number : stolen) {
+            assertTrue(index.contains(number));
+        }
+        for (int i = 0; i < 5000; i++) {
+            assertFalse(index.contains(5000000000000000L + i));
+        }
+        assertEquals(stolen.length, index.size());
+    }
+
+    @Test
+    void shouldAddAndRemoveNumbers() {
+        var index = new StolenCardIndex();
+        index.add(4111111111111111L);
+        index.add(4111111111111111L);
+        index.add(5555555555554444L);
+
+        assertEquals(2, index.size());
+        assertTrue(index.contains(4111111111111111L));
+
+        index.remove(4111111111111111L);
+
+        assertFalse(index.contains(4111111111111111L));
+        assertTrue(index.contains(5555555555554444L));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void shouldKeepMatchingWhileAddingAndRemovingOneByOne() {
+        var index = new StolenCardIndex();
+        for (int i = 0; i < 3000; i++) {
+            index.add(4000000000000000L + i * 17L);
+            if (i % 3 == 0) {
+                index.remove(4000000000000000L + i * 17L);
+            }
+        }
+
+        for (int i = 0; i < 3000; i++) {
+            assertEquals(i % 3 != 0, index.contains(4000000000000000L + i * 17L));
+        }
+        assertEquals(2000, index.size());
+        assertFalse(index.contains(CardNumbers.INVALID));
+    }
+}
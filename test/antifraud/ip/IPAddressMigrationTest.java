@@ -0,0 +1,53 @@
+package antifraud.ip;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Starts against an ip table as created before IPv6 support, with one unsigned IPv4 value per row.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.datasource.url=" + IPAddressMigrationTest.URL)
+class IPAddressMigrationTest {
+    static final String URL = "jdbc:h2:mem:legacy_ip_addresses;DB_CLOSE_DELAY=-1";
+
+    static { // before the application context starts
+        JdbcTemplate legacy = new JdbcTemplate(new DriverManagerDataSource(URL, "sa", ""));
+        legacy.execute("CREATE TABLE ip (id INT AUTO_INCREMENT PRIMARY KEY, address BIGINT NOT NULL UNIQUE)");
+        legacy.update("INSERT INTO ip (address) VALUES (3232235777), (167772161), (4294967295)");
+    }
+
+    @Autowired
+    private IPService ipService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldMapIPv4Addresses() {
+        assertTrue(ipService.isSuspicious("192.168.1.1"));
+        assertTrue(ipService.isSuspicious("10.0.0.1"));
+        assertTrue(ipService.isSuspicious("255.255.255.255"));
+        assertTrue(ipService.isSuspicious("::ffff:10.0.0.1"));
+        assertFalse(ipService.isSuspicious("10.0.0.2"));
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ip WHERE address_high = 0", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS "
+                + "WHERE TABLE_NAME = 'IP' AND COLUMN_NAME = 'ADDRESS'", Integer.class));
+    }
+
+    @Test
+    void shouldRejectDuplicateOfConvertedAddress() {
+        ipService.addSuspiciousIP("2001:db8::1");
+
+        assertThrows(IPAlreadyInDatabase.class, () -> ipService.addSuspiciousIP("10.0.0.1"));
+        assertThrows(IPAlreadyInDatabase.class, () -> ipService.addSuspiciousIP("2001:db8::1"));
+    }
+}
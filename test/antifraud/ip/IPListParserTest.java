@@ -0,0 +1,65 @@
+package antifraud.ip;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class IPListParserTest {
+
+    @Test
+    void shouldReadFirstFieldOfCsvAndSkipHeaderAndComments() throws IOException {
+        var parser = new IPListParser();
+        List<String> ips = parse(parser, "ip,reason\r\n10.0.0.1,spam\r\n\"10.0.0.2\";bot\r\n# comment\r\n\r\n  10.0.0.3\t x\r\n10.0.0.4");
+
+        assertEquals(List.of("10.0.0.1", "10.0.0.2", "10.0.0.3", "10.0.0.4"), ips);
+        assertEquals(0, parser.getInvalid());
+    }
+
+    @Test
+    void shouldCountInvalidLines() throws IOException {
+        var parser = new IPListParser();
+        List<String> ips = parse(parser, "10.0.0.1\n256.0.0.1\nlocalhost\n10.0.0\n10.0.0.2\n");
+
+        assertEquals(List.of("10.0.0.1", "10.0.0.2"), ips);
+        assertEquals(3, parser.getInvalid());
+    }
+
+    @Test
+    void shouldReadLinesSpanningBufferBoundaries() throws IOException {
+        var text = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            text.append(IPv4.format(i * 7919)).append('\n');
+        }
+        text.append("x".repeat(100_000)).append("\n10.0.0.1");
+
+        var parser = new IPListParser();
+        List<String> ips = parse(parser, text.toString());
+
+        assertEquals(100_001, ips.size());
+        assertEquals(IPv4.format(99_999 * 7919), ips.get(99_999));
+        assertEquals("10.0.0.1", ips.get(100_000));
+        assertEquals(1, parser.getInvalid());
+    }
+
+    @Test
+    void shouldReadIPv6AndReportIPv4MappedAsIPv4() throws IOException {
+        var parser = new IPListParser();
+        List<String> ips = parse(parser, "ip,reason\n2001:DB8::1,bot\n\"fe80::1\"\n::ffff:10.0.0.1\n2001:db8:::1\n10.0.0.2\n");
+
+        assertEquals(List.of("2001:db8::1", "fe80::1", "10.0.0.1", "10.0.0.2"), ips);
+        assertEquals(1, parser.getInvalid());
+    }
+
+    private static List<String> parse(IPListParser parser, String text) throws IOException {
+        List<String> ips = new ArrayList<>();
+        parser.parse(new ByteArrayInputStream(text.getBytes(StandardCharsets.US_ASCII)), address -> ips.add(IPv4.format(address)),
+                (high, low) -> ips.add(IPv6.format(high, low)));
+        return ips;
+    }
+}
@@ -0,0 +1,48 @@
+package antifraud.ip;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Starts against an ip table as created before addresses were numeric.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.datasource.url=" + IPStringMigrationTest.URL)
+class IPStringMigrationTest {
+    static final String URL = "jdbc:h2:mem:legacy_ip_strings;DB_CLOSE_DELAY=-1";
+
+    static { // before the application context starts
+        JdbcTemplate legacy = new JdbcTemplate(new DriverManagerDataSource(URL, "sa", ""));
+        legacy.execute("CREATE TABLE ip (id INT AUTO_INCREMENT PRIMARY KEY, ip varchar(15))");
+        legacy.update("INSERT INTO ip (ip) VALUES ('192.168.1.1'), ('10.0.0.1'), ('10.0.0.1'), ('not an address')");
+    }
+
+    @Autowired
+    private IPService ipService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldConvertAddressStrings() {
+        assertTrue(ipService.isSuspicious("192.168.1.1"));
+        assertTrue(ipService.isSuspicious("10.0.0.1"));
+        assertFalse(ipService.isSuspicious("10.0.0.2"));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ip", Integer.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS "
+                + "WHERE TABLE_NAME = 'IP' AND COLUMN_NAME = 'IP'", Integer.class));
+    }
+
+    @Test
+    void shouldRejectDuplicateOfConvertedAddress() {
+        assertThrows(IPAlreadyInDatabase.class, () -> ipService.addSuspiciousIP("10.0.0.1"));
+    }
+}
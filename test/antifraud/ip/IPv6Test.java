@@ -0,0 +1,97 @@
+package antifraud.ip;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IPv6Test {
+
+    @ParameterizedTest
+    @CsvSource({
+            "::, 0, 0",
+            "::1, 0, 1",
+            "1::, 0001000000000000, 0",
+            "2001:db8::ff00:42:8329, 20010db800000000, 0000ff0000428329",
+            "2001:0DB8:0000:0000:0000:FF00:0042:8329, 20010db800000000, 0000ff0000428329",
+            "1:2:3:4:5:6:7:8, 0001000200030004, 0005000600070008",
+            "1:2:3:4:5:6:7::, 0001000200030004, 0005000600070000",
+            "::2:3:4:5:6:7:8, 0000000200030004, 0005000600070008",
+            "1:2::7:8, 0001000200000000, 0000000000070008",
+            "::ffff:192.0.2.1, 0, 0000ffffc0000201",
+            "64:ff9b::192.0.2.1, 0064ff9b00000000, 00000000c0000201",
+            "1:2:3:4:5:6:1.2.3.4, 0001000200030004, 0005000601020304",
+            "192.0.2.1, 0, 0000ffffc0000201"
+    })
+    void shouldParseAllNotations(String ip, String high, String low) {
+        long[] address = new long[2];
+        IPv6.parse(ip, address);
+
+        assertEquals(Long.parseUnsignedLong(high, 16), address[0]);
+        assertEquals(Long.parseUnsignedLong(low, 16), address[1]);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", ":", ":::", "1:", ":1", "1::2::3", "1:2:3:4:5:6:7", "1:2:3:4:5:6:7:8:9",
+            "1:2:3:4:5:6:7:8::", "12345::", "g::", "::1.2.3", "::256.1.1.1", "1:2:3:4:5:6:7:1.2.3.4", "01.2.3.4", "1.2.3.4:5",
+            "::1.2.3.4:5", "fe80::1%eth0", " ::1"})
+    void shouldRejectMalformedAddresses(String ip) {
+        assertThrows(IllegalArgumentException.class, () -> IPv6.parse(ip, new long[2]));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"::1", "2001:db8::1", "10.0.0.1", "::ffff:10.0.0.1"})
+    void shouldValidateWithoutWritingAddress(String ip) {
+        assertTrue(IPv6.parse(ip, 0, ip.length(), null));
+        assertFalse(IPv6.parse(ip + ":", 0, ip.length() + 1, null));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "2001:0db8:0000:0000:0000:ff00:0042:8329, 2001:db8::ff00:42:8329",
+            "2001:db8:0:0:1:0:0:1, 2001:db8::1:0:0:1",
+            "2001:db8:0:1:1:1:1:1, 2001:db8:0:1:1:1:1:1",
+            "0:0:0:0:0:0:0:0, ::",
+            "0:0:0:0:0:0:0:1, ::1",
+            "1:0:0:0:0:0:0:0, 1::",
+            "::FFFF:10.0.0.1, ::ffff:10.0.0.1"
+    })
+    void shouldFormatCanonically(String ip, String canonical) {
+        long[] address = new long[2];
+        IPv6.parse(ip, address);
+
+        assertEquals(canonical, IPv6.format(address[0], address[1]));
+    }
+
+    @Test
+    void shouldRecogniseIPv4MappedAddresses() {
+        long[] address = new long[2];
+        IPv6.parse("::ffff:10.0.0.1", address);
+
+        assertTrue(IPv6.isIPv4Mapped(address[0], address[1]));
+        assertEquals(IPv6.mapIPv4(IPv4.parse("10.0.0.1")), address[1]);
+        assertFalse(IPv6.isIPv4Mapped(0, 1));
+    }
+
+    @Test
+    void shouldSortAndSearchAddressPairsUnsigned() {
+        var random = new Random(42);
+        long[] addresses = new long[2 * 1000];
+        for (int i = 0; i < addresses.length; i++) {
+            addresses[i] = random.nextInt(4) - 2L << 62 | random.nextInt(8);
+        }
+        IPv6.sort(addresses, 1000);
+
+        for (int i = 1; i < 1000; i++) {
+            assertTrue(IPv6.compare(addresses[2 * i - 2], addresses[2 * i - 1], addresses[2 * i], addresses[2 * i + 1]) <= 0);
+        }
+        int position = IPv6.binarySearch(addresses, 1000, addresses[1000], addresses[1001]);
+        assertEquals(addresses[1000], addresses[2 * position]);
+        assertEquals(addresses[1001], addresses[2 * position + 1]);
+        assertTrue(IPv6.binarySearch(addresses, 1000, 8, 0) < 0);
+    }
+}
@@ -0,0 +1,158 @@
+package antifraud.ip;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SuspiciousIPIndexTest {
+
+    @Test
+    void shouldFindAddedAddressesAndForgetRemovedOnes() {
+        var index = new SuspiciousIPIndex();
+        index.add(IPv4.parse("10.0.0.1"));
+        index.add(IPv4.parse("255.255.255.255"));
+        index.add(IPv4.parse("0.0.0.0"));
+
+        assertTrue(index.contains(IPv4.parse("10.0.0.1")));
+        assertTrue(index.contains(IPv4.parse("255.255.255.255")));
+        assertTrue(index.contains(IPv4.parse("0.0.0.0")));
+        assertFalse(index.contains(IPv4.parse("10.0.0.2")));
+
+        index.remove(IPv4.parse("10.0.0.1"));
+        assertFalse(index.contains(IPv4.parse("10.0.0.1")));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void shouldMatchAddressesInsideCidrPrefix() {
+        var index = new SuspiciousIPIndex();
+        index.replaceAll(new int[]{IPv4.parse("192.168.1.20"), IPv4.parse("200.1.1.1"), IPv4.parse("192.168.1.20")});
+
+        assertEquals(2, index.size());
+        assertTrue(index.containsAnyInPrefix(IPv4.parse("192.168.1.0"), 24));
+        assertTrue(index.containsAnyInPrefix(IPv4.parse("192.168.0.0"), 16));
+        assertTrue(index.containsAnyInPrefix(IPv4.parse("128.0.0.0"), 1));
+        assertTrue(index.containsAnyInPrefix(0, 0));
+        assertTrue(index.containsAnyInPrefix(IPv4.parse("192.168.1.20"), 32));
+        assertFalse(index.containsAnyInPrefix(IPv4.parse("192.168.2.0"), 24));
+        assertFalse(index.containsAnyInPrefix(IPv4.parse("192.168.1.16"), 30));
+        assertFalse(index.containsAnyInPrefix(IPv4.parse("10.0.0.0"), 8));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "1.2.3", "1.2.3.4.5", "256.1.1.1", "01.1.1.1", "1..1.1", "1.1.1.", "a.b.c.d", "1.1.1.1 "})
+    void shouldRejectMalformedAddresses(String ip) {
+        assertThrows(IllegalArgumentException.class, () -> IPv4.parse(ip));
+    }
+
+    @Test
+    void shouldFormatParsedAddress() {
+        assertEquals("172.16.254.1", IPv4.format(IPv4.parse("172.16.254.1")));
+        assertEquals("0.0.0.0", IPv4.format(IPv4.parse("0.0.0.0")));
+        assertEquals("255.255.255.255", IPv4.format(IPv4.parse("255.255.255.255")));
+    }
+
+    @Test
+    void shouldMergeAddedAddressesIntoIndex() {
+        var index = new SuspiciousIPIndex();
+        index.replaceAll(new int[]{IPv4.parse("10.0.0.1"), IPv4.parse("200.0.0.1")});
+        index.addAll(new int[]{IPv4.parse("200.0.0.1"), IPv4.parse("0.0.0.0"), IPv4.parse("128.0.0.1")});
+
+        assertEquals(4, index.size());
+        assertTrue(index.contains(IPv4.parse("0.0.0.0")));
+        assertTrue(index.contains(IPv4.parse("10.0.0.1")));
+        assertTrue(index.contains(IPv4.parse("128.0.0.1")));
+        assertTrue(index.contains(IPv4.parse("200.0.0.1")));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "1.2.3", "1.2.3.4.5", "256.1.1.1", "01.1.1.1", "1..1.1", "1.1.1.", "a.b.c.d", "1.1.1.1 "})
+    void shouldRejectMalformedAddressBytes(String ip) {
+        byte[] bytes = ("x" + ip + "x").getBytes();
+        assertEquals(IPv4.INVALID, IPv4.parse(bytes, 1, bytes.length - 1));
+    }
+
+    @Test
+    void shouldParseAddressBytesLikeStrings() {
+        for (String ip : new String[]{"0.0.0.0", "172.16.254.1", "255.255.255.255"}) {
+            byte[] bytes = ip.getBytes();
+            assertEquals(IPv4.parse(ip), (int) IPv4.parse(bytes, 0, bytes.length));
+        }
+    }
+
+    @Test
+    void shouldKeepIPv6ApartAndIPv4MappedWithIPv4() {
+        var index = new SuspiciousIPIndex();
+        long[] address = parse("2001:db8::1");
+        index.add(address[0], address[1]);
+        long[] mapped = parse("::ffff:10.0.0.1");
+        index.add(mapped[0], mapped[1]);
+
+        assertEquals(2, index.size());
+        assertTrue(index.contains(address[0], address[1]));
+        assertTrue(index.contains(IPv4.parse("10.0.0.1")));
+        assertFalse(index.contains(address[0], address[1] + 1));
+
+        index.remove(mapped[0], mapped[1]);
+        assertFalse(index.contains(IPv4.parse("10.0.0.1")));
+        index.remove(address[0], address[1]);
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void shouldMatchIPv6AddressesInsidePrefix() {
+        var index = new SuspiciousIPIndex();
+        long[] addresses = new long[6];
+        System.arraycopy(parse("2001:db8:1::20"), 0, addresses, 0, 2);
+        System.arraycopy(parse("8000::1"), 0, addresses, 2, 2);
+        System.arraycopy(parse("2001:db8:1::20"), 0, addresses, 4, 2);
+        index.replaceAll(addresses);
+
+        assertEquals(2, index.size());
+        assertTrue(containsAnyInPrefix(index, "2001:db8:1::", 64));
+        assertTrue(containsAnyInPrefix(index, "2001:db8::", 32));
+        assertTrue(containsAnyInPrefix(index, "8000::", 1));
+        assertTrue(containsAnyInPrefix(index, "::", 0));
+        assertTrue(containsAnyInPrefix(index, "2001:db8:1::20", 128));
+        assertFalse(containsAnyInPrefix(index, "2001:db8:2::", 48));
+        assertFalse(containsAnyInPrefix(index, "2001:db8:1::10", 124));
+        assertFalse(containsAnyInPrefix(index, "::", 96));
+    }
+
+    @Test
+    void shouldMatchIPv4MappedPrefixesAgainstIPv4Addresses() {
+        var index = new SuspiciousIPIndex();
+        index.add(IPv4.parse("192.168.1.20"));
+
+        assertTrue(containsAnyInPrefix(index, "::ffff:192.168.1.0", 120));
+        assertFalse(containsAnyInPrefix(index, "::ffff:192.168.2.0", 120));
+        assertTrue(containsAnyInPrefix(index, "::", 80));
+        assertFalse(containsAnyInPrefix(index, "2001:db8::", 32));
+    }
+
+    @Test
+    void shouldMergeAddedIPv6AddressesIntoIndex() {
+        var index = new SuspiciousIPIndex();
+        long[] first = parse("2001:db8::1");
+        long[] second = parse("fe80::1");
+        index.replaceAll(first.clone());
+        index.addAll(new long[]{second[0], second[1], first[0], first[1]});
+
+        assertEquals(2, index.size());
+        assertTrue(index.contains(first[0], first[1]));
+        assertTrue(index.contains(second[0], second[1]));
+    }
+
+    private static boolean containsAnyInPrefix(SuspiciousIPIndex index, String network, int prefixLength) {
+        long[] address = parse(network);
+        return index.containsAnyInPrefix(address[0], address[1], prefixLength);
+    }
+
+    private static long[] parse(String ip) {
+        long[] address = new long[2];
+        IPv6.parse(ip, address);
+        return address;
+    }
+}
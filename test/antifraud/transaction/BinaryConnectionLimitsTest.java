@@ -0,0 +1,62 @@
+package antifraud.transaction;
+
+import antifraud.auth.Role;
+import antifraud.auth.User;
+import antifraud.auth.UserRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.IOException;
+import java.net.Socket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {"antifraud.binary.enabled=true", "antifraud.binary.port=0",
+        "antifraud.binary.max-connections=2", "antifraud.binary.authentication-timeout=PT0.5S"})
+class BinaryConnectionLimitsTest {
+    private static final String MERCHANT_USERNAME = "limited-merchant";
+    private static final String PASSWORD = "password";
+
+    @Autowired
+    private BinaryTransactionServer server;
+
+    @BeforeAll
+    static void registerUsers(@Autowired UserRepository userRepository, @Autowired PasswordEncoder passwordEncoder) {
+        userRepository.save(new User("Merchant", MERCHANT_USERNAME, passwordEncoder.encode(PASSWORD), Role.MERCHANT));
+    }
+
+    @AfterAll
+    static void tearDown(@Autowired UserRepository userRepository) {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void shouldCloseConnectionsThatDoNotAuthenticateInTime() throws IOException {
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            socket.setSoTimeout(10_000);
+
+            assertEquals(-1, socket.getInputStream().read());
+        }
+    }
+
+    @Test
+    void shouldRefuseConnectionsOverTheLimit() throws IOException {
+        try (BinaryTransactionClient first = connect(); BinaryTransactionClient second = connect()) {
+            assertThrows(IOException.class, this::connect);
+
+            first.send(1, 50, null, null, null);
+            assertEquals(TransactionStatus.ALLOWED, first.receive().getStatus());
+            second.send(2, 50, null, null, null);
+            assertEquals(TransactionStatus.ALLOWED, second.receive().getStatus());
+        }
+    }
+
+    private BinaryTransactionClient connect() throws IOException {
+        return BinaryTransactionClient.connect("localhost", server.getPort(), MERCHANT_USERNAME, PASSWORD);
+    }
+}
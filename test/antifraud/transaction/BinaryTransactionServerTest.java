@@ -0,0 +1,137 @@
+package antifraud.transaction;
+
+import antifraud.auth.Role;
+import antifraud.auth.User;
+import antifraud.auth.UserRepository;
+import antifraud.auth.UserService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(properties = {"antifraud.binary.enabled=true", "antifraud.binary.port=0"})
+class BinaryTransactionServerTest {
+    private static final String MERCHANT_USERNAME = "binary-merchant";
+    private static final String SUPPORT_USERNAME = "binary-support";
+    private static final String LOCKED_USERNAME = "binary-locked-merchant";
+    private static final String PASSWORD = "password";
+
+    @Autowired
+    private BinaryTransactionServer server;
+
+    @BeforeAll
+    static void registerUsers(@Autowired UserRepository userRepository, @Autowired PasswordEncoder passwordEncoder) {
+        userRepository.save(new User("Merchant", MERCHANT_USERNAME, passwordEncoder.encode(PASSWORD), Role.MERCHANT));
+        userRepository.save(new User("Support", SUPPORT_USERNAME, passwordEncoder.encode(PASSWORD), Role.SUPPORT));
+        userRepository.save(new User("Locked", LOCKED_USERNAME, passwordEncoder.encode(PASSWORD), Role.MERCHANT));
+    }
+
+    @AfterAll
+    static void tearDown(@Autowired UserRepository userRepository) {
+        userRepository.deleteAll();
+    }
+
+    @ParameterizedTest
+    @CsvSource({"50, ALLOWED", "870, MANUAL_PROCESSING", "1501, PROHIBITED"})
+    void shouldScoreByAmount(long amount, TransactionStatus expected) throws IOException {
+        try (BinaryTransactionClient client = connect(MERCHANT_USERNAME)) {
+            client.send(7, amount, "192.168.0.1", "4532015112830366", Region.EAP);
+
+            BinaryTransactionClient.Reply reply = client.receive();
+
+            assertEquals(7, reply.getCorrelationId());
+            assertEquals(expected, reply.getStatus());
+        }
+    }
+
+    @Test
+    void shouldAnswerPipelinedTransactionsInOrder() throws IOException {
+        try (BinaryTransactionClient client = connect(MERCHANT_USERNAME)) {
+            for (int i = 0; i < 2000; i++) {
+                client.send(i, i % 2 == 0 ? 50 : 1700, null, null, null);
+            }
+            client.flush();
+
+            for (int i = 0; i < 2000; i++) {
+                BinaryTransactionClient.Reply reply = client.receive();
+                assertEquals(i, reply.getCorrelationId());
+                assertEquals(i % 2 == 0 ? TransactionStatus.ALLOWED : TransactionStatus.PROHIBITED, reply.getStatus());
+            }
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidTransactions() throws IOException {
+        try (BinaryTransactionClient client = connect(MERCHANT_USERNAME)) {
+            client.send(1, 0, null, null, null);
+            client.send(2, 50, null, "4000008449433402", null);
+            client.send(3, 50, null, null, null);
+
+            assertNull(client.receive().getStatus());
+            assertNull(client.receive().getStatus());
+            assertEquals(TransactionStatus.ALLOWED, client.receive().getStatus()); // the connection stays usable
+        }
+    }
+
+    @Test
+    void shouldRejectWrongCredentials() {
+        assertThrows(IOException.class, () -> BinaryTransactionClient.connect("localhost", server.getPort(), MERCHANT_USERNAME, "wrong"));
+    }
+
+    @Test
+    void shouldRejectNonMerchants() {
+        assertThrows(IOException.class, () -> connect(SUPPORT_USERNAME));
+    }
+
+    @Test
+    void shouldCloseConnectionsOfLockedMerchants(@Autowired UserService userService) throws IOException {
+        try (BinaryTransactionClient client = connect(LOCKED_USERNAME)) {
+            client.send(1, 50, null, null, null);
+            assertEquals(TransactionStatus.ALLOWED, client.receive().getStatus());
+
+            userService.changeUserLock(LOCKED_USERNAME, true);
+
+            client.send(2, 50, null, null, null);
+            assertThrows(IOException.class, client::receive);
+        }
+    }
+
+    @Test
+    void shouldCloseConnectionsThatSendTransactionsBeforeAuthenticating() throws IOException {
+        try (Socket socket = new Socket("localhost", server.getPort())) {
+            ByteBuffer frame = ByteBuffer.allocate(Integer.BYTES + BinaryProtocol.TRANSACTION_LENGTH)
+                    .putInt(BinaryProtocol.TRANSACTION_LENGTH)
+                    .put(BinaryProtocol.TRANSACTION)
+                    .putLong(1)
+                    .putLong(50)
+                    .putInt(0)
+                    .putLong(0)
+                    .put(BinaryProtocol.NO_REGION)
+                    .put((byte) 0);
+            OutputStream output = socket.getOutputStream();
+            output.write(frame.array());
+            output.flush();
+            InputStream input = socket.getInputStream();
+
+            assertEquals(-1, input.read());
+        }
+    }
+
+    private BinaryTransactionClient connect(String username) throws IOException {
+        return BinaryTransactionClient.connect("localhost", server.getPort(), username, PASSWORD);
+    }
+}
@@ -0,0 +1,183 @@
+package antifraud.transaction;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DecisionJournalTest {
+    private static final long CARD = 4000008449433403L;
+    private static final int IP = 0xC0A80001; // 192.168.0.1
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReadBackAppendedDecisions() throws Exception {
+        DecisionJournal journal = journal(DataSize.ofMegabytes(1), Duration.ofDays(1));
+        journal.start();
+        long first = journal.append(1000, "café", 870, IP, true, CARD, Region.EAP.ordinal(), TransactionStatus.MANUAL_PROCESSING, 3);
+        long second = journal.append(2000, null, 50, 0, false, -1, -1, TransactionStatus.ALLOWED, 4);
+        journal.stop();
+
+        DecisionJournalReader reader = new DecisionJournalReader(directory, 0);
+        assertTrue(reader.next());
+        assertEquals(first, reader.getOffset());
+        assertEquals(1000, reader.getTimestamp());
+        assertEquals("café", reader.getMerchant());
+        assertEquals(870, reader.getAmount());
+        assertEquals("192.168.0.1", reader.getIp());
+        assertEquals("4000008449433403", reader.getNumber());
+        assertEquals(Region.EAP, reader.getRegion());
+        assertEquals(TransactionStatus.MANUAL_PROCESSING, reader.getStatus());
+        assertEquals(3, reader.getRuleSetVersion());
+        assertTrue(reader.next());
+        assertEquals(second, reader.getOffset());
+        assertNull(reader.getMerchant());
+        assertNull(reader.getIp());
+        assertNull(reader.getNumber());
+        assertNull(reader.getRegion());
+        assertEquals(TransactionStatus.ALLOWED, reader.getStatus());
+        assertFalse(reader.next());
+    }
+
+    @Test
+    void shouldRollSegmentsAndReadAcrossThem() throws Exception {
+        DecisionJournal journal = journal(DataSize.ofKilobytes(64), Duration.ofDays(1));
+        journal.start();
+        for (int i = 0; i < 5000; i++) {
+            journal.append(i, "merchant", i, IP, true, CARD, -1, TransactionStatus.ALLOWED, 1);
+        }
+        journal.stop();
+
+        assertTrue(DecisionJournal.segments(directory).length > 1);
+        assertEquals(5000, count(new DecisionJournalReader(directory, 0), 0));
+    }
+
+    @Test
+    void shouldResumeFromOffset() throws Exception {
+        DecisionJournal journal = journal(DataSize.ofKilobytes(64), Duration.ofDays(1));
+        journal.start();
+        long resumeAt = 0;
+        for (int i = 0; i < 3000; i++) {
+            long offset = journal.append(i, "merchant", i, IP, true, CARD, -1, TransactionStatus.ALLOWED, 1);
+            if (i == 2000) {
+                resumeAt = offset;
+            }
+        }
+        journal.stop();
+
+        assertEquals(1000, count(new DecisionJournalReader(directory, resumeAt), 2000));
+    }
+
+    @Test
+    void shouldFollowLiveJournal() throws Exception {
+        DecisionJournal journal = journal(DataSize.ofKilobytes(64), Duration.ofDays(1));
+        journal.start();
+        try {
+            DecisionJournalReader reader = new DecisionJournalReader(directory, 0);
+            assertFalse(reader.next());
+
+            journal.append(1, "merchant", 10, IP, true, CARD, -1, TransactionStatus.ALLOWED, 1);
+
+            assertTrue(reader.next());
+            assertEquals(10, reader.getAmount());
+            assertEquals(journal.getEndOffset(), reader.getNextOffset());
+            assertFalse(reader.next());
+        } finally {
+            journal.stop();
+        }
+    }
+
+    @Test
+    void shouldContinueAfterRestartInNewSegment() throws Exception {
+        DecisionJournal before = journal(DataSize.ofKilobytes(64), Duration.ofDays(1));
+        before.start();
+        long first = before.append(1, "merchant", 10, IP, true, CARD, -1, TransactionStatus.ALLOWED, 1);
+        before.stop();
+        DecisionJournal after = journal(DataSize.ofKilobytes(64), Duration.ofDays(1));
+        after.start();
+        long second = after.append(2, "merchant", 20, IP, true, CARD, -1, TransactionStatus.ALLOWED, 1);
+        after.stop();
+
+        assertTrue(second > first);
+        DecisionJournalReader reader = new DecisionJournalReader(directory, 0);
+        assertTrue(reader.next());
+        assertEquals(10, reader.getAmount());
+        assertTrue(reader.next());
+        assertEquals(20, reader.getAmount());
+        assertEquals(second, reader.getOffset());
+    }
+
+    @Test
+    void shouldDeleteClosedSegmentsPastRetention() throws Exception {
+        DecisionJournal journal = journal(DataSize.ofKilobytes(64), Duration.ofMillis(1));
+        journal.start();
+        try {
+            for (int i = 0; i < 5000; i++) {
+                journal.append(i, "merchant", i, IP, true, CARD, -1, TransactionStatus.ALLOWED, 1);
+            }
+            Thread.sleep(50);
+            for (int i = 0; i < 2000; i++) { // rolls at least once more, which purges the segments closed before
+                journal.append(i, "merchant", i, IP, true, CARD, -1, TransactionStatus.ALLOWED, 1);
+            }
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (DecisionJournal.segments(directory)[0] == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            assertTrue(DecisionJournal.segments(directory)[0] > 0);
+            DecisionJournalReader reader = new DecisionJournalReader(directory, 0);
+            assertTrue(reader.next());
+            assertTrue(reader.getOffset() > 0);
+        } finally {
+            journal.stop();
+        }
+    }
+
+    @Test
+    void shouldAppendWithoutAllocating() throws Exception {
+        DecisionJournal journal = journal(DataSize.ofMegabytes(32), Duration.ofDays(1));
+        journal.start();
+        try {
+            ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long thread = Thread.currentThread().threadId();
+            for (int i = 0; i < 20_000; i++) { // warm up, so the measured loop runs compiled
+                journal.append(i, "merchant", i, IP, true, CARD, -1, TransactionStatus.ALLOWED, 1);
+            }
+            long before = threads.getThreadAllocatedBytes(thread);
+            for (int i = 0; i < 100_000; i++) {
+                journal.append(i, "merchant", i, IP, true, CARD, -1, TransactionStatus.ALLOWED, 1);
+            }
+            long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+            assertTrue(allocated < 10_000, "allocated " + allocated + " bytes for 100000 records");
+        } finally {
+            journal.stop();
+        }
+    }
+
+    private DecisionJournal journal(DataSize segmentSize, Duration retention) {
+        return new DecisionJournal(true, directory.toString(), segmentSize, DecisionJournal.FsyncPolicy.NEVER,
+                Duration.ofSeconds(1), retention);
+    }
+
+    private static int count(DecisionJournalReader reader, long firstAmount) throws IOException {
+        int count = 0;
+        while (reader.next()) {
+            assertEquals(firstAmount + count, reader.getAmount());
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,91 @@
+package antifraud.transaction;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class DecisionReplayTest {
+    private static final long CARD = 4000008449433403L;
+    private static final long START = 1_577_836_800_000L; // 2020-01-01, far outside any live velocity window
+    private static final String MERCHANT = "replay-merchant"; // no learned limits
+
+    @Autowired
+    private DecisionReplay decisionReplay;
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void writeJournal() throws Exception {
+        DecisionJournal journal = new DecisionJournal(true, directory.toString(), DataSize.ofMegabytes(1),
+                DecisionJournal.FsyncPolicy.NEVER, Duration.ofSeconds(1), Duration.ofDays(1));
+        journal.start();
+        journal.append(START, MERCHANT, 150, 0, false, -1, -1, TransactionStatus.ALLOWED, 1);
+        journal.append(START + 1000, MERCHANT, 50, 0, false, -1, -1, TransactionStatus.ALLOWED, 1);
+        journal.append(START + 2000, MERCHANT, 600, 0, false, -1, -1, TransactionStatus.MANUAL_PROCESSING, 1);
+        for (int i = 1; i <= 4; i++) { // one card from four addresses within a minute
+            journal.append(START + 3000 + i * 1000, MERCHANT, 50, 0xAC1F0000 + i, true, CARD, -1, TransactionStatus.ALLOWED, 1);
+        }
+        journal.stop();
+    }
+
+    @Test
+    void shouldCompareRecordedAndReplayedDecisions() throws Exception {
+        ReplayReport report = decisionReplay.replay(directory, candidate(), 4, 1);
+
+        assertEquals(7, report.getTotal());
+        assertEquals(4, report.getChanged());
+        assertEquals(3, report.getCount(TransactionStatus.ALLOWED, TransactionStatus.ALLOWED));
+        assertEquals(2, report.getCount(TransactionStatus.ALLOWED, TransactionStatus.MANUAL_PROCESSING));
+        assertEquals(1, report.getCount(TransactionStatus.ALLOWED, TransactionStatus.PROHIBITED));
+        assertEquals(1, report.getCount(TransactionStatus.MANUAL_PROCESSING, TransactionStatus.PROHIBITED));
+        assertEquals(1, report.getSamples(TransactionStatus.ALLOWED, TransactionStatus.MANUAL_PROCESSING).size());
+        ReplaySample sample = report.getSamples(TransactionStatus.ALLOWED, TransactionStatus.PROHIBITED).get(0);
+        assertEquals("172.31.0.4", sample.getIp());
+        assertEquals(START + 7000, sample.getTimestamp());
+    }
+
+    @Test
+    void shouldNotDependOnParallelism() throws Exception {
+        ReplayReport sequential = decisionReplay.replay(directory, candidate(), 1, 0);
+        ReplayReport parallel = decisionReplay.replay(directory, candidate(), 8, 0);
+
+        for (TransactionStatus recorded : TransactionStatus.values()) {
+            for (TransactionStatus replayed : TransactionStatus.values()) {
+                assertEquals(sequential.getCount(recorded, replayed), parallel.getCount(recorded, replayed));
+            }
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidCandidate() {
+        assertThrows(InvalidRulesException.class,
+                () -> decisionReplay.replay(directory, new RulesConfiguration(List.of()), 1, 0));
+    }
+
+    private static RulesConfiguration candidate() {
+        RuleDefinition amount = new RuleDefinition();
+        amount.setName("amount");
+        amount.setType(RuleType.AMOUNT);
+        amount.setAllowedMax(100L);
+        amount.setManualMax(500L);
+        RuleDefinition velocity = new RuleDefinition();
+        velocity.setName("ip-velocity");
+        velocity.setType(RuleType.IP_VELOCITY);
+        velocity.setAllowedMax(1L);
+        velocity.setManualMax(2L);
+        velocity.setWindow("PT1H");
+        return new RulesConfiguration(List.of(amount, velocity));
+    }
+}
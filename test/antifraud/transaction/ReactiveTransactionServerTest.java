@@ -0,0 +1,152 @@
+package antifraud.transaction;
+
+import antifraud.auth.Role;
+import antifraud.auth.User;
+import antifraud.auth.UserRepository;
+import antifraud.auth.dto.TokenResponse;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT,
+        properties = {"antifraud.reactive.enabled=true", "antifraud.reactive.port=0"})
+class ReactiveTransactionServerTest {
+    private static final String ANTIFRAUD_TRANSACTION_ENDPOINT = "/api/antifraud/transaction";
+    private static final String MERCHANT_USERNAME = "reactive-merchant";
+    private static final String SUPPORT_USERNAME = "reactive-support";
+    private static final String PASSWORD = "password";
+
+    @Autowired
+    private WebTestClient webClient;
+
+    @Autowired
+    private ReactiveTransactionServer server;
+
+    private WebTestClient reactiveClient;
+
+    @BeforeAll
+    static void registerUsers(@Autowired UserRepository userRepository, @Autowired PasswordEncoder passwordEncoder) {
+        userRepository.save(new User("Merchant", MERCHANT_USERNAME, passwordEncoder.encode(PASSWORD), Role.MERCHANT));
+        userRepository.save(new User("Support", SUPPORT_USERNAME, passwordEncoder.encode(PASSWORD), Role.SUPPORT));
+    }
+
+    @AfterAll
+    static void tearDown(@Autowired UserRepository userRepository) {
+        userRepository.deleteAll();
+    }
+
+    @BeforeEach
+    void bindReactiveClient() {
+        reactiveClient = WebTestClient.bindToServer().baseUrl("http://localhost:" + server.getPort()).build();
+    }
+
+    @Test
+    void shouldScoreTransactionsLikeTheServletEndpoint() {
+        for (long amount : new long[]{50, 870, 1501}) {
+            ValidationResult expected = webClient.post()
+                    .uri(ANTIFRAUD_TRANSACTION_ENDPOINT)
+                    .headers(headers -> headers.setBasicAuth(MERCHANT_USERNAME, PASSWORD))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(new Transaction(amount))
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(ValidationResult.class)
+                    .returnResult()
+                    .getResponseBody();
+
+            transactionRequest(new Transaction(amount))
+                    .headers(headers -> headers.setBasicAuth(MERCHANT_USERNAME, PASSWORD))
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(ValidationResult.class).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void shouldAcceptAccessTokens() {
+        TokenResponse token = webClient.post()
+                .uri("/api/auth/token")
+                .headers(headers -> headers.setBasicAuth(MERCHANT_USERNAME, PASSWORD))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(TokenResponse.class)
+                .returnResult()
+                .getResponseBody();
+        assertNotNull(token);
+
+        transactionRequest(new Transaction(50))
+                .headers(headers -> headers.setBearerAuth(token.getToken()))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(ValidationResult.class).isEqualTo(new ValidationResult(TransactionStatus.ALLOWED));
+    }
+
+    @Test
+    void shouldRejectInvalidAccessTokens() {
+        transactionRequest(new Transaction(50))
+                .headers(headers -> headers.setBearerAuth("invalid"))
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void shouldRejectAnonymousRequests() {
+        transactionRequest(new Transaction(50))
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void shouldRejectWrongPassword() {
+        transactionRequest(new Transaction(50))
+                .headers(headers -> headers.setBasicAuth(MERCHANT_USERNAME, "wrong"))
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void shouldForbidNonMerchants() {
+        transactionRequest(new Transaction(50))
+                .headers(headers -> headers.setBasicAuth(SUPPORT_USERNAME, PASSWORD))
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
+    @Test
+    void shouldReturnBadRequestForInvalidTransactions() {
+        transactionRequest(new Transaction(0))
+                .headers(headers -> headers.setBasicAuth(MERCHANT_USERNAME, PASSWORD))
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        transactionRequest(new Transaction(50, "300.1.1.1"))
+                .headers(headers -> headers.setBasicAuth(MERCHANT_USERNAME, PASSWORD))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void shouldServeOnlyTheTransactionEndpoint() {
+        reactiveClient.get()
+                .uri("/api/auth/list")
+                .headers(headers -> headers.setBasicAuth(MERCHANT_USERNAME, PASSWORD))
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
+    private WebTestClient.RequestHeadersSpec<?> transactionRequest(Transaction transaction) {
+        return reactiveClient.post()
+                .uri(ANTIFRAUD_TRANSACTION_ENDPOINT)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(transaction);
+    }
+}
@@ -0,0 +1,112 @@
+package antifraud.transaction;
+
+import antifraud.auth.Role;
+import antifraud.auth.User;
+import antifraud.auth.UserRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+class ReviewControllerTest {
+    private static final String REVIEW_ENDPOINT = "/api/antifraud/review/next";
+    private static final String MERCHANT_USERNAME = "review_merchant";
+    private static final String SUPPORT_USERNAME = "review_support";
+    private static final String OTHER_SUPPORT_USERNAME = "review_support_other";
+    private static final String PASSWORD = "password";
+
+    @Autowired
+    private WebTestClient webClient;
+
+    @BeforeAll
+    static void registerUserForAuthorization(@Autowired UserRepository userRepository, @Autowired PasswordEncoder passwordEncoder) {
+        userRepository.save(new User("Merchant", MERCHANT_USERNAME, passwordEncoder.encode(PASSWORD), Role.MERCHANT));
+        userRepository.save(new User("Support", SUPPORT_USERNAME, passwordEncoder.encode(PASSWORD), Role.SUPPORT));
+        userRepository.save(new User("Other Support", OTHER_SUPPORT_USERNAME, passwordEncoder.encode(PASSWORD), Role.SUPPORT));
+    }
+
+    @AfterAll
+    static void tearDown(@Autowired UserRepository userRepository) {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void shouldAssignManualProcessingTransactionUntilFeedbackIsGiven() {
+        webClient.post()
+                .uri("/api/antifraud/transaction")
+                .headers(headers -> headers.setBasicAuth(MERCHANT_USERNAME, PASSWORD))
+                .bodyValue(new Transaction(1000))
+                .exchange()
+                .expectBody(ValidationResult.class).isEqualTo(new ValidationResult(TransactionStatus.MANUAL_PROCESSING));
+
+        ReviewAssignment assignment = nextReviewOf(MERCHANT_USERNAME);
+
+        assertEquals(1000, assignment.getAmount());
+        assertEquals(SUPPORT_USERNAME, assignment.getReviewer());
+        assertNotNull(assignment.getLeaseExpiresAt());
+        giveFeedback(SUPPORT_USERNAME, assignment.getTransactionId())
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void shouldRejectFeedbackFromReviewerNotHoldingTheLease() {
+        webClient.post()
+                .uri("/api/antifraud/transaction")
+                .headers(headers -> headers.setBasicAuth(MERCHANT_USERNAME, PASSWORD))
+                .bodyValue(new Transaction(1100))
+                .exchange()
+                .expectBody(ValidationResult.class).isEqualTo(new ValidationResult(TransactionStatus.MANUAL_PROCESSING));
+        ReviewAssignment assignment = nextReviewOf(MERCHANT_USERNAME);
+
+        giveFeedback(OTHER_SUPPORT_USERNAME, assignment.getTransactionId())
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT);
+        giveFeedback(SUPPORT_USERNAME, assignment.getTransactionId())
+                .expectStatus().isOk();
+    }
+
+    @Test
+    void shouldReturnForbiddenForMerchant() {
+        webClient.post()
+                .uri(REVIEW_ENDPOINT)
+                .headers(headers -> headers.setBasicAuth(MERCHANT_USERNAME, PASSWORD))
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
+    private WebTestClient.ResponseSpec giveFeedback(String reviewer, long transactionId) {
+        return webClient.put()
+                .uri("/api/antifraud/transaction")
+                .headers(headers -> headers.setBasicAuth(reviewer, PASSWORD))
+                .bodyValue(new TransactionFeedback(transactionId, TransactionStatus.PROHIBITED))
+                .exchange();
+    }
+
+    /**
+     * Polls past transactions that other tests sent to review until one of {@code merchant} comes up.
+     */
+    private ReviewAssignment nextReviewOf(String merchant) {
+        for (int i = 0; i < 1000; i++) {
+            ReviewAssignment assignment = webClient.post()
+                    .uri(REVIEW_ENDPOINT)
+                    .headers(headers -> headers.setBasicAuth(SUPPORT_USERNAME, PASSWORD))
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(ReviewAssignment.class)
+                    .returnResult()
+                    .getResponseBody();
+            if (merchant.equals(assignment.getMerchant())) {
+                return assignment;
+            }
+        }
+        throw new AssertionError("No transaction of " + merchant + " was assigned");
+    }
+}
@@ -0,0 +1,131 @@
+package antifraud.transaction;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReviewQueueTest {
+    private static final long CARD = 4000008449433403L;
+
+    private final ReviewQueue queue = new ReviewQueue(Duration.ofSeconds(30), Duration.ofMinutes(5), 2, new SimpleMeterRegistry());
+
+    @Test
+    void shouldAssignPendingTransactionsOldestFirst() {
+        queue.offer(item(1));
+        queue.offer(item(2));
+
+        assertEquals(1, assigned(queue.poll("first")).getTransactionId());
+        assertEquals(2, assigned(queue.poll("second")).getTransactionId());
+        assertFalse(queue.poll("third").hasResult());
+    }
+
+    @Test
+    void shouldHandNewTransactionToLongestWaitingPoll() {
+        DeferredResult<ResponseEntity<ReviewAssignment>> first = queue.poll("first");
+        DeferredResult<ResponseEntity<ReviewAssignment>> second = queue.poll("second");
+
+        queue.offer(item(1));
+
+        ReviewAssignment assignment = assigned(first);
+        assertEquals(1, assignment.getTransactionId());
+        assertEquals("first", assignment.getReviewer());
+        assertEquals("4000008449433403", assignment.getNumber());
+        assertFalse(second.hasResult());
+        assertEquals(0, queue.getPending());
+    }
+
+    @Test
+    void shouldNotAssignReviewedTransaction() {
+        queue.offer(item(1));
+        queue.offer(item(2));
+
+        queue.complete(1, "support");
+
+        assertEquals(2, assigned(queue.poll("support")).getTransactionId());
+        assertFalse(queue.poll("support").hasResult());
+    }
+
+    @Test
+    void shouldKeepLeaseWhenAnotherReviewerCompletes() {
+        queue.offer(item(1));
+        queue.offer(item(2));
+        assigned(queue.poll("first"));
+
+        assertThrows(TransactionLeasedToAnotherReviewer.class, () -> queue.complete(1, "second"));
+        queue.complete(1, "first");
+        queue.complete(2, "second"); // pending, leased to no one
+
+        assertFalse(queue.poll("second").hasResult());
+    }
+
+    @Test
+    void shouldReturnTransactionToQueueWhenLeaseExpires() throws InterruptedException {
+        ReviewQueue leasing = new ReviewQueue(Duration.ofSeconds(30), Duration.ofMillis(50), 10, new SimpleMeterRegistry());
+        leasing.start();
+        try {
+            leasing.offer(item(1));
+            assertEquals("first", assigned(leasing.poll("first")).getReviewer());
+
+            DeferredResult<ResponseEntity<ReviewAssignment>> second = leasing.poll("second");
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (!second.hasResult() && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+
+            ReviewAssignment reassigned = assigned(second);
+            assertEquals(1, reassigned.getTransactionId());
+            assertEquals("second", reassigned.getReviewer());
+        } finally {
+            leasing.stop();
+        }
+    }
+
+    @Test
+    void shouldKeepReviewedTransactionWhenLeaseExpires() throws InterruptedException {
+        ReviewQueue leasing = new ReviewQueue(Duration.ofSeconds(30), Duration.ofMillis(50), 10, new SimpleMeterRegistry());
+        leasing.start();
+        try {
+            leasing.offer(item(1));
+            assigned(leasing.poll("first"));
+            leasing.complete(1, "first");
+
+            Thread.sleep(200);
+
+            assertEquals(0, leasing.getPending());
+            assertFalse(leasing.poll("second").hasResult());
+        } finally {
+            leasing.stop();
+        }
+    }
+
+    @Test
+    void shouldCountTransactionsBeyondCapacity() {
+        queue.offer(item(1));
+        queue.offer(item(2));
+        queue.offer(item(3));
+
+        assertEquals(2, queue.getPending());
+        assertEquals(1, queue.getOverflowed());
+    }
+
+    private static ReviewQueue.ReviewItem item(long transactionId) {
+        return new ReviewQueue.ReviewItem(transactionId, "merchant", 1000, "192.168.0.1", CARD, System.currentTimeMillis());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ReviewAssignment assigned(DeferredResult<ResponseEntity<ReviewAssignment>> result) {
+        assertTrue(result.hasResult());
+        ResponseEntity<ReviewAssignment> response = (ResponseEntity<ReviewAssignment>) result.getResult();
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        return response.getBody();
+    }
+}
@@ -0,0 +1,120 @@
+package antifraud.transaction;
+
+import antifraud.ControllerTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class RuleControllerTest extends ControllerTest {
+    private static final String RULES_ENDPOINT = "/api/antifraud/rules";
+    private static final String DEFAULT_RULES = "{\"rules\": [{\"type\": \"AMOUNT\", \"allowedMax\": 200, \"manualMax\": 1500}]}";
+    private static final Path RULES_FILE = createRulesFile();
+
+    @DynamicPropertySource
+    static void rulesLocation(DynamicPropertyRegistry registry) {
+        registry.add("antifraud.rules.location", () -> RULES_FILE.toUri().toString());
+    }
+
+    @AfterEach
+    void restoreDefaultRules() throws IOException {
+        Files.writeString(RULES_FILE, DEFAULT_RULES);
+        reloadAsAdmin();
+    }
+
+    @Test
+    void shouldApplyReloadedThresholds() {
+        expectResult(500, TransactionStatus.MANUAL_PROCESSING);
+
+        writeRules("{\"rules\": [{\"type\": \"AMOUNT\", \"allowedMax\": 1000, \"manualMax\": 2000}]}");
+        var response = reloadAsAdmin();
+
+        response.expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.version").isNumber()
+                .jsonPath("$.rules[0].allowedMax").isEqualTo(1000);
+        expectResult(500, TransactionStatus.ALLOWED);
+        expectResult(1999, TransactionStatus.MANUAL_PROCESSING);
+    }
+
+    @Test
+    void shouldKeepCurrentRulesWhenReloadedConfigurationIsInvalid() {
+        writeRules("{\"rules\": [{\"type\": \"AMOUNT\", \"allowedMax\": 1000, \"manualMax\": 10}]}");
+
+        reloadAsAdmin().expectStatus().isBadRequest();
+
+        expectResult(500, TransactionStatus.MANUAL_PROCESSING);
+    }
+
+    @Test
+    void shouldReturnCurrentRulesForAdministrator() {
+        webClient.get()
+                .uri(RULES_ENDPOINT)
+                .headers(headers -> headers.setBasicAuth(ADMIN_USERNAME, PASSWORD))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.rules[0].type").isEqualTo(RuleType.AMOUNT.name());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {MERCHANT_USERNAME, SUPPORT_USERNAME})
+    void shouldReturnForbiddenForNotAdministratorReloadingRules(String username) {
+        webClient.post()
+                .uri(RULES_ENDPOINT + "/reload")
+                .headers(headers -> headers.setBasicAuth(username, PASSWORD))
+                .exchange()
+                .expectStatus().isForbidden();
+    }
+
+    @Test
+    void shouldReturnUnauthorizedForAnonymousReloadingRules() {
+        webClient.post().uri(RULES_ENDPOINT + "/reload").exchange().expectStatus().isUnauthorized();
+    }
+
+    private WebTestClient.ResponseSpec reloadAsAdmin() {
+        return webClient.post()
+                .uri(RULES_ENDPOINT + "/reload")
+                .headers(headers -> headers.setBasicAuth(ADMIN_USERNAME, PASSWORD))
+                .exchange();
+    }
+
+    private void expectResult(long amount, TransactionStatus status) {
+        webClient.post()
+                .uri("/api/antifraud/transaction")
+                .headers(headers -> headers.setBasicAuth(MERCHANT_USERNAME, PASSWORD))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new Transaction(amount))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(ValidationResult.class).isEqualTo(new ValidationResult(status));
+    }
+
+    private static void writeRules(String rules) {
+        try {
+            Files.writeString(RULES_FILE, rules);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Path createRulesFile() {
+        try {
+            Path file = Files.createTempFile("rules", ".json");
+            file.toFile().deleteOnExit();
+            Files.writeString(file, DEFAULT_RULES);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
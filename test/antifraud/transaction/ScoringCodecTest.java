@@ -0,0 +1,146 @@
+package antifraud.transaction;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScoringCodecTest {
+    private static final String REQUEST = "{\"amount\": 150, \"ip\": \"192.168.1.1\", \"number\": \"4000008449433403\", \"region\": \"EAP\"}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT); // as configured
+    private final ScoringCodec codec;
+
+    ScoringCodecTest() throws IOException {
+        codec = new ScoringCodec(objectMapper);
+    }
+
+    @Test
+    void shouldWriteWhatJacksonWrote() throws IOException {
+        for (TransactionStatus status : TransactionStatus.values()) {
+            Response response = new Response();
+            codec.write(ValidationResult.of(status), MediaType.APPLICATION_JSON, response);
+
+            assertArrayEquals(objectMapper.writeValueAsBytes(new ValidationResult(status)), response.body.toByteArray());
+            assertEquals(response.body.size(), response.headers.getContentLength());
+            assertEquals(MediaType.APPLICATION_JSON, response.headers.getContentType());
+        }
+    }
+
+    @Test
+    void shouldOnlyReadTransactionsAndWriteResults() {
+        assertTrue(codec.canRead(Transaction.class, MediaType.APPLICATION_JSON));
+        assertFalse(codec.canRead(ValidationResult.class, MediaType.APPLICATION_JSON));
+        assertFalse(codec.canRead(Transaction.class, MediaType.APPLICATION_XML));
+        assertTrue(codec.canWrite(ValidationResult.class, MediaType.ALL));
+        assertFalse(codec.canWrite(Transaction.class, MediaType.APPLICATION_JSON));
+        assertFalse(codec.canWrite(ValidationResult.class, MediaType.TEXT_PLAIN));
+    }
+
+    @Test
+    void shouldReadWhatBindingRead() throws IOException {
+        Transaction transaction = codec.read(Transaction.class, new Request(
+                "{\"note\": {\"nested\": [1, 2]}, \"amount\": \"150\", \"ip\": \"192.168.1.1\", \"number\": null, \"region\": \"SSA\"}"));
+
+        assertEquals(150, transaction.getAmount());
+        assertEquals("192.168.1.1", transaction.getIp());
+        assertNull(transaction.getNumber());
+        assertEquals(Region.SSA, transaction.getRegion());
+        assertEquals(0, codec.read(Transaction.class, new Request("{}")).getAmount());
+    }
+
+    @Test
+    void shouldRejectMalformedTransactions() {
+        for (String body : new String[]{"[]", "{\"amount\": 50, \"region\": \"MARS\"}", "{\"amount\": true}",
+                "{\"amount\": 50, \"ip\": [\"192.168.1.1\"]}", "{\"amount\": 50,"}) {
+            assertThrows(HttpMessageNotReadableException.class, () -> codec.read(Transaction.class, new Request(body)), body);
+        }
+    }
+
+    @Test
+    void shouldAllocateLessThanDataBindingPerDecodeAndEncode() throws IOException {
+        long streaming = bytesPerRequest(codec);
+        long binding = bytesPerRequest(new MappingJackson2HttpMessageConverter(objectMapper));
+
+        assertTrue(streaming < 1024, "allocated " + streaming + " bytes per request");
+        assertTrue(streaming < binding, "allocated " + streaming + " bytes per request, binding " + binding);
+    }
+
+    /**
+     * Measures the codec alone: the servlet container, security filters and validation allocate on top of it.
+     */
+    private static long bytesPerRequest(HttpMessageConverter<Object> converter) throws IOException {
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+        Request request = new Request(REQUEST);
+        Response response = new Response();
+        int requests = 100_000;
+        long before = 0;
+        for (int i = -20_000; i < requests; i++) { // the first 20000 warm up, so the measured loop runs compiled
+            if (i == 0) {
+                before = threads.getThreadAllocatedBytes(thread);
+            }
+            request.body.reset();
+            response.body.reset();
+            Transaction transaction = (Transaction) converter.read(Transaction.class, request);
+            converter.write(ValidationResult.of(transaction.getAmount() <= 200 ? TransactionStatus.ALLOWED : TransactionStatus.PROHIBITED),
+                    MediaType.APPLICATION_JSON, response);
+        }
+        return (threads.getThreadAllocatedBytes(thread) - before) / requests;
+    }
+
+    private static final class Request implements HttpInputMessage {
+        private final ByteArrayInputStream body;
+        private final HttpHeaders headers = new HttpHeaders();
+
+        private Request(String json) {
+            body = new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+            headers.setContentType(MediaType.APPLICATION_JSON);
+        }
+
+        @Override
+        public ByteArrayInputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+
+    private static final class Response implements HttpOutputMessage {
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+        private final HttpHeaders headers = new HttpHeaders();
+
+        @Override
+        public ByteArrayOutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package antifraud.transaction;
+
+import antifraud.auth.Role;
+import antifraud.auth.User;
+import antifraud.auth.UserRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+class TransactionBatchControllerTest {
+    private static final String ANTIFRAUD_BATCH_ENDPOINT = "/api/antifraud/transactions/batch";
+    private static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType(TransactionController.APPLICATION_NDJSON);
+    private static final String MERCHANT_USERNAME = "batch_merchant";
+    private static final String SUPPORT_USERNAME = "batch_support";
+    private static final String PASSWORD = "password";
+
+    @Autowired
+    private WebTestClient webClient;
+
+    @BeforeAll
+    static void registerUserForAuthorization(@Autowired UserRepository userRepository, @Autowired PasswordEncoder passwordEncoder) {
+        userRepository.save(new User("Merchant", MERCHANT_USERNAME, passwordEncoder.encode(PASSWORD), Role.MERCHANT));
+        userRepository.save(new User("Support", SUPPORT_USERNAME, passwordEncoder.encode(PASSWORD), Role.SUPPORT));
+    }
+
+    @AfterAll
+    static void tearDown(@Autowired UserRepository userRepository) {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void shouldScoreJsonArrayInOrder() {
+        var response = buildBatchRequest(MediaType.APPLICATION_JSON, "[{\"amount\": 150}, {\"amount\": 1700}, {\"amount\": 870}]")
+                .exchange();
+
+        response
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_JSON)
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(3)
+                .jsonPath("$[0].result").isEqualTo(TransactionStatus.ALLOWED.name())
+                .jsonPath("$[1].result").isEqualTo(TransactionStatus.PROHIBITED.name())
+                .jsonPath("$[2].result").isEqualTo(TransactionStatus.MANUAL_PROCESSING.name());
+    }
+
+    @Test
+    void shouldScoreNdjsonStreamInOrder() {
+        var response = buildBatchRequest(APPLICATION_NDJSON, "{\"amount\": 1700}\n{\"amount\": 50}\n")
+                .exchange();
+
+        response
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(APPLICATION_NDJSON)
+                .expectBody(String.class)
+                .consumeWith(body -> assertEquals(
+                        "{\"result\":\"PROHIBITED\"}\n{\"result\":\"ALLOWED\"}\n",
+                        body.getResponseBody()));
+    }
+
+    @Test
+    void shouldReportInvalidTransactionWithoutFailingBatch() {
+        var response = buildBatchRequest(MediaType.APPLICATION_JSON, "[{\"amount\": 50}, {\"amount\": 0}, {\"amount\": 50}]")
+                .exchange();
+
+        response
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].result").isEqualTo(TransactionStatus.ALLOWED.name())
+                .jsonPath("$[1].index").isEqualTo(1)
+                .jsonPath("$[1].error").isNotEmpty()
+                .jsonPath("$[2].result").isEqualTo(TransactionStatus.ALLOWED.name());
+    }
+
+    @Test
+    void shouldReturnEmptyArrayForEmptyBatch() {
+        var response = buildBatchRequest(MediaType.APPLICATION_JSON, "[]").exchange();
+        response.expectStatus().isOk()
+                .expectBody().jsonPath("$.length()").isEqualTo(0);
+    }
+
+    @Test
+    void shouldReturnBadRequestForMalformedBody() {
+        var response = buildBatchRequest(MediaType.APPLICATION_JSON, "[{\"amount\": ").exchange();
+        response.expectStatus().isBadRequest();
+    }
+
+    @Test
+    void shouldReturnUnauthorizedForAnonymousUser() {
+        var response = webClient.post()
+                .uri(ANTIFRAUD_BATCH_ENDPOINT)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[]")
+                .exchange();
+        response.expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void shouldReturnForbiddenForSupport() {
+        var response = webClient.post()
+                .uri(ANTIFRAUD_BATCH_ENDPOINT)
+                .headers(httpHeaders -> httpHeaders.setBasicAuth(SUPPORT_USERNAME, PASSWORD))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[]")
+                .exchange();
+        response.expectStatus().isForbidden();
+    }
+
+    private WebTestClient.RequestHeadersSpec<?> buildBatchRequest(MediaType contentType, String body) {
+        return webClient.post()
+                .uri(ANTIFRAUD_BATCH_ENDPOINT)
+                .headers(httpHeaders -> httpHeaders.setBasicAuth(MERCHANT_USERNAME, PASSWORD))
+                .contentType(contentType)
+                .bodyValue(body);
+    }
+}
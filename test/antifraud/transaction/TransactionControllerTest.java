@@ -3,6 +3,8 @@ package antifraud.transaction;
 import antifraud.auth.Role;
 import antifraud.auth.User;
 import antifraud.auth.UserRepository;
+import antifraud.card.StolenCardService;
+import antifraud.ip.IPService;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
@@ -13,6 +15,8 @@ import org.springframework.http.MediaType;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
+import java.util.List;
+
 
 @SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
 class TransactionControllerTest {
@@ -27,6 +31,12 @@ class TransactionControllerTest {
     @Autowired
     private WebTestClient webClient;
 
+    @Autowired
+    private IPService ipService;
+
+    @Autowired
+    private StolenCardService stolenCardService;
+
     @BeforeAll
     static void registerUserForAuthorization(@Autowired UserRepository userRepository, @Autowired PasswordEncoder passwordEncoder) {
         userRepository.save(new User("Merchant", MERCHANT_USERNAME, passwordEncoder.encode(PASSWORD), Role.MERCHANT));
@@ -81,6 +91,102 @@ class TransactionControllerTest {
                 .expectBody(ValidationResult.class).isEqualTo(expectedResult);
     }
 
+    @Test
+    void shouldReturnProhibitedStatusForSuspiciousIP() {
+        String ip = "192.168.1.12";
+        ipService.addSuspiciousIP(ip);
+        try {
+            var request = buildTransactionRequestAsMerchant(new Transaction(50, ip));
+
+            var response = request.exchange();
+
+            response
+                    .expectStatus().isOk()
+                    .expectBody(ValidationResult.class).isEqualTo(new ValidationResult(TransactionStatus.PROHIBITED));
+        } finally {
+            ipService.deleteSuspiciousIP(ip);
+        }
+    }
+
+    @Test
+    void shouldReturnProhibitedStatusForStolenCard() {
+        String number = "4000008449433403";
+        stolenCardService.addStolenCard(number);
+        try {
+            var request = buildTransactionRequestAsMerchant(new Transaction(50, null, number));
+
+            var response = request.exchange();
+
+            response
+                    .expectStatus().isOk()
+                    .expectBody(ValidationResult.class).isEqualTo(new ValidationResult(TransactionStatus.PROHIBITED));
+        } finally {
+            stolenCardService.deleteStolenCard(number);
+        }
+    }
+
+    @Test
+    void shouldEscalateWhenCardIsUsedFromManyIPs() {
+        String number = "4000008449433411";
+        List<TransactionStatus> expected = List.of(TransactionStatus.ALLOWED, TransactionStatus.ALLOWED,
+                TransactionStatus.MANUAL_PROCESSING, TransactionStatus.PROHIBITED, TransactionStatus.PROHIBITED);
+
+        for (int i = 0; i < expected.size(); i++) {
+            var request = buildTransactionRequestAsMerchant(new Transaction(50, "172.16.0." + (i % 4 + 1), number));
+
+            var response = request.exchange();
+
+            response
+                    .expectStatus().isOk()
+                    .expectBody(ValidationResult.class).isEqualTo(new ValidationResult(expected.get(i)));
+        }
+    }
+
+    @Test
+    void shouldEscalateWhenCardIsUsedFromManyRegions() {
+        String number = "5111111111111118";
+        List<Region> regions = List.of(Region.EAP, Region.EAP, Region.ECA, Region.HIC, Region.LAC);
+        List<TransactionStatus> expected = List.of(TransactionStatus.ALLOWED, TransactionStatus.ALLOWED,
+                TransactionStatus.ALLOWED, TransactionStatus.MANUAL_PROCESSING, TransactionStatus.PROHIBITED);
+
+        for (int i = 0; i < regions.size(); i++) {
+            var request = buildTransactionRequestAsMerchant(new Transaction(50, null, number, regions.get(i)));
+
+            var response = request.exchange();
+
+            response
+                    .expectStatus().isOk()
+                    .expectBody(ValidationResult.class).isEqualTo(new ValidationResult(expected.get(i)));
+        }
+    }
+
+    @Test
+    void shouldReturnBadRequestForUnknownRegion() {
+        var response = webClient.post()
+                .uri(ANTIFRAUD_TRANSACTION_ENDPOINT)
+                .headers(headers -> headers.setBasicAuth(MERCHANT_USERNAME, PASSWORD))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"amount\": 50, \"region\": \"MARS\"}")
+                .exchange();
+
+        response.expectStatus().isBadRequest();
+    }
+
+    @Test
+    void shouldReturnBadRequestForInvalidCardNumber() {
+        var request = buildTransactionRequestAsMerchant(new Transaction(50, null, "4000008449433404"));
+        var response = request.exchange();
+        response.expectStatus().isBadRequest();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"300.1.1.1", "1.1.1.01", "1.1.1", "2001:db8::1"})
+    void shouldReturnBadRequestForWrongIPFormat(String ip) {
+        var request = buildTransactionRequestAsMerchant(new Transaction(50, ip));
+        var response = request.exchange();
+        response.expectStatus().isBadRequest();
+    }
+
     @ParameterizedTest
     @ValueSource(ints = {-4, 0})
     void shouldReturnBadRequestForNegativeOrZeroAmount(int amount) {
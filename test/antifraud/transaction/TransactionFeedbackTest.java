@@ -0,0 +1,171 @@
+package antifraud.transaction;
+
+import antifraud.auth.Role;
+import antifraud.auth.User;
+import antifraud.auth.UserRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+class TransactionFeedbackTest {
+    private static final String ANTIFRAUD_TRANSACTION_ENDPOINT = "/api/antifraud/transaction";
+    private static final String MERCHANT_USERNAME = "feedback_merchant";
+    private static final String SUPPORT_USERNAME = "feedback_support";
+    private static final String PASSWORD = "password";
+
+    @Autowired
+    private WebTestClient webClient;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AmountLimits amountLimits;
+
+    @BeforeAll
+    static void registerUserForAuthorization(@Autowired UserRepository userRepository, @Autowired PasswordEncoder passwordEncoder) {
+        userRepository.save(new User("Merchant", MERCHANT_USERNAME, passwordEncoder.encode(PASSWORD), Role.MERCHANT));
+        userRepository.save(new User("Support", SUPPORT_USERNAME, passwordEncoder.encode(PASSWORD), Role.SUPPORT));
+    }
+
+    @AfterAll
+    static void tearDown(@Autowired UserRepository userRepository) {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void shouldRaiseAllowedMaxOfMerchantAfterAllowedFeedback() {
+        long id = recordTransaction(MERCHANT_USERNAME, 1000, TransactionStatus.MANUAL_PROCESSING, RuleType.AMOUNT);
+
+        var response = giveFeedbackAsSupport(new TransactionFeedback(id, TransactionStatus.ALLOWED));
+
+        response
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.merchant").isEqualTo(MERCHANT_USERNAME)
+                .jsonPath("$.feedback").isEqualTo(TransactionStatus.ALLOWED.name())
+                .jsonPath("$.allowedMax").isEqualTo(360) // 200 + 0.2 * (1000 - 200)
+                .jsonPath("$.manualMax").isEqualTo(1500);
+        webClient.post()
+                .uri(ANTIFRAUD_TRANSACTION_ENDPOINT)
+                .headers(headers -> headers.setBasicAuth(MERCHANT_USERNAME, PASSWORD))
+                .bodyValue(new Transaction(300))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(ValidationResult.class).isEqualTo(new ValidationResult(TransactionStatus.ALLOWED));
+        amountLimits.persist();
+        assertEquals(360L, jdbcTemplate.queryForObject("SELECT allowed_max FROM merchant_limit WHERE merchant = ?",
+                Long.class, MERCHANT_USERNAME));
+    }
+
+    @Test
+    void shouldLowerManualMaxOfMerchantAfterProhibitedFeedback() {
+        long id = recordTransaction("prohibited_merchant", 1000, TransactionStatus.MANUAL_PROCESSING, RuleType.AMOUNT);
+
+        var response = giveFeedbackAsSupport(new TransactionFeedback(id, TransactionStatus.PROHIBITED));
+
+        response
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.allowedMax").isEqualTo(200)
+                .jsonPath("$.manualMax").isEqualTo(1399); // 1500 - 0.2 * (1500 - 1000 + 1), rounded up
+    }
+
+    @Test
+    void shouldNotLearnFromReviewAskedForByVelocityRule() {
+        long id = recordTransaction("velocity_merchant", 5, TransactionStatus.MANUAL_PROCESSING, RuleType.IP_VELOCITY);
+
+        var response = giveFeedbackAsSupport(new TransactionFeedback(id, TransactionStatus.PROHIBITED));
+
+        response
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.feedback").isEqualTo(TransactionStatus.PROHIBITED.name())
+                .jsonPath("$.allowedMax").doesNotExist()
+                .jsonPath("$.manualMax").doesNotExist();
+        assertNull(amountLimits.get("velocity_merchant"));
+    }
+
+    @Test
+    void shouldReturnConflictForSecondFeedback() {
+        long id = recordTransaction("conflict_merchant", 1000, TransactionStatus.MANUAL_PROCESSING, RuleType.AMOUNT);
+        giveFeedbackAsSupport(new TransactionFeedback(id, TransactionStatus.ALLOWED)).expectStatus().isOk();
+
+        var response = giveFeedbackAsSupport(new TransactionFeedback(id, TransactionStatus.PROHIBITED));
+
+        response.expectStatus().isEqualTo(409);
+    }
+
+    @Test
+    void shouldReturnNotFoundForUnknownTransaction() {
+        var response = giveFeedbackAsSupport(new TransactionFeedback(Long.MAX_VALUE, TransactionStatus.ALLOWED));
+        response.expectStatus().isNotFound();
+    }
+
+    @Test
+    void shouldReturnUnprocessableEntityForTransactionNotSentToReview() {
+        long id = recordTransaction("allowed_merchant", 100, TransactionStatus.ALLOWED, null);
+        var response = giveFeedbackAsSupport(new TransactionFeedback(id, TransactionStatus.PROHIBITED));
+        response.expectStatus().isEqualTo(422);
+    }
+
+    @Test
+    void shouldReturnBadRequestForManualProcessingFeedback() {
+        long id = recordTransaction("manual_merchant", 1000, TransactionStatus.MANUAL_PROCESSING, RuleType.AMOUNT);
+        var response = giveFeedbackAsSupport(new TransactionFeedback(id, TransactionStatus.MANUAL_PROCESSING));
+        response.expectStatus().isBadRequest();
+    }
+
+    @Test
+    void shouldReturnForbiddenForMerchant() {
+        long id = recordTransaction(MERCHANT_USERNAME, 1000, TransactionStatus.MANUAL_PROCESSING, RuleType.AMOUNT);
+
+        var response = webClient.put()
+                .uri(ANTIFRAUD_TRANSACTION_ENDPOINT)
+                .headers(headers -> headers.setBasicAuth(MERCHANT_USERNAME, PASSWORD))
+                .bodyValue(new TransactionFeedback(id, TransactionStatus.ALLOWED))
+                .exchange();
+
+        response.expectStatus().isForbidden();
+    }
+
+    private WebTestClient.ResponseSpec giveFeedbackAsSupport(TransactionFeedback feedback) {
+        return webClient.put()
+                .uri(ANTIFRAUD_TRANSACTION_ENDPOINT)
+                .headers(headers -> headers.setBasicAuth(SUPPORT_USERNAME, PASSWORD))
+                .bodyValue(feedback)
+                .exchange();
+    }
+
+    private long recordTransaction(String merchant, long amount, TransactionStatus result, RuleType decidedBy) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO transaction_history (merchant, amount, result, decided_by, created_at) VALUES (?, ?, ?, ?, ?)",
+                    Statement.RETURN_GENERATED_KEYS);
+            statement.setString(1, merchant);
+            statement.setLong(2, amount);
+            statement.setString(3, result.name());
+            statement.setString(4, decidedBy == null ? null : decidedBy.name());
+            statement.setTimestamp(5, new Timestamp(System.currentTimeMillis()));
+            return statement;
+        }, keyHolder);
+        return keyHolder.getKey().longValue();
+    }
+}
@@ -0,0 +1,177 @@
+package antifraud.transaction;
+
+import antifraud.auth.Role;
+import antifraud.auth.User;
+import antifraud.auth.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+class TransactionHistoryTest {
+    private static final String MERCHANT_USERNAME = "history_merchant";
+    private static final String PASSWORD = "password";
+    private static final String VALID_CARD_NUMBER = "4000008449433403";
+
+    @Autowired
+    private WebTestClient webClient;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void registerUserForAuthorization(@Autowired UserRepository userRepository, @Autowired PasswordEncoder passwordEncoder) {
+        userRepository.save(new User("Merchant", MERCHANT_USERNAME, passwordEncoder.encode(PASSWORD), Role.MERCHANT));
+    }
+
+    @AfterAll
+    static void tearDown(@Autowired UserRepository userRepository) {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void shouldPersistScoredTransactionsWithResult() throws InterruptedException {
+        webClient.post()
+                .uri("/api/antifraud/transaction")
+                .headers(headers -> headers.setBasicAuth(MERCHANT_USERNAME, PASSWORD))
+                .bodyValue(new Transaction(1700, "192.168.1.1", VALID_CARD_NUMBER))
+                .exchange()
+                .expectStatus().isOk();
+        webClient.post()
+                .uri("/api/antifraud/transactions/batch")
+                .headers(headers -> headers.setBasicAuth(MERCHANT_USERNAME, PASSWORD))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[{\"amount\": 150}, {\"amount\": 870}]")
+                .exchange()
+                .expectStatus().isOk();
+
+        List<String> results = awaitHistory(3);
+
+        assertEquals(List.of("PROHIBITED", "ALLOWED", "MANUAL_PROCESSING"), results);
+        assertEquals(Long.parseLong(VALID_CARD_NUMBER), jdbcTemplate.queryForObject(
+                "SELECT number FROM transaction_history WHERE merchant = ? AND amount = 1700", Long.class, MERCHANT_USERNAME));
+        assertNull(jdbcTemplate.queryForObject(
+                "SELECT ip FROM transaction_history WHERE merchant = ? AND amount = 150", String.class, MERCHANT_USERNAME));
+        assertEquals(List.of("AMOUNT"), jdbcTemplate.queryForList(
+                "SELECT decided_by FROM transaction_history WHERE merchant = ? AND amount = 870", String.class, MERCHANT_USERNAME));
+    }
+
+    @Test
+    void shouldWriteQueuedTransactionsOnShutdown() throws InterruptedException {
+        TransactionHistory history = new TransactionHistory(jdbcTemplate, reviewQueue(), true, 1000, 1000, Duration.ofMinutes(1),
+                TransactionHistory.OverflowPolicy.BLOCK, Duration.ofMillis(10), new SimpleMeterRegistry());
+        history.start();
+        for (int i = 0; i < 100; i++) {
+            history.record("shutdown_merchant", new Transaction(10), TransactionStatus.ALLOWED);
+        }
+
+        history.stop();
+        history.record("shutdown_merchant", new Transaction(10), TransactionStatus.ALLOWED);
+
+        assertEquals(100, history.getWritten());
+        assertEquals(0, history.getDropped());
+        assertEquals(100, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM transaction_history WHERE merchant = 'shutdown_merchant'", Integer.class));
+    }
+
+    @Test
+    void shouldDropInsteadOfBlockingWhenQueueIsFull() throws InterruptedException {
+        TransactionHistory history = new TransactionHistory(jdbcTemplate, reviewQueue(), true, 10, 1000, Duration.ofMinutes(1),
+                TransactionHistory.OverflowPolicy.DROP, Duration.ZERO, new SimpleMeterRegistry());
+        history.start();
+        for (int i = 0; i < 1000; i++) {
+            history.record("overflow_merchant", new Transaction(10), TransactionStatus.ALLOWED);
+        }
+
+        history.stop();
+
+        assertEquals(1000, history.getWritten() + history.getDropped());
+        assertEquals(history.getWritten(), (long) jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM transaction_history WHERE merchant = 'overflow_merchant'", Long.class));
+    }
+
+    @Test
+    void shouldNeverDropTransactionsForReview() throws InterruptedException {
+        ReviewQueue reviewQueue = reviewQueue();
+        TransactionHistory history = new TransactionHistory(jdbcTemplate, reviewQueue, true, 10, 1000, Duration.ofMinutes(1),
+                TransactionHistory.OverflowPolicy.DROP, Duration.ZERO, new SimpleMeterRegistry());
+        history.start();
+        int pendingBefore = reviewQueue.getPending(); // loaded from rows other tests left for review
+        for (int i = 0; i < 1000; i++) {
+            history.recordWithoutWaiting("review_overflow_merchant", new Transaction(1000), TransactionStatus.MANUAL_PROCESSING);
+        }
+
+        history.stop();
+
+        assertEquals(0, history.getDropped());
+        assertEquals(1000, history.getWritten());
+        assertEquals(pendingBefore + 1000, reviewQueue.getPending());
+    }
+
+    @Test
+    void shouldWriteOnlyTransactionsForReviewWhenDisabled() throws InterruptedException {
+        TransactionHistory history = new TransactionHistory(jdbcTemplate, reviewQueue(), false, 1000, 1000, Duration.ofMinutes(1),
+                TransactionHistory.OverflowPolicy.DROP, Duration.ZERO, new SimpleMeterRegistry());
+        history.start();
+        history.record("disabled_merchant", new Transaction(10), TransactionStatus.ALLOWED);
+        history.record("disabled_merchant", new Transaction(1000), TransactionStatus.MANUAL_PROCESSING);
+
+        history.stop();
+
+        assertEquals(List.of("MANUAL_PROCESSING"), jdbcTemplate.queryForList(
+                "SELECT result FROM transaction_history WHERE merchant = 'disabled_merchant'", String.class));
+    }
+
+    @Test
+    void shouldRetryBatchesUntilTheDatabaseRecovers() throws InterruptedException {
+        JdbcTemplate failing = new JdbcTemplate(new DriverManagerDataSource("jdbc:h2:mem:history_retry;DB_CLOSE_DELAY=-1", "sa", ""));
+        failing.execute("CREATE TABLE transaction_history (id BIGINT AUTO_INCREMENT PRIMARY KEY, merchant varchar(50), "
+                + "amount BIGINT NOT NULL, ip varchar(15), number BIGINT, result varchar(20) NOT NULL, decided_by varchar(20), "
+                + "created_at TIMESTAMP NOT NULL, feedback varchar(20))");
+        TransactionHistory history = new TransactionHistory(failing, reviewQueue(), true, 1000, 1000, Duration.ofMillis(20),
+                TransactionHistory.OverflowPolicy.DROP, Duration.ZERO, new SimpleMeterRegistry());
+        history.start();
+        failing.execute("ALTER TABLE transaction_history RENAME TO offline_history");
+        for (int i = 0; i < 10; i++) {
+            history.record("retry_merchant", new Transaction(1000), TransactionStatus.MANUAL_PROCESSING);
+        }
+
+        Thread.sleep(200); // a few failed attempts
+        failing.execute("ALTER TABLE offline_history RENAME TO transaction_history");
+        history.stop();
+
+        assertEquals(0, history.getDropped());
+        assertEquals(10, history.getWritten());
+        assertEquals(10, failing.queryForObject("SELECT COUNT(*) FROM transaction_history", Integer.class));
+    }
+
+    private static ReviewQueue reviewQueue() {
+        return new ReviewQueue(Duration.ofSeconds(30), Duration.ofMinutes(5), 100_000, new SimpleMeterRegistry());
+    }
+
+    private List<String> awaitHistory(int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        List<String> results;
+        do {
+            Thread.sleep(50);
+            results = jdbcTemplate.queryForList(
+                    "SELECT result FROM transaction_history WHERE merchant = ? ORDER BY id", String.class, MERCHANT_USERNAME);
+        } while (results.size() < expected && System.nanoTime() < deadline);
+        return results;
+    }
+}
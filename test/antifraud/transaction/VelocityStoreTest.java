@@ -0,0 +1,103 @@
+package antifraud.transaction;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VelocityStoreTest {
+    private static final long CARD = 4000008449433403L;
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+    private static final long MINUTE = Duration.ofMinutes(1).toMillis();
+
+    private final VelocityStore store = new VelocityStore(4, 12, 16, 1000, Duration.ofHours(1));
+
+    @Test
+    void shouldCountDistinctIPsOtherThanCurrentInsideWindow() {
+        store.record(CARD, 0, 1, VelocityStore.UNKNOWN_REGION);
+        store.record(CARD, HOUR, 2, VelocityStore.UNKNOWN_REGION);
+        store.record(CARD, HOUR + 1, 2, VelocityStore.UNKNOWN_REGION);
+        store.record(CARD, HOUR + 2, 3, VelocityStore.UNKNOWN_REGION);
+        store.record(CARD, HOUR + 3, VelocityStore.UNKNOWN_IP, VelocityStore.UNKNOWN_REGION);
+
+        assertEquals(2, store.countDistinctIPs(CARD, HOUR, 4, 10));
+        assertEquals(1, store.countDistinctIPs(CARD, HOUR, 3, 10));
+        assertEquals(3, store.countDistinctIPs(CARD, 0, 4, 10));
+        assertEquals(1, store.countDistinctIPs(CARD, 0, 4, 1));
+        assertEquals(0, store.countDistinctIPs(CARD + 1, 0, 4, 10));
+    }
+
+    @Test
+    void shouldCountDistinctRegionsOtherThanCurrentInsideWindow() {
+        store.record(CARD, HOUR, 1, Region.EAP.ordinal());
+        store.record(CARD, HOUR, 1, Region.EAP.ordinal());
+        store.record(CARD, HOUR, 1, Region.SSA.ordinal());
+        store.record(CARD, HOUR, 1, VelocityStore.UNKNOWN_REGION);
+
+        assertEquals(2, store.countDistinctRegions(CARD, 0, Region.MENA.ordinal()));
+        assertEquals(1, store.countDistinctRegions(CARD, 0, Region.SSA.ordinal()));
+        assertEquals(0, store.countDistinctRegions(CARD, HOUR + 1, Region.MENA.ordinal()));
+    }
+
+    @Test
+    void shouldNotLoseEarlierIPsToLaterTraffic() {
+        for (int ip = 1; ip <= 5; ip++) {
+            store.record(CARD, ip, ip, VelocityStore.UNKNOWN_REGION);
+        }
+        for (int i = 0; i < 100; i++) { // padding from one address
+            store.record(CARD, 10 + i, 99, VelocityStore.UNKNOWN_REGION);
+        }
+
+        assertEquals(5, store.countDistinctIPs(CARD, 0, 99, 100));
+        assertEquals(6, store.countDistinctIPs(CARD, 0, VelocityStore.UNKNOWN_IP, 100));
+    }
+
+    @Test
+    void shouldCountSaturatedBucketAsLimit() {
+        VelocityStore narrow = new VelocityStore(1, 12, 4, 1000, Duration.ofHours(1));
+        for (int ip = 1; ip <= 40; ip++) {
+            narrow.record(CARD, ip, ip, VelocityStore.UNKNOWN_REGION);
+        }
+
+        assertEquals(3, narrow.countDistinctIPs(CARD, 0, VelocityStore.UNKNOWN_IP, 3));
+        assertEquals(100, narrow.countDistinctIPs(CARD, 0, VelocityStore.UNKNOWN_IP, 100));
+        assertEquals(0, narrow.countDistinctIPs(CARD, 41, VelocityStore.UNKNOWN_IP, 100));
+    }
+
+    @Test
+    void shouldForgetBucketsOlderThanRetention() {
+        store.record(CARD, 0, 1, Region.EAP.ordinal());
+        store.record(CARD, 13 * 5 * MINUTE, 2, Region.SSA.ordinal()); // a ring of 13 five-minute buckets later, same slot
+
+        assertEquals(1, store.countDistinctIPs(CARD, 0, VelocityStore.UNKNOWN_IP, 10));
+        assertEquals(1, store.countDistinctRegions(CARD, 0, Region.MENA.ordinal()));
+    }
+
+    @Test
+    void shouldEvictIdleCards() {
+        for (long card = 1; card <= 100; card++) {
+            store.record(card, 0, 1, VelocityStore.UNKNOWN_REGION);
+        }
+
+        for (long card = 101; card <= 200; card++) {
+            store.record(card, 2 * HOUR, 1, VelocityStore.UNKNOWN_REGION);
+        }
+
+        assertTrue(store.size() < 200);
+        assertEquals(1, store.countDistinctIPs(200, 0, VelocityStore.UNKNOWN_IP, 10));
+    }
+
+    @Test
+    void shouldCapNumberOfCards() {
+        VelocityStore small = new VelocityStore(1, 12, 16, 100, Duration.ofHours(1));
+        for (long card = 1; card <= 1000; card++) {
+            small.record(card, card, 1, VelocityStore.UNKNOWN_REGION);
+        }
+
+        assertTrue(small.size() <= 100);
+        assertEquals(1, small.countDistinctIPs(1000, 0, VelocityStore.UNKNOWN_IP, 10));
+        assertEquals(0, small.countDistinctIPs(1, 0, VelocityStore.UNKNOWN_IP, 10));
+    }
+}